@@ -0,0 +1,74 @@
+package com.usuario.backend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Peticiones async de MVC (hoy, el ZIP de un aula con StreamingResponseBody).
+ *
+ * Cada descarga ocupa un hilo mientras escribe; el ejecutor por defecto de Boot tiene cola sin
+ * límite, así que una avalancha de ZIPs se acumularía en memoria. Aquí el pool y la cola están
+ * acotados: si se llenan, la petición se rechaza (503) en lugar de esperar. El timeout por defecto
+ * es corto; el endpoint que necesita más lo fija en su propia petición.
+ */
+@Configuration
+public class AsyncWebConfig implements WebMvcConfigurer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncWebConfig.class);
+
+    @Value("${app.web.async.threads:4}")
+    private int threads;
+
+    @Value("${app.web.async.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${app.web.async.timeout-ms:30000}")
+    private long timeoutMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // No es un bean: uno de tipo Executor desactivaría el applicationTaskExecutor de Boot
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setDaemon(true);
+        executor.initialize();
+
+        Gauge.builder("web.async.queue", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .description("Peticiones async (descargas en streaming) en espera")
+                .register(meterRegistry);
+        Gauge.builder("web.async.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Peticiones async (descargas en streaming) en ejecución")
+                .register(meterRegistry);
+
+        logger.info("Ejecutor async de MVC: {} hilos, cola de {}", threads, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(executor);
+        configurer.setDefaultTimeout(timeoutMs);
+    }
+}
@@ -0,0 +1,124 @@
+package com.usuario.backend.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registro único de rutas públicas (sin autenticación).
+ *
+ * Lo usan tanto {@link SecurityConfig} ({@code permitAll}) como el filtro JWT, que se salta
+ * estas rutas por completo. Los patrones se compilan una sola vez en un trie por segmentos;
+ * se admite {@code *} (un segmento) y {@code **} al final (cero o más segmentos).
+ */
+@Component
+public class PublicRoutes implements RequestMatcher {
+
+    public static final List<String> PATTERNS = List.of(
+            // 🔥 ENDPOINTS COMPLETAMENTE PÚBLICOS
+            "/", "/oauth2/**", "/login/**", "/api/public/**", "/error",
+
+            // 🔥 ENDPOINTS DE AUTENTICACIÓN PÚBLICOS
+            "/api/usuarios/register", "/api/usuarios/login",
+            "/api/auth/login", "/api/auth/google-login",
+
+            // 🔥 ENDPOINTS PARA FILTROS EN CASCADA (PÚBLICOS PARA REGISTRO Y CREAR AULAS)
+            "/api/departamentos/activos",
+            "/api/carreras/activas",
+            "/api/carreras/departamento/*/activas",
+            "/api/ciclos/todos",
+            "/api/ciclos/carrera/*",
+            "/api/secciones/carrera/*",
+            "/api/secciones/carrera/*/ciclo/*",
+
+            // 🔥 HEALTH CHECKS PÚBLICOS
+            "/api/carreras/health", "/api/departamentos/health",
+            "/api/ciclos/health", "/api/secciones/health",
+
+            // 🔥 DEBUG ENDPOINTS (TEMPORALES)
+            "/api/debug/**"
+    );
+
+    private final Node root = new Node();
+
+    public PublicRoutes() {
+        PATTERNS.forEach(this::add);
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        if (contextPath != null && !contextPath.isEmpty() && path.startsWith(contextPath)) {
+            path = path.substring(contextPath.length());
+        }
+        return isPublic(path);
+    }
+
+    public boolean isPublic(String path) {
+        if (path == null || path.isEmpty() || path.charAt(0) != '/') {
+            return false;
+        }
+        return match(root, path, 1);
+    }
+
+    private void add(String pattern) {
+        Node node = root;
+        if (!pattern.equals("/")) {
+            String[] segments = pattern.substring(1).split("/");
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.equals("**")) {
+                    if (i != segments.length - 1) {
+                        throw new IllegalArgumentException("'**' solo se admite al final: " + pattern);
+                    }
+                    node.matchesRest = true;
+                    return;
+                }
+                node = segment.equals("*")
+                        ? (node.wildcard != null ? node.wildcard : (node.wildcard = new Node()))
+                        : node.children.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+        node.terminal = true;
+    }
+
+    // Recorre el path segmento a segmento sin partirlo en un arreglo
+    private static boolean match(Node node, String path, int start) {
+        if (node.matchesRest) {
+            return true;
+        }
+        if (start >= path.length()) {
+            return node.terminal;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+
+        Node literal = node.children.get(path.substring(start, end));
+        if (literal != null && matchNext(literal, path, end)) {
+            return true;
+        }
+        return node.wildcard != null && end > start && matchNext(node.wildcard, path, end);
+    }
+
+    private static boolean matchNext(Node next, String path, int end) {
+        if (end == path.length()) {
+            return next.terminal || next.matchesRest;
+        }
+        return match(next, path, end + 1);
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Node wildcard;
+        private boolean terminal;
+        private boolean matchesRest;
+    }
+}
@@ -1,6 +1,7 @@
 package com.usuario.backend.config;
 
 import com.usuario.backend.security.oauth2.CustomOAuth2UserService;
+import com.usuario.backend.security.oauth2.HttpCookieOAuth2AuthorizationRequestRepository;
 import com.usuario.backend.security.oauth2.OAuth2AuthenticationSuccessHandler;
 import com.usuario.backend.security.jwt.JwtAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,9 +13,11 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.savedrequest.NullRequestCache;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import java.util.Arrays;
 import java.util.List;
@@ -35,6 +38,12 @@ public class SecurityConfig {
     @Autowired
     private UrlConfig urlConfig;
 
+    @Autowired
+    private PublicRoutes publicRoutes;
+
+    @Autowired
+    private HttpCookieOAuth2AuthorizationRequestRepository authorizationRequestRepository;
+
     // 🔧 URLs dinámicas según entorno
     @Value("${app.frontend.local-url:http://localhost:5173}")
     private String frontendLocalUrl;
@@ -50,31 +59,17 @@ public class SecurityConfig {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
+                // Sin HttpSession: la API se autentica con JWT y el estado OAuth2 viaja en una cookie firmada
                 .sessionManagement(session -> session
-                        .sessionCreationPolicy(SessionCreationPolicy.ALWAYS) // Para OAuth2
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
+                .requestCache(cache -> cache.requestCache(new NullRequestCache()))
                 .authorizeHttpRequests(auth -> auth
-                        // 🔥 ENDPOINTS COMPLETAMENTE PÚBLICOS
-                        .requestMatchers("/", "/oauth2/**", "/login/**", "/api/public/**", "/error").permitAll()
-                        
-                        // 🔥 ENDPOINTS DE AUTENTICACIÓN PÚBLICOS
-                        .requestMatchers("/api/usuarios/register", "/api/usuarios/login").permitAll()
-                        .requestMatchers("/api/auth/login", "/api/auth/google-login").permitAll()
-                        
-                        // 🔥 ENDPOINTS PARA FILTROS EN CASCADA (PÚBLICOS PARA CREAR AULAS)
-                        .requestMatchers("/api/departamentos/activos").permitAll()
-                        .requestMatchers("/api/carreras/activas").permitAll()
-                        .requestMatchers("/api/carreras/departamento/*/activas").permitAll()
-                        .requestMatchers("/api/ciclos/todos").permitAll()
-                        .requestMatchers("/api/ciclos/carrera/*").permitAll()
-                        .requestMatchers("/api/secciones/carrera/*").permitAll()
-                        .requestMatchers("/api/secciones/carrera/*/ciclo/*").permitAll()
-                        
-                        // 🔥 HEALTH CHECKS PÚBLICOS
-                        .requestMatchers("/api/carreras/health").permitAll()
-                        .requestMatchers("/api/departamentos/health").permitAll()
-                        .requestMatchers("/api/ciclos/health").permitAll()
-                        .requestMatchers("/api/secciones/health").permitAll()
+                        // 🔥 Despachos ASYNC (SSE): continúan una petición que ya pasó la autorización
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
+                        // 🔥 ENDPOINTS PÚBLICOS (registro único compartido con el filtro JWT)
+                        .requestMatchers(publicRoutes).permitAll()
                         
                         // 🔥 ENDPOINTS QUE REQUIEREN AUTENTICACIÓN
                         .requestMatchers("/api/usuarios/me", "/api/usuarios/{id}").authenticated()
@@ -88,15 +83,13 @@ public class SecurityConfig {
                         // 🔥 INVITACIONES - REQUIERE AUTENTICACIÓN 
                         .requestMatchers("/api/invitaciones/**").authenticated()
                         
-                        // 🔥 DEBUG ENDPOINTS (TEMPORALES)
-                        .requestMatchers("/api/debug/**").permitAll()
-                        
                         // 🔥 TODOS LOS DEMÁS REQUIEREN AUTENTICACIÓN
                         .anyRequest().authenticated()
                 )
                 .oauth2Login(oauth2 -> oauth2
                         .authorizationEndpoint(authEndpoint -> authEndpoint
-                                .baseUri("/oauth2/authorize"))
+                                .baseUri("/oauth2/authorize")
+                                .authorizationRequestRepository(authorizationRequestRepository))
                         .redirectionEndpoint(redirectEndpoint -> redirectEndpoint
                                 .baseUri("/oauth2/callback/*"))
                         .userInfoEndpoint(userInfoEndpoint -> userInfoEndpoint
@@ -1,17 +1,21 @@
 package com.usuario.backend.controller;
 
+import com.usuario.backend.model.dto.PaginaAnuncios;
+import com.usuario.backend.model.dto.VersionRecurso;
 import com.usuario.backend.model.entity.Anuncio;
+import com.usuario.backend.security.jwt.AuthenticatedUser;
 import com.usuario.backend.service.aula.AnuncioService;
-import com.usuario.backend.service.user.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 
-import java.security.Principal;
-import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/anuncios/general")
@@ -19,19 +23,25 @@ public class AnuncioGeneralController {
     @Autowired
     private AnuncioService anuncioService;
 
-    @Autowired
-    private UsuarioService usuarioService;
-
-    // GET: anuncios generales (es_general = true)
+    // GET: página de anuncios generales (es_general = true); la siguiente con ?cursor=<nextCursor>.
+    // Con If-None-Match vigente responde 304 sin armar la página
     @GetMapping
-    public List<Anuncio> getAnunciosGenerales() {
-        return anuncioService.getAnunciosGenerales();
-    }
-
-    // GET: todos los anuncios (generales y de aula)
-    @GetMapping("/todos")
-    public List<Anuncio> getTodosLosAnuncios() {
-        return anuncioService.getTodosLosAnuncios();
+    public ResponseEntity<?> getAnunciosGenerales(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestParam(defaultValue = "false") boolean contenidoCompleto,
+                                                  @AuthenticationPrincipal AuthenticatedUser usuario,
+                                                  WebRequest request) {
+        try {
+            VersionRecurso version = anuncioService.getVersionGeneral(usuario.getId());
+            // Solo ETag: Last-Modified no refleja las lecturas ni los likes del usuario
+            if (request.checkNotModified(version.etag("general", usuario.getId()))) {
+                return null;
+            }
+            PaginaAnuncios pagina = anuncioService.getAnunciosGenerales(usuario.getId(), cursor, limit, contenidoCompleto);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     // POST: crear un nuevo anuncio general (sin aulaId, es_general = true)
@@ -41,10 +51,8 @@ public class AnuncioGeneralController {
         @RequestPart("contenido") String contenido,
         @RequestPart("tipo") String tipo,
         @RequestPart(value = "archivo", required = false) MultipartFile archivo,
-        Principal principal
+        @AuthenticationPrincipal AuthenticatedUser usuario
     ) {
-        String email = principal.getName();
-        var usuario = usuarioService.findByCorreoInstitucional(email);
         Long usuarioId = usuario.getId();
         String rol = usuario.getRol().toString();
         Anuncio anuncio = new Anuncio();
@@ -53,13 +61,8 @@ public class AnuncioGeneralController {
         anuncio.setTipo(tipo);
         anuncio.setEsGeneral(true);
         anuncio.setAulaId(null);
-        if (archivo != null && !archivo.isEmpty()) {
-            anuncio.setArchivoNombre(archivo.getOriginalFilename());
-            anuncio.setArchivoTipo(archivo.getContentType());
-            anuncio.setArchivoTamaño(archivo.getSize());
-        }
         anuncio.setAutorId(usuarioId != null ? usuarioId.intValue() : null);
-        Anuncio creado = anuncioService.crearAnuncioGeneral(usuarioId, rol, anuncio);
+        Anuncio creado = anuncioService.crearAnuncioGeneral(usuarioId, rol, anuncio, archivo);
         return new ResponseEntity<>(creado, HttpStatus.CREATED);
     }
 }
@@ -0,0 +1,155 @@
+package com.usuario.backend.controller;
+
+import com.usuario.backend.model.dto.AdjuntoAula;
+import com.usuario.backend.model.entity.Anuncio;
+import com.usuario.backend.security.jwt.AuthenticatedUser;
+import com.usuario.backend.security.jwt.ResourceTicketService;
+import com.usuario.backend.service.aula.AnuncioService;
+import com.usuario.backend.service.storage.AdjuntoService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Descargas de adjuntos: el de un anuncio, con ETag y peticiones Range (visores de PDF, reanudación),
+ * su miniatura, y todos los de un aula en un ZIP generado al vuelo.
+ */
+@RestController
+@RequestMapping("/api")
+public class ArchivoController {
+
+    // Enlaces y visores no pueden enviar cabeceras: en estas rutas el filtro JWT acepta un ?ticket= emitido
+    // por POST /api/descargas/tickets, válido solo para esa ruta y unos minutos
+    private static final Pattern DESCARGA_PATH = Pattern.compile("/api/anuncios/\\d+/archivo(/preview)?|/api/aulas/\\d+/archivos");
+
+    @Autowired
+    private AnuncioService anuncioService;
+
+    @Autowired
+    private AdjuntoService adjuntoService;
+
+    @Autowired
+    private ResourceTicketService ticketService;
+
+    @Value("${app.descargas.ticket-ttl-ms:600000}")
+    private long ticketTtlMs;
+
+    // El ZIP se escribe en streaming y uno grande tarda mucho más que el timeout async por defecto
+    @Value("${app.descargas.zip.timeout-ms:1800000}")
+    private long zipTimeoutMs;
+
+    public static boolean esRutaDescarga(String path) {
+        return DESCARGA_PATH.matcher(path).matches();
+    }
+
+    // POST: ticket de descarga para { "ruta": "/api/anuncios/5/archivo" }. El acceso al recurso se comprueba
+    // al usarlo; el ticket solo identifica al usuario para esa ruta
+    @PostMapping("/descargas/tickets")
+    public ResponseEntity<?> emitirTicket(@RequestBody Map<String, String> body,
+                                          @AuthenticationPrincipal AuthenticatedUser usuario) {
+        String ruta = body.get("ruta");
+        if (ruta == null || !esRutaDescarga(ruta)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Ruta de descarga no válida"));
+        }
+        ResourceTicketService.Ticket ticket = ticketService.emitir(usuario, ruta, ticketTtlMs);
+        return ResponseEntity.ok(Map.of("ticket", ticket.valor(), "expiraEn", ticket.expiraEn()));
+    }
+
+    // GET (y HEAD): el cuerpo lo escribe AdjuntoService directamente en la respuesta
+    @GetMapping("/anuncios/{anuncioId}/archivo")
+    public ResponseEntity<?> descargar(@PathVariable Long anuncioId,
+                                       @AuthenticationPrincipal AuthenticatedUser usuario,
+                                       HttpServletRequest request,
+                                       HttpServletResponse response) throws IOException {
+        try {
+            Anuncio anuncio = anuncioService.getAnuncioAccesible(usuario.getId(), String.valueOf(usuario.getRol()), anuncioId);
+            adjuntoService.descargar(anuncio, request, response);
+            return null;
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // GET: miniatura del adjunto (imagen reducida o primera página del PDF); 404 mientras no esté generada
+    @GetMapping("/anuncios/{anuncioId}/archivo/preview")
+    public ResponseEntity<?> descargarPreview(@PathVariable Long anuncioId,
+                                              @AuthenticationPrincipal AuthenticatedUser usuario,
+                                              HttpServletRequest request,
+                                              HttpServletResponse response) throws IOException {
+        try {
+            Anuncio anuncio = anuncioService.getAnuncioAccesible(usuario.getId(), String.valueOf(usuario.getRol()), anuncioId);
+            adjuntoService.descargarPreview(anuncio, request, response);
+            return null;
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // GET: ZIP con los adjuntos de los anuncios activos del aula, escrito en streaming.
+    // ?excluir=<etag>,... omite los archivos que el cliente ya tiene (reanudación por archivo)
+    @GetMapping("/aulas/{aulaId}/archivos")
+    public ResponseEntity<StreamingResponseBody> descargarAula(@PathVariable Integer aulaId,
+                                                               @RequestParam(required = false) List<String> excluir,
+                                                               @AuthenticationPrincipal AuthenticatedUser usuario,
+                                                               WebRequest request) {
+        try {
+            List<AdjuntoAula> adjuntos = adjuntoService.prepararZip(
+                    anuncioService.getAdjuntosDeAula(usuario.getId(), String.valueOf(usuario.getRol()), aulaId), excluir);
+            if (request.checkNotModified(adjuntoService.etagZip(adjuntos))) {
+                return null;
+            }
+            WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(zipTimeoutMs);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .header("Content-Security-Policy", "sandbox")
+                    .header("X-Content-Type-Options", "nosniff")
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            ContentDisposition.attachment().filename("aula-" + aulaId + "-archivos.zip").build().toString())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(adjuntoService.zip(adjuntos));
+        } catch (SecurityException e) {
+            // Sin cuerpo JSON: la respuesta de este endpoint es siempre binaria
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+
+    // Pool de descargas async lleno (AsyncWebConfig): se rechaza en vez de encolar sin límite
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Void> descargasSaturadas(HttpServletResponse response) {
+        if (!response.isCommitted()) {
+            response.reset();
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .build();
+    }
+}
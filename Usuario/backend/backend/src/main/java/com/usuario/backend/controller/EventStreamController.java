@@ -0,0 +1,75 @@
+package com.usuario.backend.controller;
+
+import com.usuario.backend.model.entity.AulaVirtual;
+import com.usuario.backend.model.entity.Usuario;
+import com.usuario.backend.security.jwt.AuthenticatedUser;
+import com.usuario.backend.security.jwt.ResourceTicketService;
+import com.usuario.backend.service.aula.AulaVirtualService;
+import com.usuario.backend.service.realtime.EventHub;
+import com.usuario.backend.service.user.UsuarioService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stream SSE por usuario con la actividad de sus aulas: anuncios nuevos ("anuncio"), cambios de
+ * likes/comentarios agrupados ("stats") e invitaciones nuevas ("invitacion").
+ */
+@RestController
+@RequestMapping("/api/events")
+@CrossOrigin(origins = "*")
+public class EventStreamController {
+
+    // EventSource no permite cabeceras: esta ruta se abre con ?ticket= (POST /api/events/tickets)
+    public static final String STREAM_PATH = "/api/events/stream";
+
+    @Autowired
+    private EventHub eventHub;
+
+    @Autowired
+    private AulaVirtualService aulaVirtualService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private ResourceTicketService ticketService;
+
+    @Value("${app.realtime.ticket-ttl-ms:60000}")
+    private long ticketTtlMs;
+
+    // POST: ticket para abrir el stream. Lleva la sesión que lo pide: tras el logout deja de valer
+    @PostMapping("/tickets")
+    public ResponseEntity<?> emitirTicket(@AuthenticationPrincipal AuthenticatedUser usuario) {
+        ResourceTicketService.Ticket ticket = ticketService.emitir(usuario, STREAM_PATH, ticketTtlMs);
+        return ResponseEntity.ok(Map.of("ticket", ticket.valor(), "expiraEn", ticket.expiraEn()));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@AuthenticationPrincipal AuthenticatedUser usuario) {
+        // El ticket no lleva el correo; hace falta para las invitaciones
+        Usuario actual = usuarioService.findById(usuario.getId());
+        if (actual == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        List<Long> aulaIds = aulaVirtualService.getAulasByUsuario(usuario.getId(), String.valueOf(usuario.getRol()))
+            .stream()
+            .map(AulaVirtual::getId)
+            .toList();
+        EventHub.Sesion sesion = new EventHub.Sesion(usuario.getId(), actual.getCorreoInstitucional(),
+                usuario.getTokenVersion(), usuario.getSessionId(), usuario.getSessionExpiresAt());
+        return ResponseEntity.ok(eventHub.subscribe(sesion, aulaIds));
+    }
+}
@@ -0,0 +1,58 @@
+package com.usuario.backend.controller;
+
+import com.usuario.backend.model.dto.AnuncioFeedItem;
+import com.usuario.backend.model.dto.PaginaAnuncios;
+import com.usuario.backend.security.jwt.AuthenticatedUser;
+import com.usuario.backend.service.aula.AnuncioService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Inicio del usuario: anuncios generales y de todas sus aulas en una sola página ordenada por fecha.
+ */
+@RestController
+@RequestMapping("/api/feed")
+public class FeedController {
+
+    @Autowired
+    private AnuncioService anuncioService;
+
+    // GET: página del inicio; la siguiente con ?cursor=<nextCursor>.
+    // Las tarjetas traen un extracto del contenido salvo con ?contenidoCompleto=true
+    @GetMapping
+    public ResponseEntity<?> getFeed(@RequestParam(required = false) String cursor,
+                                     @RequestParam(required = false) Integer limit,
+                                     @RequestParam(defaultValue = "false") boolean contenidoCompleto,
+                                     @AuthenticationPrincipal AuthenticatedUser usuario) {
+        try {
+            PaginaAnuncios pagina = anuncioService.getFeed(usuario.getId(), String.valueOf(usuario.getRol()),
+                    cursor, limit, contenidoCompleto);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // GET: un anuncio con el contenido completo (al expandir una tarjeta)
+    @GetMapping("/anuncios/{anuncioId}")
+    public ResponseEntity<?> getAnuncio(@PathVariable Long anuncioId,
+                                        @AuthenticationPrincipal AuthenticatedUser usuario) {
+        try {
+            AnuncioFeedItem anuncio = anuncioService.getAnuncio(usuario.getId(), String.valueOf(usuario.getRol()), anuncioId);
+            return ResponseEntity.ok(anuncio);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
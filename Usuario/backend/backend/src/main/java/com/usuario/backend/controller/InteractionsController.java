@@ -1,15 +1,17 @@
 package com.usuario.backend.controller;
 
+import com.usuario.backend.model.dto.AnuncioStats;
+import com.usuario.backend.model.dto.PaginaComentarios;
+import com.usuario.backend.model.dto.ResumenLecturas;
 import com.usuario.backend.model.entity.*;
-import com.usuario.backend.service.user.UsuarioService;
+import com.usuario.backend.security.jwt.AuthenticatedUser;
+import com.usuario.backend.service.aula.InteraccionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -19,41 +21,42 @@ import java.util.*;
 @CrossOrigin(origins = "*")
 public class InteractionsController {
 
-    @PersistenceContext
-    private EntityManager entityManager;
-    
     @Autowired
-    private UsuarioService usuarioService;
+    private InteraccionService interaccionService;
 
     // ========== LIKES ==========
     
     @PostMapping("/like/{anuncioId}")
-    @Transactional
     public ResponseEntity<?> toggleLike(@PathVariable Long anuncioId, 
-                                       @AuthenticationPrincipal UserDetails userDetails) {
+                                       @AuthenticationPrincipal AuthenticatedUser usuario) {
         try {
-            Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
-            
-            // Verificar si ya existe el like
-            Like existingLike = entityManager
-                .createQuery("SELECT l FROM Like l WHERE l.anuncioId = :anuncioId AND l.usuarioId = :usuarioId", Like.class)
-                .setParameter("anuncioId", anuncioId)
-                .setParameter("usuarioId", usuario.getId().intValue())
-                .getResultList()
-                .stream()
-                .findFirst()
-                .orElse(null);
-
-            if (existingLike != null) {
-                // Quitar like
-                entityManager.remove(existingLike);
-                return ResponseEntity.ok(Map.of("liked", false, "message", "Like eliminado"));
-            } else {
-                // Agregar like
-                Like newLike = new Like(usuario.getId().intValue(), anuncioId);
-                entityManager.persist(newLike);
-                return ResponseEntity.ok(Map.of("liked", true, "message", "Like agregado"));
-            }
+            boolean liked = interaccionService.toggleLike(anuncioId, usuario.getId());
+            return ResponseEntity.ok(Map.of("liked", liked, "message", liked ? "Like agregado" : "Like eliminado"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/like/{anuncioId}")
+    public ResponseEntity<?> setLike(@PathVariable Long anuncioId,
+                                    @AuthenticationPrincipal AuthenticatedUser usuario) {
+        return applyLike(anuncioId, usuario, true);
+    }
+
+    @DeleteMapping("/like/{anuncioId}")
+    public ResponseEntity<?> unsetLike(@PathVariable Long anuncioId,
+                                      @AuthenticationPrincipal AuthenticatedUser usuario) {
+        return applyLike(anuncioId, usuario, false);
+    }
+
+    private ResponseEntity<?> applyLike(Long anuncioId, AuthenticatedUser usuario, boolean liked) {
+        try {
+            int affected = interaccionService.setLike(anuncioId, usuario.getId(), liked);
+            return ResponseEntity.ok(Map.of(
+                "liked", liked,
+                "changed", affected > 0,
+                "affectedRows", affected,
+                "message", liked ? "Like agregado" : "Like eliminado"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -62,11 +65,8 @@ public class InteractionsController {
     @GetMapping("/likes/{anuncioId}")
     public ResponseEntity<?> getLikes(@PathVariable Long anuncioId) {
         try {
-            Long count = entityManager
-                .createQuery("SELECT COUNT(l) FROM Like l WHERE l.anuncioId = :anuncioId", Long.class)
-                .setParameter("anuncioId", anuncioId)
-                .getSingleResult();
-            
+            // Lectura O(1) del contador denormalizado
+            long count = interaccionService.contarLikes(anuncioId);
             return ResponseEntity.ok(Map.of("count", count));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -74,14 +74,9 @@ public class InteractionsController {
     }
 
     @GetMapping("/user-likes")
-    public ResponseEntity<?> getUserLikes(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> getUserLikes(@AuthenticationPrincipal AuthenticatedUser usuario) {
         try {
-            Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
-            
-            List<Long> likedAnuncios = entityManager
-                .createQuery("SELECT l.anuncioId FROM Like l WHERE l.usuarioId = :usuarioId", Long.class)
-                .setParameter("usuarioId", usuario.getId().intValue())
-                .getResultList();
+            List<Long> likedAnuncios = interaccionService.getAnunciosConLike(usuario.getId());
             
             return ResponseEntity.ok(Map.of("likedAnuncios", likedAnuncios));
         } catch (Exception e) {
@@ -92,20 +87,19 @@ public class InteractionsController {
     // ========== COMENTARIOS ==========
     
     @PostMapping("/comment/{anuncioId}")
-    @Transactional
     public ResponseEntity<?> addComment(@PathVariable Long anuncioId,
-                                       @RequestBody Map<String, String> request,
-                                       @AuthenticationPrincipal UserDetails userDetails) {
+                                       @RequestBody Map<String, Object> request,
+                                       @AuthenticationPrincipal AuthenticatedUser usuario) {
         try {
-            Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
-            String contenido = request.get("contenido");
+            String contenido = request.get("contenido") instanceof String texto ? texto : null;
+            Long comentarioPadreId = request.get("comentarioPadreId") instanceof Number padre ? padre.longValue() : null;
             
             if (contenido == null || contenido.trim().isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Contenido requerido"));
             }
 
-            Comentario comentario = new Comentario(usuario.getId().intValue(), anuncioId, contenido.trim());
-            entityManager.persist(comentario);
+            Comentario comentario = interaccionService.agregarComentario(
+                anuncioId, usuario.getId(), contenido.trim(), comentarioPadreId);
             
             return ResponseEntity.ok(Map.of("message", "Comentario agregado", "comentarioId", comentario.getId()));
         } catch (Exception e) {
@@ -113,31 +107,50 @@ public class InteractionsController {
         }
     }
 
+    @DeleteMapping("/comment/{comentarioId}")
+    public ResponseEntity<?> deactivateComment(@PathVariable Long comentarioId,
+                                              @AuthenticationPrincipal AuthenticatedUser usuario) {
+        try {
+            boolean desactivado = interaccionService.desactivarComentario(comentarioId, usuario.getId());
+            return ResponseEntity.ok(Map.of(
+                "message", desactivado ? "Comentario eliminado" : "El comentario ya estaba eliminado"));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 💬 Comentarios paginados por cursor sobre (fechaCreacion, id).
+     * threaded=true devuelve una página de comentarios raíz, cada uno con sus respuestas.
+     */
     @GetMapping("/comments/{anuncioId}")
-    public ResponseEntity<?> getComments(@PathVariable Long anuncioId) {
+    public ResponseEntity<?> getComments(@PathVariable Long anuncioId,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false) Integer limit,
+                                        @RequestParam(defaultValue = "false") boolean threaded) {
         try {
-            List<Object[]> results = entityManager
-                .createQuery("""
-                    SELECT c.id, c.contenido, c.fechaCreacion, c.usuarioId, u.nombre, u.apellidos 
-                    FROM Comentario c JOIN Usuario u ON c.usuarioId = u.id 
-                    WHERE c.anuncioId = :anuncioId AND c.activo = true 
-                    ORDER BY c.fechaCreacion ASC
-                    """, Object[].class)
-                .setParameter("anuncioId", anuncioId)
-                .getResultList();
-
-            List<Map<String, Object>> comentarios = new ArrayList<>();
-            for (Object[] result : results) {
-                Map<String, Object> comentario = new HashMap<>();
-                comentario.put("id", result[0]);
-                comentario.put("contenido", result[1]);
-                comentario.put("fechaCreacion", result[2]);
-                comentario.put("usuarioId", result[3]);
-                comentario.put("autor", result[4] + " " + result[5]);
-                comentarios.add(comentario);
-            }
-            
-            return ResponseEntity.ok(Map.of("comentarios", comentarios));
+            PaginaComentarios pagina = threaded
+                ? interaccionService.listarHilos(anuncioId, cursor, limit)
+                : interaccionService.listarComentarios(anuncioId, cursor, limit);
+            return ResponseEntity.ok(pagina);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 🧵 Resto de las respuestas de un hilo; el primer cursor es el respuestasCursor de la raíz
+     */
+    @GetMapping("/comments/{comentarioId}/replies")
+    public ResponseEntity<?> getReplies(@PathVariable Long comentarioId,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(interaccionService.listarRespuestas(comentarioId, cursor, limit));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -145,74 +158,124 @@ public class InteractionsController {
 
     // ========== LECTURAS ==========
     
+    /**
+     * 📖 Acuse de lectura asíncrono: responde 202 en cuanto queda encolado.
+     * Con la cola llena responde 503 + Retry-After para que el cliente reintente más tarde.
+     */
     @PostMapping("/read/{anuncioId}")
-    @Transactional
     public ResponseEntity<?> markAsRead(@PathVariable Long anuncioId,
-                                       @AuthenticationPrincipal UserDetails userDetails) {
+                                       @AuthenticationPrincipal AuthenticatedUser usuario) {
         try {
-            Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
-            
-            // Verificar si ya está marcado como leído
-            List<Lectura> existing = entityManager
-                .createQuery("SELECT l FROM Lectura l WHERE l.anuncioId = :anuncioId AND l.usuarioId = :usuarioId", Lectura.class)
-                .setParameter("anuncioId", anuncioId)
-                .setParameter("usuarioId", usuario.getId().intValue())
-                .getResultList();
-
-            if (existing.isEmpty()) {
-                Lectura lectura = new Lectura(usuario.getId().intValue(), anuncioId);
-                entityManager.persist(lectura);
+            if (!interaccionService.marcarLeido(anuncioId, usuario.getId())) {
+                return readQueueFull();
             }
-            
-            return ResponseEntity.ok(Map.of("message", "Marcado como leído"));
+            return ResponseEntity.accepted().body(Map.of("message", "Marcado como leído"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 📖 Lecturas de todos los anuncios visibles en pantalla en una sola petición.
+     * Body: {"anuncioIds": [1, 2, 3]} → 202 {"accepted": 3}
+     */
+    @PostMapping("/read/bulk")
+    public ResponseEntity<?> markAllAsRead(@RequestBody Map<String, List<Long>> request,
+                                          @AuthenticationPrincipal AuthenticatedUser usuario) {
+        try {
+            List<Long> anuncioIds = request.get("anuncioIds");
+            if (anuncioIds == null || anuncioIds.isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "anuncioIds requerido"));
+            }
+
+            Set<Long> ids = new LinkedHashSet<>(anuncioIds);
+            ids.remove(null);
+            if (ids.size() > InteraccionService.MAX_BATCH_SIZE) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Máximo " + InteraccionService.MAX_BATCH_SIZE + " anuncios por petición"));
+            }
+
+            int accepted = interaccionService.marcarLeidos(ids, usuario.getId());
+            if (accepted < ids.size()) {
+                // Las aceptadas ya quedan registradas; reenviar el lote completo es idempotente
+                return readQueueFull();
+            }
+            return ResponseEntity.accepted().body(Map.of("accepted", accepted));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 📊 Quién leyó el anuncio, porcentaje de lectura del aula y estudiantes pendientes
+     * (autor del anuncio o profesor del aula)
+     */
+    @GetMapping("/read/{anuncioId}/summary")
+    public ResponseEntity<?> getReadSummary(@PathVariable Long anuncioId,
+                                           @AuthenticationPrincipal AuthenticatedUser usuario) {
+        try {
+            ResumenLecturas resumen = interaccionService.resumenLecturas(
+                anuncioId, usuario.getId(), String.valueOf(usuario.getRol()));
+            return ResponseEntity.ok(resumen);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
+    private ResponseEntity<?> readQueueFull() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(Map.of("error", "Servicio saturado", "message", "Demasiadas lecturas en cola, intenta nuevamente"));
+    }
+
     // ========== STATS COMBINADAS ==========
     
     @GetMapping("/stats/{anuncioId}")
     public ResponseEntity<?> getAnuncioStats(@PathVariable Long anuncioId,
-                                            @AuthenticationPrincipal UserDetails userDetails) {
+                                            @AuthenticationPrincipal AuthenticatedUser usuario) {
         try {
-            Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
-            
-            // Contar likes
-            Long likesCount = entityManager
-                .createQuery("SELECT COUNT(l) FROM Like l WHERE l.anuncioId = :anuncioId", Long.class)
-                .setParameter("anuncioId", anuncioId)
-                .getSingleResult();
-            
-            // Contar comentarios
-            Long commentsCount = entityManager
-                .createQuery("SELECT COUNT(c) FROM Comentario c WHERE c.anuncioId = :anuncioId AND c.activo = true", Long.class)
-                .setParameter("anuncioId", anuncioId)
-                .getSingleResult();
-            
-            // Verificar si usuario ya dio like
-            boolean userLiked = !entityManager
-                .createQuery("SELECT l FROM Like l WHERE l.anuncioId = :anuncioId AND l.usuarioId = :usuarioId", Like.class)
-                .setParameter("anuncioId", anuncioId)
-                .setParameter("usuarioId", usuario.getId().intValue())
-                .getResultList().isEmpty();
-            
-            // Verificar si usuario ya leyó
-            boolean userRead = !entityManager
-                .createQuery("SELECT l FROM Lectura l WHERE l.anuncioId = :anuncioId AND l.usuarioId = :usuarioId", Lectura.class)
-                .setParameter("anuncioId", anuncioId)
-                .setParameter("usuarioId", usuario.getId().intValue())
-                .getResultList().isEmpty();
+            AnuncioStats anuncioStats = interaccionService.getStats(anuncioId, usuario.getId());
 
             Map<String, Object> stats = new HashMap<>();
-            stats.put("likesCount", likesCount);
-            stats.put("commentsCount", commentsCount);
-            stats.put("userLiked", userLiked);
-            stats.put("userRead", userRead);
+            stats.put("likesCount", anuncioStats.likesCount());
+            stats.put("commentsCount", anuncioStats.commentsCount());
+            stats.put("userLiked", anuncioStats.userLiked());
+            stats.put("userRead", anuncioStats.userRead());
             
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 📊 Stats de una página completa de anuncios en una sola petición.
+     * Body: {"anuncioIds": [1, 2, 3]} → {"stats": {"1": {...}, "2": {...}}}
+     */
+    @PostMapping("/stats/batch")
+    public ResponseEntity<?> getAnunciosStats(@RequestBody Map<String, List<Long>> request,
+                                             @AuthenticationPrincipal AuthenticatedUser usuario) {
+        try {
+            List<Long> anuncioIds = request.get("anuncioIds");
+            if (anuncioIds == null || anuncioIds.isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "anuncioIds requerido"));
+            }
+
+            Set<Long> ids = new LinkedHashSet<>(anuncioIds);
+            ids.remove(null);
+            if (ids.size() > InteraccionService.MAX_BATCH_SIZE) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Máximo " + InteraccionService.MAX_BATCH_SIZE + " anuncios por petición"));
+            }
+
+            Map<Long, AnuncioStats> stats = interaccionService.getStats(ids, usuario.getId());
+            return ResponseEntity.ok(Map.of("stats", stats));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
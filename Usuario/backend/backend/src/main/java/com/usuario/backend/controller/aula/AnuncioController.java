@@ -1,17 +1,21 @@
 package com.usuario.backend.controller.aula;
 
+import com.usuario.backend.model.dto.PaginaAnuncios;
+import com.usuario.backend.model.dto.VersionRecurso;
 import com.usuario.backend.model.entity.Anuncio;
+import com.usuario.backend.security.jwt.AuthenticatedUser;
 import com.usuario.backend.service.aula.AnuncioService;
-import com.usuario.backend.service.user.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 
-import java.security.Principal;
-import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/aulas/{aulaId}/anuncios")
@@ -19,19 +23,31 @@ public class AnuncioController {
     @Autowired
     private AnuncioService anuncioService;
 
-    @Autowired
-    private UsuarioService usuarioService;
-
-    // GET: anuncios de un aula (solo para usuarios autorizados)
+    // GET: página de anuncios de un aula (solo para usuarios autorizados).
+    // La siguiente página se pide con ?cursor=<nextCursor>. Con If-None-Match vigente responde 304
+    // tras leer solo la versión del aula, sin armar la página
     @GetMapping
-    public List<Anuncio> getAnunciosDeAula(@PathVariable Integer aulaId, Principal principal) {
-        String email = principal.getName();
-        var usuario = usuarioService.findByCorreoInstitucional(email);
+    public ResponseEntity<?> getAnunciosDeAula(@PathVariable Integer aulaId,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(defaultValue = "false") boolean contenidoCompleto,
+                                               @AuthenticationPrincipal AuthenticatedUser usuario,
+                                               WebRequest request) {
         Long usuarioId = usuario.getId();
         String rol = usuario.getRol().toString(); // El rol real del usuario autenticado
-        List<Anuncio> anuncios = anuncioService.getAnunciosDeAula(usuarioId, rol, aulaId);
-        System.out.println("[AnuncioController] usuarioId=" + usuarioId + ", rol=" + rol + ", aulaId=" + aulaId + ", anuncios retornados=" + (anuncios != null ? anuncios.size() : 0));
-        return anuncios;
+        try {
+            VersionRecurso version = anuncioService.getVersionDeAula(usuarioId, rol, aulaId);
+            // Solo ETag: Last-Modified no refleja las lecturas ni los likes del usuario
+            if (request.checkNotModified(version.etag("aula" + aulaId, usuarioId))) {
+                return null;
+            }
+            PaginaAnuncios pagina = anuncioService.getAnunciosDeAula(usuarioId, rol, aulaId, cursor, limit, contenidoCompleto);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(pagina);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     // POST: crear un nuevo anuncio en un aula (con soporte para archivo y tipo)
@@ -42,24 +58,17 @@ public class AnuncioController {
         @RequestPart("contenido") String contenido,
         @RequestPart("tipo") String tipo,
         @RequestPart(value = "archivo", required = false) MultipartFile archivo,
-        Principal principal
+        @AuthenticationPrincipal AuthenticatedUser usuario
     ) {
-        String email = principal.getName();
-        var usuario = usuarioService.findByCorreoInstitucional(email);
         Long usuarioId = usuario.getId();
         String rol = usuario.getRol().toString();
         Anuncio anuncio = new Anuncio();
         anuncio.setTitulo(titulo);
         anuncio.setContenido(contenido);
         anuncio.setTipo(tipo); // Ahora tipo es String
-        if (archivo != null && !archivo.isEmpty()) {
-            anuncio.setArchivoNombre(archivo.getOriginalFilename());
-            anuncio.setArchivoTipo(archivo.getContentType());
-            anuncio.setArchivoTamaño(archivo.getSize());
-            // Aquí podrías guardar el archivo en disco o en la nube
-        }
         anuncio.setAutorId(usuarioId != null ? usuarioId.intValue() : null);
-        Anuncio creado = anuncioService.crearAnuncio(usuarioId, rol, aulaId, anuncio);
+        // El adjunto se guarda en el BlobStore en streaming, tras verificar el acceso
+        Anuncio creado = anuncioService.crearAnuncio(usuarioId, rol, aulaId, anuncio, archivo);
         return new ResponseEntity<>(creado, HttpStatus.CREATED);
     }
 }
@@ -1,20 +1,22 @@
 package com.usuario.backend.controller.aula;
 
+import com.usuario.backend.model.dto.VersionRecurso;
 import com.usuario.backend.model.entity.AulaVirtual;
 import com.usuario.backend.model.entity.AulaEstudiante;
 import com.usuario.backend.model.entity.Usuario;
+import com.usuario.backend.security.jwt.AuthenticatedUser;
 import com.usuario.backend.service.aula.AulaVirtualService;
 import com.usuario.backend.service.user.UsuarioService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.security.Principal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,28 +35,25 @@ public class AulaVirtualController {
     private UsuarioService usuarioService;
 
     /**
-     * 🔥 ENDPOINT PRINCIPAL: Obtiene aulas del usuario autenticado
+     * 🔥 ENDPOINT PRINCIPAL: Obtiene aulas del usuario autenticado.
+     * Con If-None-Match vigente responde 304 tras leer solo la versión de la lista
      */
     @GetMapping
-    public ResponseEntity<?> getAulasDelUsuario(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> getAulasDelUsuario(@AuthenticationPrincipal AuthenticatedUser usuario, WebRequest request) {
         try {
-            if (userDetails == null) {
+            if (usuario == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Usuario no autenticado"));
             }
 
-            String email = userDetails.getUsername();
-            Usuario usuario = usuarioService.findByCorreoInstitucional(email);
-            
-            if (usuario == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "Usuario no encontrado"));
-            }
-
-            logger.info("Obteniendo aulas para usuario: {} ({})", email, usuario.getRol());
+            logger.info("Obteniendo aulas para usuario: {} ({})", usuario.getEmail(), usuario.getRol());
 
             // 🔥 OBTENER AULAS SEGÚN ROL
             String rolString = usuario.getRol().toString(); // Convertir enum a String
+            VersionRecurso version = aulaVirtualService.getVersionAulas(usuario.getId(), rolString);
+            if (request.checkNotModified(version.etag("aulas-" + rolString, usuario.getId()), version.lastModified())) {
+                return null;
+            }
             List<AulaVirtual> aulas = aulaVirtualService.getAulasByUsuario(usuario.getId(), rolString);
 
             // Enriquecer cada aula con el nombre completo del profesor
@@ -92,7 +91,7 @@ public class AulaVirtualController {
                 ? ("PROFESOR".equals(rolString) ? "No has creado aulas aún" : "No estás inscrito en ningún aula")
                 : "Aulas obtenidas exitosamente");
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(response);
 
         } catch (Exception e) {
             logger.error("Error al obtener aulas del usuario: {}", e.getMessage(), e);
@@ -105,21 +104,13 @@ public class AulaVirtualController {
      * 🔥 OBTENER DETALLES DE UN AULA ESPECÍFICA
      */
     @GetMapping("/{aulaId}")
-    public ResponseEntity<?> getAulaById(@PathVariable Long aulaId, @AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> getAulaById(@PathVariable Long aulaId, @AuthenticationPrincipal AuthenticatedUser usuario) {
         try {
-            if (userDetails == null) {
+            if (usuario == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Usuario no autenticado"));
             }
 
-            String email = userDetails.getUsername();
-            Usuario usuario = usuarioService.findByCorreoInstitucional(email);
-            
-            if (usuario == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "Usuario no encontrado"));
-            }
-
             // Verificar si el usuario puede acceder al aula
             String rolString = usuario.getRol().toString();
             boolean puedeAcceder = aulaVirtualService.puedeAccederAAula(usuario.getId(), rolString, aulaId);
@@ -160,22 +151,14 @@ public class AulaVirtualController {
     public ResponseEntity<?> agregarEstudianteAAula(
             @PathVariable Long aulaId, 
             @PathVariable Long estudianteId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser usuario) {
         
         try {
-            if (userDetails == null) {
+            if (usuario == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Usuario no autenticado"));
             }
 
-            String email = userDetails.getUsername();
-            Usuario usuario = usuarioService.findByCorreoInstitucional(email);
-            
-            if (usuario == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "Usuario no encontrado"));
-            }
-
             // Verificar que es profesor
             String rolString = usuario.getRol().toString();
             if (!"PROFESOR".equals(rolString)) {
@@ -229,10 +212,10 @@ public class AulaVirtualController {
     @GetMapping("/buscar")
     public ResponseEntity<?> buscarAulas(
             @RequestParam String nombre,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser usuario) {
         
         try {
-            if (userDetails == null) {
+            if (usuario == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Usuario no autenticado"));
             }
@@ -242,14 +225,6 @@ public class AulaVirtualController {
                         .body(Map.of("error", "El parámetro 'nombre' es requerido"));
             }
 
-            String email = userDetails.getUsername();
-            Usuario usuario = usuarioService.findByCorreoInstitucional(email);
-            
-            if (usuario == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "Usuario no encontrado"));
-            }
-
             String rolString = usuario.getRol().toString();
             List<AulaVirtual> aulas = aulaVirtualService.buscarAulasPorNombre(usuario.getId(), rolString, nombre.trim());
 
@@ -272,18 +247,12 @@ public class AulaVirtualController {
      * Listar integrantes (participantes) activos de un aula
      */
     @GetMapping("/{aulaId}/participantes")
-    public ResponseEntity<?> listarParticipantesAula(@PathVariable Long aulaId, @AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> listarParticipantesAula(@PathVariable Long aulaId, @AuthenticationPrincipal AuthenticatedUser usuario) {
         try {
-            if (userDetails == null) {
+            if (usuario == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Usuario no autenticado"));
             }
-            String email = userDetails.getUsername();
-            Usuario usuario = usuarioService.findByCorreoInstitucional(email);
-            if (usuario == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "Usuario no encontrado"));
-            }
             // Solo participantes pueden ver la lista
             String rolString = usuario.getRol().toString();
             boolean puedeAcceder = aulaVirtualService.puedeAccederAAula(usuario.getId(), rolString, aulaId);
@@ -329,18 +298,12 @@ public class AulaVirtualController {
     public ResponseEntity<?> eliminarParticipanteAula(
             @PathVariable Long aulaId,
             @PathVariable Long estudianteId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser usuario) {
         try {
-            if (userDetails == null) {
+            if (usuario == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Usuario no autenticado"));
             }
-            String email = userDetails.getUsername();
-            Usuario usuario = usuarioService.findByCorreoInstitucional(email);
-            if (usuario == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "Usuario no encontrado"));
-            }
             String rolString = usuario.getRol().toString();
             // Solo el profesor del aula puede eliminar
             boolean esProfesorDelAula = aulaVirtualService.puedeAccederAAula(usuario.getId(), rolString, aulaId) && "PROFESOR".equals(rolString);
@@ -370,9 +333,7 @@ public class AulaVirtualController {
      * 🔥 POST: crear un aula nueva
      */
     @PostMapping
-    public AulaVirtual crearAula(@RequestBody AulaVirtual aula, Principal principal) {
-        String email = principal.getName();
-        var usuario = usuarioService.findByCorreoInstitucional(email);
+    public AulaVirtual crearAula(@RequestBody AulaVirtual aula, @AuthenticationPrincipal AuthenticatedUser usuario) {
         Long usuarioId = usuario.getId();
         aula.setProfesorId(usuarioId);
         aula.setEstado("activa");
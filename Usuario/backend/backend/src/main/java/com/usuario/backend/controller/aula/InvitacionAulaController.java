@@ -1,9 +1,8 @@
 package com.usuario.backend.controller.aula;
 
 import com.usuario.backend.model.entity.InvitacionAula;
-import com.usuario.backend.model.entity.Usuario;
+import com.usuario.backend.security.jwt.AuthenticatedUser;
 import com.usuario.backend.service.aula.InvitacionAulaService;
-import com.usuario.backend.service.user.UsuarioService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,25 +24,15 @@ public class InvitacionAulaController {
 
     @Autowired
     private InvitacionAulaService invitacionService;
-    
-    @Autowired
-    private UsuarioService usuarioService;
 
     @PostMapping("/enviar")
     public ResponseEntity<?> enviarInvitacion(
             @RequestBody Map<String, Object> request,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser usuario) {
         
         try {
-            if (userDetails == null) {
-                return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
-            }
-
-            String email = userDetails.getUsername();
-            Usuario usuario = usuarioService.findByCorreoInstitucional(email);
-            
             if (usuario == null) {
-                return ResponseEntity.status(404).body(Map.of("error", "Usuario no encontrado"));
+                return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
             }
 
             Long aulaId = Long.valueOf(request.get("aulaId").toString());
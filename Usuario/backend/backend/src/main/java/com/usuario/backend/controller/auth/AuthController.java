@@ -3,10 +3,16 @@ package com.usuario.backend.controller.auth;
 import com.usuario.backend.model.entity.Usuario;
 import com.usuario.backend.security.jwt.JwtTokenProvider;
 import com.usuario.backend.security.jwt.JwtTokenManager;
+import com.usuario.backend.service.user.HashingCapacityException;
+import com.usuario.backend.service.user.LoginThrottleService;
+import com.usuario.backend.service.realtime.EventHub;
 import com.usuario.backend.service.user.UsuarioService;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -30,11 +36,17 @@ public class AuthController {
     @Autowired
     private JwtTokenManager jwtTokenManager;
 
+    @Autowired
+    private LoginThrottleService loginThrottleService;
+
+    @Autowired
+    private EventHub eventHub;
+
     /**
      * 🔐 Login tradicional con email y contraseña
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> loginRequest) {
+    public ResponseEntity<?> login(@RequestBody Map<String, String> loginRequest, HttpServletRequest request) {
         String correoInstitucional = loginRequest.get("correoInstitucional");
         String password = loginRequest.get("password");
         
@@ -48,10 +60,31 @@ public class AuthController {
             ));
         }
         
-        boolean isAuthenticated = usuarioService.autenticarUsuario(correoInstitucional, password);
+        // 🚦 Control de admisión antes de gastar BCrypt
+        String ip = LoginThrottleService.clientIp(request);
+        long retryAfter = loginThrottleService.acquire(correoInstitucional, ip);
+        if (retryAfter > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body(Map.of(
+                        "error", "Demasiados intentos",
+                        "message", "Demasiados intentos de inicio de sesión. Intenta nuevamente en " + retryAfter + " segundos"
+                    ));
+        }
+        
+        boolean isAuthenticated;
+        try {
+            isAuthenticated = usuarioService.autenticarUsuario(correoInstitucional, password);
+        } catch (HashingCapacityException e) {
+            logger.warn("⚠️ Login rechazado por saturación: {}", correoInstitucional);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", "Servicio saturado", "message", e.getMessage()));
+        }
 
         if (isAuthenticated) {
             logger.info("✅ Login exitoso para: {}", correoInstitucional);
+            loginThrottleService.recordSuccess(correoInstitucional, ip);
             
             // Obtener información del usuario
             Usuario user = usuarioService.findByCorreoInstitucional(correoInstitucional);
@@ -61,7 +94,7 @@ public class AuthController {
                 logger.info("📝 Usuario requiere completar datos: {}", correoInstitucional);
                 
                 // Generar token temporal para completar datos
-                String token = jwtTokenProvider.generateToken(correoInstitucional);
+                String token = jwtTokenProvider.generateToken(user);
                 
                 return ResponseEntity.ok(Map.of(
                     "token", token,
@@ -73,7 +106,7 @@ public class AuthController {
             }
             
             // Generar JWT token normal
-            String token = jwtTokenProvider.generateToken(correoInstitucional);
+            String token = jwtTokenProvider.generateToken(user);
             
             // Devolver respuesta completa
             Map<String, Object> response = new HashMap<>();
@@ -85,6 +118,7 @@ public class AuthController {
             return ResponseEntity.ok(response);
         } else {
             logger.warn("❌ Login fallido para: {}", correoInstitucional);
+            loginThrottleService.recordFailure(correoInstitucional, ip);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of(
                 "error", "Credenciales inválidas",
                 "message", "Email o contraseña incorrectos"
@@ -130,13 +164,14 @@ public class AuthController {
 
         try {
             // 🔐 Validar token (incluye verificación de blacklist)
-            if (!jwtTokenManager.isTokenValid(token)) {
+            Claims claims = jwtTokenManager.getValidClaims(token);
+            if (claims == null) {
                 logger.warn("❌ Token inválido o en blacklist");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Token inválido", "message", "Token expirado o invalidado"));
             }
             
-            String email = jwtTokenProvider.getEmailFromToken(token);
+            String email = claims.getSubject();
             
             if (email == null) {
                 logger.warn("❌ No se pudo extraer email del token");
@@ -190,8 +225,8 @@ public class AuthController {
                         logger.debug("Token ya expirado: {}", e.getMessage());
                     }
                     
-                    // 🔧 INVALIDAR TOKEN EN BLACKLIST
-                    jwtTokenManager.blacklistToken(token);
+                    // 🔧 INVALIDAR TOKEN EN BLACKLIST y cerrar los streams SSE abiertos con esa sesión
+                    eventHub.closeSession(jwtTokenManager.blacklistToken(token));
                     
                     logger.info("✅ Token invalidado para usuario: {}", email != null ? email : "desconocido");
                     
@@ -2,11 +2,13 @@ package com.usuario.backend.controller.upload;
 import com.usuario.backend.model.entity.Usuario;
 import com.usuario.backend.service.upload.CloudinaryService;
 import com.usuario.backend.service.upload.ProfileImageService;
+import com.usuario.backend.service.upload.UploadCapacityException;
 import com.usuario.backend.service.user.UsuarioService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -121,6 +123,12 @@ public ResponseEntity<?> uploadProfileImage(
         
         return ResponseEntity.ok(response);
         
+    } catch (UploadCapacityException e) {
+        // 🚦 Límite de subidas simultáneas alcanzado: el cliente debe reintentar
+        logger.warn("⚠️ Subida rechazada por saturación: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "2")
+                .body(Map.of("error", "Servicio saturado", "message", e.getMessage()));
     } catch (Exception e) {
         logger.error("❌ Error al procesar imagen: {}", e.getMessage(), e);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -1,12 +1,16 @@
 package com.usuario.backend.controller.user;
 
 import com.usuario.backend.model.entity.Usuario;
+import com.usuario.backend.service.user.HashingCapacityException;
+import com.usuario.backend.service.user.LoginThrottleService;
 import com.usuario.backend.service.user.UsuarioService;
 import com.usuario.backend.service.carrera.CarreraService;
 import com.usuario.backend.model.entity.Carrera;
 import org.slf4j.Logger;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -28,6 +32,9 @@ public class UsuarioController {
     
     @Autowired
     private CarreraService carreraService;
+
+    @Autowired
+    private LoginThrottleService loginThrottleService;
     
     /**
      * 👤 Obtiene información del usuario autenticado
@@ -120,6 +127,8 @@ public class UsuarioController {
                 "usuario", buildUserResponse(updatedUsuario)
             ));
             
+        } catch (HashingCapacityException e) {
+            return serviceSaturated(e);
         } catch (Exception e) {
             logger.error("❌ Error actualizando usuario {}: {}", id, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -185,6 +194,8 @@ public class UsuarioController {
             
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
             
+        } catch (HashingCapacityException e) {
+            return serviceSaturated(e);
         } catch (IllegalArgumentException e) {
             logger.warn("❌ Error de validación: {}", e.getMessage());
             return ResponseEntity.badRequest().body(Map.of(
@@ -205,7 +216,7 @@ public class UsuarioController {
      */
     @PostMapping("/login")
     @Deprecated
-    public ResponseEntity<?> login(@RequestBody Usuario usuario) {
+    public ResponseEntity<?> login(@RequestBody Usuario usuario, HttpServletRequest request) {
         logger.warn("⚠️ Usando endpoint de login deprecated. Usar /api/auth/login");
         
         if (usuario.getCorreoInstitucional() == null || usuario.getPassword() == null) {
@@ -215,10 +226,29 @@ public class UsuarioController {
             ));
         }
         
-        boolean isAuthenticated = usuarioService.autenticarUsuario(
-            usuario.getCorreoInstitucional(), 
-            usuario.getPassword()
-        );
+        String ip = LoginThrottleService.clientIp(request);
+        long retryAfter = loginThrottleService.acquire(usuario.getCorreoInstitucional(), ip);
+        if (retryAfter > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body(Map.of("error", "Demasiados intentos", "authenticated", false));
+        }
+        
+        boolean isAuthenticated;
+        try {
+            isAuthenticated = usuarioService.autenticarUsuario(
+                usuario.getCorreoInstitucional(), 
+                usuario.getPassword()
+            );
+        } catch (HashingCapacityException e) {
+            return serviceSaturated(e);
+        }
+        
+        if (isAuthenticated) {
+            loginThrottleService.recordSuccess(usuario.getCorreoInstitucional(), ip);
+        } else {
+            loginThrottleService.recordFailure(usuario.getCorreoInstitucional(), ip);
+        }
         
         return ResponseEntity.ok(Map.of(
             "authenticated", isAuthenticated,
@@ -230,6 +260,16 @@ public class UsuarioController {
 
     // ========== MÉTODOS AUXILIARES ==========
     
+    /**
+     * 🚦 Pool de hashing saturado: el cliente debe reintentar
+     */
+    private ResponseEntity<?> serviceSaturated(HashingCapacityException e) {
+        logger.warn("⚠️ Petición rechazada por saturación del hashing: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "Servicio saturado", "message", e.getMessage()));
+    }
+    
     /**
      * 📋 Construye respuesta de usuario consistente
      */
@@ -0,0 +1,11 @@
+package com.usuario.backend.model.dto;
+
+/**
+ * Adjunto de un anuncio del aula, sin el resto de la fila: lo justo para empaquetarlo en el ZIP.
+ */
+public record AdjuntoAula(Long anuncioId, String nombre, String clave, String hash, String url) {
+
+    public String etag() {
+        return "\"" + hash + "\"";
+    }
+}
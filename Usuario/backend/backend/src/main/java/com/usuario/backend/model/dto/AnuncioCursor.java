@@ -0,0 +1,35 @@
+package com.usuario.backend.model.dto;
+
+import com.usuario.backend.model.entity.Anuncio;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición de keyset sobre (fijado, fechaPublicacion, id), serializada como texto opaco para el cliente.
+ */
+public record AnuncioCursor(boolean fijado, LocalDateTime fechaPublicacion, Long id) {
+
+    public static AnuncioCursor of(Anuncio anuncio) {
+        return new AnuncioCursor(Boolean.TRUE.equals(anuncio.getFijado()), anuncio.getFechaPublicacion(), anuncio.getId());
+    }
+
+    public String encode() {
+        String raw = (fijado ? "1" : "0") + "|" + fechaPublicacion + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static AnuncioCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException();
+            }
+            return new AnuncioCursor("1".equals(parts[0]), LocalDateTime.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.usuario.backend.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Anuncio tal como lo muestra una tarjeta del feed: sin el contenido completo salvo que se pida
+ * ({@code contenidoCompleto} indica si {@code contenido} es el texto entero o un extracto), con el
+ * autor resuelto y las interacciones del usuario actual. {@code previewUrl} es null hasta que la
+ * miniatura del adjunto está generada.
+ */
+public record AnuncioFeedItem(
+        Long id,
+        String titulo,
+        String contenido,
+        boolean contenidoCompleto,
+        String tipo,
+        String categoria,
+        String etiquetas,
+        String archivoUrl,
+        String archivoNombre,
+        String archivoTipo,
+        Long archivoTamaño,
+        String previewUrl,
+        Integer aulaId,
+        boolean esGeneral,
+        boolean fijado,
+        boolean permiteComentarios,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime fechaPublicacion,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime fechaEdicion,
+        Integer autorId,
+        String autorNombre,
+        String autorImagenUrl,
+        AnuncioStats stats) {
+}
@@ -0,0 +1,8 @@
+package com.usuario.backend.model.dto;
+
+/**
+ * Interacciones de un anuncio vistas por el usuario actual.
+ */
+public record AnuncioStats(Long anuncioId, long likesCount, long commentsCount,
+                           boolean userLiked, boolean userRead) {
+}
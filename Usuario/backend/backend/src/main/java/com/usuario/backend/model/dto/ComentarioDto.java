@@ -0,0 +1,23 @@
+package com.usuario.backend.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Comentario listo para el cliente. {@code respuestas}, {@code totalRespuestas} y {@code respuestasCursor}
+ * solo vienen en el modo hilos: las primeras respuestas, cuántas hay en total y el cursor para pedir el
+ * resto (null si no quedan).
+ */
+public record ComentarioDto(Long id, String contenido, LocalDateTime fechaCreacion, Integer usuarioId,
+                            String autor, Long comentarioPadreId,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) List<ComentarioDto> respuestas,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) Integer totalRespuestas,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) String respuestasCursor) {
+
+    public ComentarioDto withRespuestas(List<ComentarioDto> respuestas, int totalRespuestas, String respuestasCursor) {
+        return new ComentarioDto(id, contenido, fechaCreacion, usuarioId, autor, comentarioPadreId, respuestas,
+                totalRespuestas, respuestasCursor);
+    }
+}
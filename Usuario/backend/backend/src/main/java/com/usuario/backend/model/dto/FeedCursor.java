@@ -0,0 +1,33 @@
+package com.usuario.backend.model.dto;
+
+import com.usuario.backend.model.entity.Anuncio;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición de keyset del inicio sobre (fechaPublicacion, id), serializada como texto opaco para el cliente.
+ */
+public record FeedCursor(LocalDateTime fechaPublicacion, Long id) {
+
+    public static FeedCursor of(Anuncio anuncio) {
+        return new FeedCursor(anuncio.getFechaPublicacion(), anuncio.getId());
+    }
+
+    public String encode() {
+        String raw = fechaPublicacion + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static FeedCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            return new FeedCursor(LocalDateTime.parse(raw.substring(0, sep)), Long.valueOf(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
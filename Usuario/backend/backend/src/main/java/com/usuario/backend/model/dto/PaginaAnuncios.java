@@ -0,0 +1,17 @@
+package com.usuario.backend.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Página del feed de anuncios; {@code nextCursor} es null cuando no hay más.
+ * {@code fijados} solo viene en la primera página del inicio.
+ */
+public record PaginaAnuncios(List<AnuncioFeedItem> anuncios, String nextCursor, boolean hasMore,
+                             @JsonInclude(JsonInclude.Include.NON_NULL) List<AnuncioFeedItem> fijados) {
+
+    public PaginaAnuncios(List<AnuncioFeedItem> anuncios, String nextCursor, boolean hasMore) {
+        this(anuncios, nextCursor, hasMore, null);
+    }
+}
@@ -0,0 +1,9 @@
+package com.usuario.backend.model.dto;
+
+import java.util.List;
+
+/**
+ * Página de comentarios; {@code nextCursor} es null cuando no hay más.
+ */
+public record PaginaComentarios(List<ComentarioDto> comentarios, String nextCursor, boolean hasMore) {
+}
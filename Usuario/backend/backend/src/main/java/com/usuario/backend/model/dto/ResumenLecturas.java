@@ -0,0 +1,11 @@
+package com.usuario.backend.model.dto;
+
+import java.util.List;
+
+/**
+ * Quién leyó un anuncio: lectores y estudiantes activos del aula que aún no lo leen.
+ * porcentajeLectura es sobre el roster del aula (0 si el anuncio no pertenece a un aula).
+ */
+public record ResumenLecturas(Long anuncioId, int totalLecturas, int totalEstudiantes,
+                              double porcentajeLectura, List<Long> leidoPor, List<Long> pendientes) {
+}
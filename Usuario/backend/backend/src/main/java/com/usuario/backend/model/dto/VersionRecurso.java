@@ -0,0 +1,42 @@
+package com.usuario.backend.model.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoField;
+
+/**
+ * Versión barata de un recurso para GET condicional: el último cambio y un resumen de las filas que lo
+ * componen, leídos del índice sin construir la respuesta.
+ */
+public record VersionRecurso(LocalDateTime ultimoCambio, Long resumen) {
+
+    public static VersionRecurso de(LocalDateTime ultimoCambio) {
+        return new VersionRecurso(ultimoCambio, 0L);
+    }
+
+    /**
+     * Misma versión más el estado propio del usuario que va en el cuerpo (userRead, userLiked): marcar
+     * como leído o dar like cambia el ETag aunque el recurso no haya cambiado.
+     */
+    public VersionRecurso conEstadoDeUsuario(long estado) {
+        return new VersionRecurso(ultimoCambio, 31 * (resumen == null ? 0 : resumen) + estado);
+    }
+
+    /**
+     * ETag del recurso para un usuario: el cuerpo lleva datos suyos (userLiked, rol), así que dos
+     * usuarios nunca comparten validador aunque la versión coincida.
+     */
+    public String etag(String recurso, Long usuarioId) {
+        long micros = ultimoCambio == null ? 0
+                : ultimoCambio.toEpochSecond(ZoneOffset.UTC) * 1_000_000
+                  + ultimoCambio.get(ChronoField.MICRO_OF_SECOND);
+        return "\"" + recurso + "-u" + usuarioId + "-" + Long.toString(resumen == null ? 0 : resumen, 36)
+                + "-" + Long.toString(micros, 36) + "\"";
+    }
+
+    // Last-Modified en milisegundos; -1 si el recurso está vacío (Spring lo ignora)
+    public long lastModified() {
+        return ultimoCambio == null ? -1 : ultimoCambio.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -2,6 +2,7 @@ package com.usuario.backend.model.entity;
 
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -33,6 +34,23 @@ public class Anuncio {
     
     @Column(name = "archivo_tamaño")
     private Long archivoTamaño;
+
+    // Clave en el BlobStore y SHA-256 del contenido (ETag de la descarga)
+    @JsonIgnore
+    @Column(name = "archivo_clave", length = 255)
+    private String archivoClave;
+
+    @JsonIgnore
+    @Column(name = "archivo_hash", length = 64)
+    private String archivoHash;
+
+    // Miniatura del adjunto (imagen reducida o primera página del PDF), generada por PreviewService
+    @JsonIgnore
+    @Column(name = "preview_clave", length = 255)
+    private String previewClave;
+
+    @Column(name = "preview_url", length = 500)
+    private String previewUrl;
     
     @Column(length = 100)
     private String categoria;
@@ -69,6 +87,11 @@ public class Anuncio {
     
     @Column(name = "es_general", nullable = false)
     private Boolean esGeneral = false;
+
+    // Último cambio visible en la tarjeta (edición, baja o contadores): versión para GET condicional
+    @JsonIgnore
+    @Column(name = "ultima_actividad")
+    private LocalDateTime ultimaActividad;
     
     // Constructores
     public Anuncio() {}
@@ -81,6 +104,12 @@ public class Anuncio {
         this.fechaPublicacion = LocalDateTime.now();
     }
     
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        ultimaActividad = LocalDateTime.now();
+    }
+
     // Getters y Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -105,6 +134,18 @@ public class Anuncio {
     
     public Long getArchivoTamaño() { return archivoTamaño; }
     public void setArchivoTamaño(Long archivoTamaño) { this.archivoTamaño = archivoTamaño; }
+
+    public String getArchivoClave() { return archivoClave; }
+    public void setArchivoClave(String archivoClave) { this.archivoClave = archivoClave; }
+
+    public String getArchivoHash() { return archivoHash; }
+    public void setArchivoHash(String archivoHash) { this.archivoHash = archivoHash; }
+
+    public String getPreviewClave() { return previewClave; }
+    public void setPreviewClave(String previewClave) { this.previewClave = previewClave; }
+
+    public String getPreviewUrl() { return previewUrl; }
+    public void setPreviewUrl(String previewUrl) { this.previewUrl = previewUrl; }
     
     public String getCategoria() { return categoria; }
     public void setCategoria(String categoria) { this.categoria = categoria; }
@@ -141,4 +182,6 @@ public class Anuncio {
     
     public Boolean getEsGeneral() { return esGeneral; }
     public void setEsGeneral(Boolean esGeneral) { this.esGeneral = esGeneral; }
+
+    public LocalDateTime getUltimaActividad() { return ultimaActividad; }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.usuario.backend.model.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "tokens_revocados")
+public class TokenRevocado {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "jti", nullable = false, unique = true, length = 64)
+    private String jti;
+
+    // Expiración del token en epoch millis: después de esta fecha la fila se puede borrar
+    @Column(name = "expira_en", nullable = false)
+    private Long expiraEn;
+
+    @Column(name = "fecha_revocacion")
+    private LocalDateTime fechaRevocacion;
+
+    // Constructor por defecto
+    public TokenRevocado() {}
+
+    // Constructor con parámetros
+    public TokenRevocado(String jti, Long expiraEn) {
+        this.jti = jti;
+        this.expiraEn = expiraEn;
+        this.fechaRevocacion = LocalDateTime.now();
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getJti() { return jti; }
+    public void setJti(String jti) { this.jti = jti; }
+
+    public Long getExpiraEn() { return expiraEn; }
+    public void setExpiraEn(Long expiraEn) { this.expiraEn = expiraEn; }
+
+    public LocalDateTime getFechaRevocacion() { return fechaRevocacion; }
+    public void setFechaRevocacion(LocalDateTime fechaRevocacion) { this.fechaRevocacion = fechaRevocacion; }
+}
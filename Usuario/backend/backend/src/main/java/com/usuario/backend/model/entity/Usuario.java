@@ -1,6 +1,7 @@
 package com.usuario.backend.model.entity;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonValue;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
@@ -52,6 +53,11 @@ public class Usuario {
     
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+    
+    // Se incrementa cuando cambia el rol o el correo: invalida los JWT emitidos antes
+    @JsonIgnore
+    @Column(name = "token_version")
+    private Integer tokenVersion = 0;
 
     // 🔧 FIX: Enum con deserialización flexible
     public enum RolUsuario {
@@ -232,6 +238,14 @@ public class Usuario {
         this.updatedAt = updatedAt;
     }
 
+    public Integer getTokenVersion() {
+        return tokenVersion != null ? tokenVersion : 0;
+    }
+
+    public void setTokenVersion(Integer tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     // ========== MÉTODOS AUXILIARES ==========
     
     /**
@@ -1,12 +1,106 @@
 package com.usuario.backend.repository;
 
+import com.usuario.backend.model.dto.AdjuntoAula;
 import com.usuario.backend.model.entity.Anuncio;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface AnuncioRepository extends JpaRepository<Anuncio, Long> {
-    List<Anuncio> findByAulaIdAndActivoTrueOrderByFechaPublicacionDesc(Integer aulaId);
-    List<Anuncio> findByEsGeneralTrueAndActivoTrueOrderByFechaPublicacionDesc();
+
+    // ========== FEED PAGINADO (keyset sobre fijado, fechaPublicacion, id) ==========
+    // Slice: pide una fila de más para saber si hay página siguiente, sin COUNT
+
+    String ORDEN_FEED = " ORDER BY a.fijado DESC, a.fechaPublicacion DESC, a.id DESC";
+
+    // Filas estrictamente posteriores al cursor en el orden del feed
+    String DESPUES_DEL_CURSOR = " AND (a.fijado < :fijado OR (a.fijado = :fijado AND"
+            + " (a.fechaPublicacion < :fecha OR (a.fechaPublicacion = :fecha AND a.id < :id))))";
+
+    @Query("SELECT a FROM Anuncio a WHERE a.aulaId = :aulaId AND a.activo = true" + ORDEN_FEED)
+    Slice<Anuncio> findPaginaDeAula(@Param("aulaId") Integer aulaId, Pageable pageable);
+
+    @Query("SELECT a FROM Anuncio a WHERE a.aulaId = :aulaId AND a.activo = true" + DESPUES_DEL_CURSOR + ORDEN_FEED)
+    Slice<Anuncio> findPaginaDeAulaDespuesDe(@Param("aulaId") Integer aulaId, @Param("fijado") Boolean fijado,
+                                             @Param("fecha") LocalDateTime fecha, @Param("id") Long id,
+                                             Pageable pageable);
+
+    @Query("SELECT a FROM Anuncio a WHERE a.esGeneral = true AND a.activo = true" + ORDEN_FEED)
+    Slice<Anuncio> findPaginaGeneral(Pageable pageable);
+
+    @Query("SELECT a FROM Anuncio a WHERE a.esGeneral = true AND a.activo = true" + DESPUES_DEL_CURSOR + ORDEN_FEED)
+    Slice<Anuncio> findPaginaGeneralDespuesDe(@Param("fijado") Boolean fijado, @Param("fecha") LocalDateTime fecha,
+                                              @Param("id") Long id, Pageable pageable);
+
+    // ========== ADJUNTOS DE UN AULA (ZIP) ==========
+    // Solo las columnas del adjunto, en orden de publicación: mismo índice (aula_id, activo, fecha_publicacion, id)
+
+    @Query("SELECT new com.usuario.backend.model.dto.AdjuntoAula(a.id, a.archivoNombre, a.archivoClave, a.archivoHash, a.archivoUrl) " +
+           "FROM Anuncio a WHERE a.aulaId = :aulaId AND a.activo = true AND a.archivoClave IS NOT NULL " +
+           "ORDER BY a.fechaPublicacion, a.id")
+    List<AdjuntoAula> findAdjuntosDeAula(@Param("aulaId") Integer aulaId);
+
+    // ========== VERSIÓN PARA GET CONDICIONAL ==========
+    // MAX sobre el prefijo de (aula_id | es_general, ultima_actividad): una sola lectura del índice
+
+    @Query("SELECT MAX(a.ultimaActividad) FROM Anuncio a WHERE a.aulaId = :aulaId")
+    LocalDateTime findUltimaActividadDeAula(@Param("aulaId") Integer aulaId);
+
+    @Query("SELECT MAX(a.ultimaActividad) FROM Anuncio a WHERE a.esGeneral = true")
+    LocalDateTime findUltimaActividadGeneral();
+
+    // ========== CONTADORES DENORMALIZADOS ==========
+    // Incrementos atómicos en la propia fila: sin leer-modificar-escribir ni pérdidas por concurrencia.
+    // Los contadores van en la tarjeta, así que también avanzan ultima_actividad
+
+    @Modifying
+    @Query("UPDATE Anuncio a SET a.totalLikes = CASE WHEN COALESCE(a.totalLikes, 0) + :delta < 0 THEN 0 " +
+           "ELSE COALESCE(a.totalLikes, 0) + :delta END, a.ultimaActividad = :ahora WHERE a.id = :id")
+    int incrementarLikes(@Param("id") Long id, @Param("delta") int delta, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("UPDATE Anuncio a SET a.totalComentarios = CASE WHEN COALESCE(a.totalComentarios, 0) + :delta < 0 THEN 0 " +
+           "ELSE COALESCE(a.totalComentarios, 0) + :delta END, a.ultimaActividad = :ahora WHERE a.id = :id")
+    int incrementarComentarios(@Param("id") Long id, @Param("delta") int delta, @Param("ahora") LocalDateTime ahora);
+
+    // Reparación de desvíos: solo toca las filas cuyo contador no coincide con el conteo real
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE anuncios a " +
+                   "LEFT JOIN (SELECT anuncio_id, COUNT(*) AS real_count FROM likes GROUP BY anuncio_id) c " +
+                   "ON c.anuncio_id = a.id " +
+                   "SET a.total_likes = COALESCE(c.real_count, 0), a.ultima_actividad = :ahora " +
+                   "WHERE a.total_likes IS NULL OR a.total_likes <> COALESCE(c.real_count, 0)", nativeQuery = true)
+    int reconciliarLikes(@Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE anuncios a " +
+                   "LEFT JOIN (SELECT anuncio_id, COUNT(*) AS real_count FROM comentarios WHERE activo = true GROUP BY anuncio_id) c " +
+                   "ON c.anuncio_id = a.id " +
+                   "SET a.total_comentarios = COALESCE(c.real_count, 0), a.ultima_actividad = :ahora " +
+                   "WHERE a.total_comentarios IS NULL OR a.total_comentarios <> COALESCE(c.real_count, 0)", nativeQuery = true)
+    int reconciliarComentarios(@Param("ahora") LocalDateTime ahora);
+
+    // Nombre o foto del autor cambiados: sus tarjetas (que los embeben) cambian de versión
+    @Modifying
+    @Transactional
+    @Query("UPDATE Anuncio a SET a.ultimaActividad = :ahora WHERE a.autorId = :autorId")
+    int tocarAnunciosDeAutor(@Param("autorId") Integer autorId, @Param("ahora") LocalDateTime ahora);
+
+    // Miniatura generada en segundo plano: se escribe solo esa columna para no pisar ediciones concurrentes
+    @Modifying
+    @Transactional
+    @Query("UPDATE Anuncio a SET a.previewClave = :clave, a.previewUrl = :url, a.ultimaActividad = :ahora WHERE a.id = :id")
+    int actualizarPreview(@Param("id") Long id, @Param("clave") String clave, @Param("url") String url,
+                          @Param("ahora") LocalDateTime ahora);
 }
@@ -1,5 +1,6 @@
 package com.usuario.backend.repository;
 
+import com.usuario.backend.model.dto.VersionRecurso;
 import com.usuario.backend.model.entity.AulaEstudiante;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -14,7 +15,18 @@ public interface AulaEstudianteRepository extends JpaRepository<AulaEstudiante,
     // ✅ BUSCAR AULAS DE UN ESTUDIANTE
     @Query("SELECT ae.aulaId FROM AulaEstudiante ae WHERE ae.estudianteId = :estudianteId AND ae.estado = 'activo'")
     List<Long> findAulaIdsByEstudianteId(@Param("estudianteId") Long estudianteId);
+
+    // ✅ VERSIÓN DE LA LISTA DE AULAS DEL ESTUDIANTE (GET condicional): última edición de sus aulas y
+    // suma de los ids de inscripción, que cambia con cualquier alta o baja aunque el total se mantenga
+    @Query("SELECT new com.usuario.backend.model.dto.VersionRecurso(MAX(av.updatedAt), SUM(ae.id)) " +
+           "FROM AulaEstudiante ae JOIN AulaVirtual av ON av.id = ae.aulaId " +
+           "WHERE ae.estudianteId = :estudianteId AND ae.estado = 'activo'")
+    VersionRecurso findVersionByEstudianteId(@Param("estudianteId") Long estudianteId);
     
+    // ✅ IDS DE ESTUDIANTES ACTIVOS DE UN AULA (roster)
+    @Query("SELECT ae.estudianteId FROM AulaEstudiante ae WHERE ae.aulaId = :aulaId AND ae.estado = 'activo'")
+    List<Long> findEstudianteIdsByAulaId(@Param("aulaId") Long aulaId);
+
     // ✅ BUSCAR ESTUDIANTES DE UN AULA
     List<AulaEstudiante> findByAulaIdAndEstado(Long aulaId, AulaEstudiante.EstadoEstudiante estado);
     
@@ -1,5 +1,6 @@
 package com.usuario.backend.repository;
 
+import com.usuario.backend.model.dto.VersionRecurso;
 import com.usuario.backend.model.entity.AulaVirtual;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -16,6 +17,15 @@ public interface AulaVirtualRepository extends JpaRepository<AulaVirtual, Long>
     List<AulaVirtual> findByEstado(String estado);
     AulaVirtual findByCodigoAcceso(String codigoAcceso);
     
+    // ✅ SOLO IDS DE LAS AULAS DEL PROFESOR (sin cargar las entidades)
+    @Query("SELECT av.id FROM AulaVirtual av WHERE av.profesorId = :profesorId")
+    List<Long> findIdsByProfesorId(@Param("profesorId") Long profesorId);
+
+    // ✅ VERSIÓN DE LA LISTA DE AULAS DEL PROFESOR (GET condicional): última edición y número de aulas
+    @Query("SELECT new com.usuario.backend.model.dto.VersionRecurso(MAX(av.updatedAt), COUNT(av)) " +
+           "FROM AulaVirtual av WHERE av.profesorId = :profesorId")
+    VersionRecurso findVersionByProfesorId(@Param("profesorId") Long profesorId);
+    
     // ✅ MÉTODOS CON ORDENAMIENTO
     List<AulaVirtual> findByProfesorIdOrderByFechaInicioDesc(Long profesorId);
     List<AulaVirtual> findByEstadoOrderByFechaInicioDesc(String estado);
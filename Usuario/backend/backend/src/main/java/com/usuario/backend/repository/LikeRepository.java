@@ -0,0 +1,25 @@
+package com.usuario.backend.repository;
+
+import com.usuario.backend.model.entity.Like;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LikeRepository extends JpaRepository<Like, Long> {
+
+    // Alta por clave única (usuario_id, anuncio_id): 1 fila si se creó, 0 si ya existía.
+    // INSERT IGNORE y no ON DUPLICATE KEY UPDATE: con CLIENT_FOUND_ROWS (default de Connector/J)
+    // este último informa 1 también cuando la fila ya estaba, y no se distinguiría el alta.
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO likes (usuario_id, anuncio_id, fecha_creacion) " +
+                   "VALUES (:usuarioId, :anuncioId, NOW())", nativeQuery = true)
+    int insertarSiNoExiste(@Param("usuarioId") Integer usuarioId, @Param("anuncioId") Long anuncioId);
+
+    // Baja por clave única: 1 fila si se borró, 0 si no había like
+    @Modifying
+    @Query(value = "DELETE FROM likes WHERE usuario_id = :usuarioId AND anuncio_id = :anuncioId", nativeQuery = true)
+    int eliminarPorClave(@Param("usuarioId") Integer usuarioId, @Param("anuncioId") Long anuncioId);
+}
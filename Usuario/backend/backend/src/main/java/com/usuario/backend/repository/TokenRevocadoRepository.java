@@ -0,0 +1,27 @@
+package com.usuario.backend.repository;
+
+import com.usuario.backend.model.entity.TokenRevocado;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface TokenRevocadoRepository extends JpaRepository<TokenRevocado, Long> {
+
+    boolean existsByJti(String jti);
+
+    // Lectura incremental: revocaciones nuevas desde el último id visto
+    @Query("SELECT t FROM TokenRevocado t WHERE t.id > :ultimoId AND t.expiraEn > :ahora ORDER BY t.id")
+    List<TokenRevocado> findVigentesDesde(@Param("ultimoId") Long ultimoId, @Param("ahora") Long ahora, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TokenRevocado t WHERE t.expiraEn <= :ahora")
+    int deleteExpirados(@Param("ahora") Long ahora);
+}
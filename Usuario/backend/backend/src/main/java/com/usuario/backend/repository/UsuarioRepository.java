@@ -2,9 +2,40 @@ package com.usuario.backend.repository;
 
 import com.usuario.backend.model.entity.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Usuario findByCorreoInstitucional(String correoInstitucional);
-}
\ No newline at end of file
+
+    // Versión vigente de los tokens del usuario (null si el usuario no existe)
+    @Query("SELECT COALESCE(u.tokenVersion, 0) FROM Usuario u WHERE u.id = :id")
+    Integer findTokenVersionById(@Param("id") Long id);
+
+    // Rol, correo, versión y datos de autor tal como están en la BD. Sin flush previo: el usuario que se va
+    // a guardar suele ser la misma instancia gestionada, ya modificada, y no debe escribirse antes de compararla
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("SELECT u.rol AS rol, u.correoInstitucional AS correoInstitucional, COALESCE(u.tokenVersion, 0) AS tokenVersion, "
+            + "u.nombre AS nombre, u.apellidos AS apellidos, u.profileImageUrl AS profileImageUrl "
+            + "FROM Usuario u WHERE u.id = :id")
+    Identidad findIdentidadById(@Param("id") Long id);
+
+    interface Identidad {
+        Usuario.RolUsuario getRol();
+
+        String getCorreoInstitucional();
+
+        Integer getTokenVersion();
+
+        String getNombre();
+
+        String getApellidos();
+
+        String getProfileImageUrl();
+    }
+}
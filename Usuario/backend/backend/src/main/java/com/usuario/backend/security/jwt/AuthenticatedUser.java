@@ -0,0 +1,112 @@
+package com.usuario.backend.security.jwt;
+
+import com.usuario.backend.model.entity.Usuario;
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal liviano construido a partir de los claims del JWT.
+ * Los controladores pueden inyectarlo con {@code @AuthenticationPrincipal} y obtener
+ * id y rol sin volver a consultar la tabla de usuarios.
+ */
+public class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final Usuario.RolUsuario rol;
+    private final int tokenVersion;
+    // jti y expiración del token de sesión; null/0 si el principal no viene de un JWT con jti
+    private final String sessionId;
+    private final long sessionExpiresAt;
+
+    public AuthenticatedUser(Long id, String email, Usuario.RolUsuario rol, int tokenVersion) {
+        this(id, email, rol, tokenVersion, null, 0L);
+    }
+
+    public AuthenticatedUser(Long id, String email, Usuario.RolUsuario rol, int tokenVersion,
+                             String sessionId, long sessionExpiresAt) {
+        this.id = id;
+        this.email = email;
+        this.rol = rol;
+        this.tokenVersion = tokenVersion;
+        this.sessionId = sessionId;
+        this.sessionExpiresAt = sessionExpiresAt;
+    }
+
+    public static AuthenticatedUser from(Usuario usuario) {
+        return new AuthenticatedUser(usuario.getId(), usuario.getCorreoInstitucional(),
+                usuario.getRol(), usuario.getTokenVersion());
+    }
+
+    /**
+     * Construye el principal desde los claims; devuelve null para tokens emitidos
+     * antes de que existieran los claims de id y rol.
+     */
+    public static AuthenticatedUser fromClaims(Claims claims) {
+        Number userId = claims.get(JwtTokenProvider.CLAIM_USER_ID, Number.class);
+        String rol = claims.get(JwtTokenProvider.CLAIM_ROL, String.class);
+        if (userId == null || rol == null) {
+            return null;
+        }
+        Number version = claims.get(JwtTokenProvider.CLAIM_TOKEN_VERSION, Number.class);
+        return new AuthenticatedUser(userId.longValue(), claims.getSubject(),
+                Usuario.RolUsuario.fromString(rol), version != null ? version.intValue() : 0,
+                claims.getId(), claims.getExpiration() != null ? claims.getExpiration().getTime() : 0L);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Usuario.RolUsuario getRol() {
+        return rol;
+    }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public long getSessionExpiresAt() {
+        return sessionExpiresAt;
+    }
+
+    public boolean isProfesor() {
+        return rol == Usuario.RolUsuario.PROFESOR;
+    }
+
+    // ========== UserDetails ==========
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_USER"),
+                new SimpleGrantedAuthority("ROLE_" + (rol != null ? rol.name() : "ESTUDIANTE")));
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser{id=" + id + ", email='" + email + "', rol=" + rol + "}";
+    }
+}
@@ -0,0 +1,95 @@
+package com.usuario.backend.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom lock-free para ids de token.
+ * Sin falsos negativos: si {@link #mightContain} devuelve false, el id nunca se agregó.
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final int numBits;
+    private final int numHashes;
+    private final AtomicInteger insertions = new AtomicInteger();
+
+    BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int expected = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.numBits = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expected * Math.log(2)));
+        this.bits = new AtomicLongArray((numBits + 63) / 64);
+    }
+
+    /**
+     * Agrega el valor; devuelve true si cambió algún bit (el valor no estaba).
+     */
+    boolean put(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1);
+        boolean changed = false;
+        for (int i = 0; i < numHashes; i++) {
+            int index = index(hash1 + i * hash2);
+            long mask = 1L << (index & 63);
+            int word = index >>> 6;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+            changed |= (current & mask) == 0;
+        }
+        if (changed) {
+            insertions.incrementAndGet();
+        }
+        return changed;
+    }
+
+    boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < numHashes; i++) {
+            int index = index(hash1 + i * hash2);
+            if ((bits.get(index >>> 6) & (1L << (index & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int insertions() {
+        return insertions.get();
+    }
+
+    int sizeInBytes() {
+        return bits.length() * Long.BYTES;
+    }
+
+    private int index(long combined) {
+        return (int) ((combined & Long.MAX_VALUE) % numBits);
+    }
+
+    // FNV-1a de 64 bits sobre los bytes del id
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // Finalizador de MurmurHash3: segundo hash independiente para el double hashing
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe53a87e5L;
+        h ^= h >>> 33;
+        return h | 1;
+    }
+}
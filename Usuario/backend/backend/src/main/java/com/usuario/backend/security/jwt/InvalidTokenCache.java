@@ -0,0 +1,88 @@
+package com.usuario.backend.security.jwt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU negativa de tokens inválidos o expirados, acotada por tamaño y por tiempo.
+ * La clave es el digest del token: un cliente que insiste con un token vencido no vuelve a
+ * pagar el parseo ni a llenar el log con el mismo error.
+ */
+class InvalidTokenCache {
+
+    private final int maxEntries;
+    private final long ttlMs;
+
+    // access-order = true: cada acierto mueve la entrada al final y la más antigua sale primero
+    private final LinkedHashMap<String, Long> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    InvalidTokenCache(int maxEntries, long ttlMs, MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.hits = Counter.builder("jwt.invalid.cache.hits")
+                .description("Tokens rechazados desde la cache negativa")
+                .register(meterRegistry);
+        this.misses = Counter.builder("jwt.invalid.cache.misses")
+                .description("Tokens que no estaban en la cache negativa")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("jwt.invalid.cache.evictions")
+                .description("Entradas expulsadas por tamaño o TTL")
+                .register(meterRegistry);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if (size() > InvalidTokenCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("jwt.invalid.cache.size", this, InvalidTokenCache::size)
+                .description("Tokens inválidos en la cache negativa")
+                .register(meterRegistry);
+    }
+
+    boolean contains(String digest) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Long expiresAt = entries.get(digest);
+            if (expiresAt == null) {
+                misses.increment();
+                return false;
+            }
+            if (expiresAt <= now) {
+                entries.remove(digest);
+                evictions.increment();
+                misses.increment();
+                return false;
+            }
+        }
+        hits.increment();
+        return true;
+    }
+
+    void put(String digest) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        synchronized (entries) {
+            entries.put(digest, expiresAt);
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.usuario.backend.security.jwt;
 
+import com.usuario.backend.config.PublicRoutes;
+import com.usuario.backend.controller.ArchivoController;
+import com.usuario.backend.controller.EventStreamController;
+import com.usuario.backend.model.entity.Usuario;
 import com.usuario.backend.service.user.UsuarioService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,7 +15,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -23,15 +27,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
-    @Autowired
-    private JwtTokenProvider tokenProvider;
-
     @Autowired
     private UsuarioService usuarioService;
     
     @Autowired
     private JwtTokenManager jwtTokenManager;
 
+    @Autowired
+    private PublicRoutes publicRoutes;
+
+    @Autowired
+    private ResourceTicketService ticketService;
+
+    /**
+     * Las rutas públicas no pasan por el filtro: no se lee ni se verifica ningún token
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return publicRoutes.matches(request);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -39,27 +54,41 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String requestURI = request.getRequestURI();
         
         try {
+            String ticket = getTicketFromRequest(request);
+            if (ticket != null) {
+                AuthenticatedUser principal = ticketService.verificar(ticket, rutaDe(request));
+                if (principal == null
+                        || jwtTokenManager.isSessionRevoked(principal.getSessionId(), principal.getSessionExpiresAt())
+                        || usuarioService.getTokenVersion(principal.getId()) != principal.getTokenVersion()) {
+                    handleInvalidToken(response, "Ticket inválido o expirado");
+                    return;
+                }
+                autenticar(request, principal);
+                filterChain.doFilter(request, response);
+                return;
+            }
+
             String jwt = getJwtFromRequest(request);
             logger.debug("JWT token received for {}: {}", requestURI, 
                         jwt != null ? jwt.substring(0, Math.min(10, jwt.length())) + "..." : "null");
 
             if (StringUtils.hasText(jwt)) {
                 
-                // 🔧 NUEVA VALIDACIÓN: Verificar blacklist Y validez del token
-                if (jwtTokenManager.isTokenValid(jwt)) {
-                    String email = tokenProvider.getEmailFromToken(jwt);
+                // 🔧 NUEVA VALIDACIÓN: Verificar blacklist Y validez del token (una sola verificación de firma)
+                Claims claims = jwtTokenManager.getValidClaims(jwt);
+                if (claims != null) {
+                    String email = claims.getSubject();
 
                     if (email != null) {
                         logger.debug("JWT token válido para usuario: {}", email);
 
-                        UserDetails userDetails = usuarioService.loadUserByUsername(email);
+                        AuthenticatedUser principal = resolvePrincipal(claims, email);
+                        if (principal == null) {
+                            handleInvalidToken(response, "Token JWT desactualizado, inicie sesión nuevamente");
+                            return;
+                        }
 
-                        UsernamePasswordAuthenticationToken authentication =
-                                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                        autenticar(request, principal);
                         logger.debug("Usuario autenticado via JWT: {}", email);
                     } else {
                         logger.debug("No se pudo extraer email del token JWT");
@@ -67,68 +96,47 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         return;
                     }
                 } else {
-                    // Token inválido (expirado, malformado, o en blacklist)
+                    // Token inválido (expirado, malformado, o en blacklist) en endpoint protegido
                     logger.debug("Token JWT inválido o en blacklist para: {}", requestURI);
-                    
-                    // Solo devolver error en endpoints protegidos
-                    if (isProtectedEndpoint(request)) {
-                        handleInvalidToken(response, "Token JWT inválido o expirado");
-                        return;
-                    }
+                    handleInvalidToken(response, "Token JWT inválido o expirado");
+                    return;
                 }
-            } else if (isProtectedEndpoint(request)) {
-                // No hay token en endpoint protegido
-                logger.debug("No hay token JWT para endpoint protegido: {}", requestURI);
-                handleInvalidToken(response, "Token JWT requerido");
-                return;
             }
+            // Sin token: el entry point de la cadena de seguridad responde 401
         } catch (Exception ex) {
             logger.error("Error al procesar autenticación JWT para {}: {}", requestURI, ex.getMessage());
-            
-            if (isProtectedEndpoint(request)) {
-                handleInvalidToken(response, "Error al procesar autenticación");
-                return;
-            }
+            handleInvalidToken(response, "Error al procesar autenticación");
+            return;
         }
 
         filterChain.doFilter(request, response);
     }
 
+    private void autenticar(HttpServletRequest request, AuthenticatedUser principal) {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
     /**
-     * Determina si un endpoint requiere autenticación
+     * Construye el principal desde los claims sin consultar la BD.
+     * Los tokens antiguos sin claims de identidad se resuelven cargando el usuario.
+     * Devuelve null si la versión del token ya no es la vigente o el usuario no existe.
      */
-    private boolean isProtectedEndpoint(HttpServletRequest request) {
-    String path = request.getRequestURI();
-    String method = request.getMethod();
-    
-    // 🔥 ENDPOINTS PÚBLICOS (NO REQUIEREN AUTENTICACIÓN)
-    String[] publicPaths = {
-        "/",
-        "/oauth2/",
-        "/login",
-        "/api/auth/login",           // 🔥 CRÍTICO: Login debe ser público
-        "/api/auth/google-login",    // 🔥 Google login público
-        "/api/usuarios/register",    // 🔥 Registro público
-        "/api/usuarios/login",       // 🔥 Login legacy público
-        "/api/carreras/activas",     // 🔥 Carreras para registro
-        "/api/carreras/health",      // 🔥 Health check público
-        "/api/public/",
-        "/error",
-        "/api/debug/"  // Temporal para debugging
-    };
-    
-    // Verificar si la ruta coincide con algún endpoint público
-    for (String publicPath : publicPaths) {
-        if (path.equals(publicPath) || path.startsWith(publicPath)) {
-            logger.debug("Endpoint público detectado: {} {}", method, path);
-            return false;
+    private AuthenticatedUser resolvePrincipal(Claims claims, String email) {
+        AuthenticatedUser principal = AuthenticatedUser.fromClaims(claims);
+        if (principal == null) {
+            Usuario usuario = usuarioService.findByCorreoInstitucional(email);
+            return usuario != null ? AuthenticatedUser.from(usuario) : null;
+        }
+        if (usuarioService.getTokenVersion(principal.getId()) != principal.getTokenVersion()) {
+            logger.debug("Versión de token obsoleta para usuario: {}", email);
+            return null;
         }
+        return principal;
     }
-    
-    logger.debug("Endpoint protegido detectado: {} {}", method, path);
-    return true;
-}
-    
+
     /**
      * Maneja tokens inválidos con respuesta JSON estructurada
      */
@@ -145,7 +153,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Extrae el token JWT del header Authorization
+     * Extrae el token JWT del header Authorization. Nunca de la URL: acabaría en logs de acceso.
      */
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
@@ -154,4 +162,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Ticket de corta duración (?ticket=) para las rutas que se abren sin cabeceras: descargas de
+     * adjuntos, enlaces, visores de PDF y el stream SSE (EventSource). Solo vale para la ruta exacta
+     * para la que se emitió.
+     */
+    private String getTicketFromRequest(HttpServletRequest request) {
+        String ruta = rutaDe(request);
+        if (!ArchivoController.esRutaDescarga(ruta) && !EventStreamController.STREAM_PATH.equals(ruta)) {
+            return null;
+        }
+        String ticket = request.getParameter(ResourceTicketService.PARAM);
+        return StringUtils.hasText(ticket) ? ticket : null;
+    }
+
+    private static String rutaDe(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -1,36 +1,49 @@
 package com.usuario.backend.security.jwt;
 
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-
 @Service
 public class JwtTokenManager {
     
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenManager.class);
     
-    // Blacklist de tokens invalidados (en memoria)
-    private final Set<String> blacklistedTokens = ConcurrentHashMap.newKeySet();
-    
-    // Cache de tokens expirados para evitar procesamiento innecesario
-    private final Set<String> expiredTokens = ConcurrentHashMap.newKeySet();
-    
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
     
+    // Tokens revocados (logout), compartidos entre instancias vía base de datos
+    @Autowired
+    private TokenRevocationService revocationService;
+    
     /**
-     * Agregar token a la blacklist (logout)
+     * Agregar token a la blacklist (logout). Devuelve el id revocado, o null si el token ya no era válido.
      */
-    public void blacklistToken(String token) {
-        if (token != null && !token.trim().isEmpty()) {
-            blacklistedTokens.add(token);
-            logger.info("Token agregado a blacklist. Total: {}", blacklistedTokens.size());
+    public String blacklistToken(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        
+        // Un token inválido o expirado ya no autentica: no hace falta revocarlo
+        Claims claims = jwtTokenProvider.verifyToken(token);
+        if (claims == null) {
+            logger.debug("Token ya inválido, no se registra revocación");
+            return null;
         }
+        
+        String tokenId = tokenIdOf(claims, token);
+        revocationService.revoke(tokenId, claims.getExpiration().getTime());
+        logger.info("Token revocado. Revocaciones activas en este nodo: {}", revocationService.localSize());
+        return tokenId;
+    }
+    
+    /**
+     * Verificar si la sesión (jti) de un ticket o de un stream abierto fue revocada
+     */
+    public boolean isSessionRevoked(String sessionId, long expiresAtMillis) {
+        return sessionId != null && revocationService.isRevoked(sessionId, expiresAtMillis);
     }
     
     /**
@@ -40,69 +53,57 @@ public class JwtTokenManager {
         if (token == null || token.trim().isEmpty()) {
             return false;
         }
-        return blacklistedTokens.contains(token);
+        Claims claims = jwtTokenProvider.verifyToken(token);
+        return claims != null && isRevoked(claims, token);
     }
     
     /**
      * Verificar si un token es válido (no blacklisted y no expirado)
      */
     public boolean isTokenValid(String token) {
+        return getValidClaims(token) != null;
+    }
+    
+    /**
+     * Devuelve los claims de un token válido (no blacklisted y no expirado), o null.
+     * La firma se verifica una sola vez por petición.
+     */
+    public Claims getValidClaims(String token) {
         if (token == null || token.trim().isEmpty()) {
-            return false;
+            return null;
         }
         
-        // 1. Verificar blacklist primero (más rápido)
-        if (isTokenBlacklisted(token)) {
-            return false;
-        }
+        // 1. Verificar con JwtTokenProvider (los inválidos se resuelven en su cache negativa)
+        Claims claims = jwtTokenProvider.verifyToken(token);
         
-        // 2. Verificar cache de expirados
-        if (expiredTokens.contains(token)) {
-            return false;
+        if (claims == null) {
+            return null;
         }
         
-        // 3. Verificar con JwtTokenProvider
-        boolean isValid = jwtTokenProvider.validateToken(token);
-        
-        if (!isValid) {
-            // Agregar a cache de expirados
-            expiredTokens.add(token);
+        // 2. Verificar revocación por jti (filtro de Bloom; la base solo ante un positivo)
+        if (isRevoked(claims, token)) {
+            return null;
         }
         
-        return isValid;
+        return claims;
     }
     
     /**
      * Obtener estadísticas de tokens
      */
     public TokenStats getTokenStats() {
-        return new TokenStats(blacklistedTokens.size(), expiredTokens.size());
+        return new TokenStats(revocationService.localSize(), jwtTokenProvider.getInvalidCacheSize());
+    }
+    
+    private boolean isRevoked(Claims claims, String token) {
+        return revocationService.isRevoked(tokenIdOf(claims, token), claims.getExpiration().getTime());
     }
     
     /**
-     * Limpiar tokens expirados cada hora
+     * Id del token para revocación: el jti, o el digest para tokens emitidos sin jti
      */
-    @Scheduled(fixedRate = 3600000) // 1 hora
-    public void cleanupExpiredTokens() {
-        logger.info("Limpiando tokens expirados...");
-        
-        int initialSize = blacklistedTokens.size();
-        
-        // Limpiar blacklist de tokens expirados
-        blacklistedTokens.removeIf(token -> {
-            try {
-                return !jwtTokenProvider.validateToken(token);
-            } catch (Exception e) {
-                return true; // Remover si hay error
-            }
-        });
-        
-        // Limpiar cache si es muy grande
-        if (expiredTokens.size() > 1000) {
-            expiredTokens.clear();
-        }
-        
-        logger.info("Limpieza completada. Blacklist: {} -> {}", initialSize, blacklistedTokens.size());
+    static String tokenIdOf(Claims claims, String token) {
+        return claims.getId() != null ? claims.getId() : TokenDigest.of(token);
     }
     
     /**
@@ -1,35 +1,70 @@
 package com.usuario.backend.security.jwt;
 
+import com.usuario.backend.model.entity.Usuario;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
 import java.security.Key;
+import java.util.Base64;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
 
 @Component
 public class JwtTokenProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
 
+    // Claims propios: permiten autenticar sin consultar la tabla de usuarios
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROL = "rol";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
     @Value("${app.jwt.expiration-ms}")
     private int jwtExpirationMs;
 
+    @Value("${app.jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+
+    @Value("${app.jwt.invalid-cache.max-entries:10000}")
+    private int invalidCacheMaxEntries;
+
+    @Value("${app.jwt.invalid-cache.ttl-ms:600000}")
+    private long invalidCacheTtlMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Key key;
 
+    // El parser de jjwt es inmutable y thread-safe: se construye una sola vez
+    private JwtParser jwtParser;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private InvalidTokenCache invalidTokenCache;
+
     @PostConstruct
     public void init() {
         try {
             this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+            this.jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
+            this.verifiedTokenCache = new VerifiedTokenCache(verifiedCacheMaxEntries);
+            this.invalidTokenCache = new InvalidTokenCache(invalidCacheMaxEntries, invalidCacheTtlMs, meterRegistry);
             logger.info("JWT Token Provider initialized successfully");
         } catch (Exception e) {
             logger.error("Failed to initialize JWT Token Provider: {}", e.getMessage(), e);
@@ -43,8 +78,21 @@ public class JwtTokenProvider {
         return generateToken(userDetails.getUsername());
     }
 
-    // Generar token para el email del usuario
+    // Generar token con id, rol y versión del usuario como claims
+    public String generateToken(Usuario usuario) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, usuario.getId());
+        claims.put(CLAIM_ROL, usuario.getRol() != null ? usuario.getRol().name() : Usuario.RolUsuario.ESTUDIANTE.name());
+        claims.put(CLAIM_TOKEN_VERSION, usuario.getTokenVersion());
+        return buildToken(usuario.getCorreoInstitucional(), claims);
+    }
+
+    // Generar token para el email del usuario (sin claims de identidad)
     public String generateToken(String email) {
+        return buildToken(email, Map.of());
+    }
+
+    private String buildToken(String email, Map<String, Object> claims) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
@@ -52,6 +100,8 @@ public class JwtTokenProvider {
 
         try {
             String token = Jwts.builder()
+                    .addClaims(claims)
+                    .setId(newTokenId())
                     .setSubject(email)
                     .setIssuedAt(now)
                     .setExpiration(expiryDate)
@@ -65,31 +115,38 @@ public class JwtTokenProvider {
         }
     }
 
-    // Extraer email del token
-    public String getEmailFromToken(String token) {
-        try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            
-            return claims.getSubject();
-        } catch (Exception e) {
-            logger.error("Failed to get email from token: {}", e.getMessage());
+    // jti compacto (UUID en Base64 URL, 22 caracteres) usado para revocar el token
+    private String newTokenId() {
+        UUID uuid = UUID.randomUUID();
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Verifica el token una sola vez y devuelve sus claims, o null si no es válido.
+     * Los tokens ya verificados se sirven desde cache hasta su expiración y los inválidos
+     * se rechazan desde la cache negativa sin volver a parsearlos.
+     */
+    public Claims verifyToken(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        String digest = TokenDigest.of(token);
+        Claims cached = verifiedTokenCache.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+        if (invalidTokenCache.contains(digest)) {
             return null;
         }
-    }
 
-    // Validar token
-    public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
-            
-            return true;
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            verifiedTokenCache.put(digest, claims);
+            return claims;
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -101,6 +158,28 @@ public class JwtTokenProvider {
         } catch (Exception e) {
             logger.error("JWT validation error: {}", e.getMessage());
         }
-        return false;
+        invalidTokenCache.put(digest);
+        return null;
+    }
+
+    // Extraer email del token
+    public String getEmailFromToken(String token) {
+        Claims claims = verifyToken(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    // Validar token
+    public boolean validateToken(String token) {
+        return verifyToken(token) != null;
+    }
+
+    // Tamaño actual de la cache de tokens verificados
+    public int getVerifiedCacheSize() {
+        return verifiedTokenCache.size();
+    }
+
+    // Tamaño actual de la cache negativa de tokens inválidos
+    public int getInvalidCacheSize() {
+        return invalidTokenCache.size();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package com.usuario.backend.security.jwt;
+
+import com.usuario.backend.model.entity.Usuario;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Tickets de acceso de corta duración para una sola ruta (descarga de un adjunto, ZIP de un aula,
+ * stream SSE). Los enlaces, visores y EventSource no pueden enviar la cabecera Authorization; en vez
+ * del JWT de sesión (que acabaría en historiales y logs de acceso) la URL lleva {@code ?ticket=}.
+ *
+ * Formato: {@code base64url(uid:rol:ver:sesion:fin-sesion:expira:ruta).base64url(HMAC-SHA256)}. La clave
+ * se deriva del secreto JWT con otra etiqueta, así que un ticket nunca vale como token de sesión. Lleva el
+ * jti de la sesión que lo pidió: al cerrar esa sesión el ticket deja de valer. No lleva el correo.
+ */
+@Component
+public class ResourceTicketService {
+
+    public static final String PARAM = "ticket";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${app.jwt.secret}")
+    private String jwtSecret;
+
+    private SecretKeySpec key;
+
+    @PostConstruct
+    public void init() {
+        key = new SecretKeySpec(hmac(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"),
+                "tecbook-resource-ticket"), "HmacSHA256");
+    }
+
+    public record Ticket(String valor, long expiraEn) {
+    }
+
+    public Ticket emitir(AuthenticatedUser usuario, String ruta, long ttlMs) {
+        long expiraEn = System.currentTimeMillis() + ttlMs;
+        String sesion = usuario.getSessionId() != null ? usuario.getSessionId() : "";
+        String payload = usuario.getId() + ":" + usuario.getRol().name() + ":" + usuario.getTokenVersion()
+                + ":" + sesion + ":" + usuario.getSessionExpiresAt() + ":" + expiraEn + ":" + ruta;
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        return new Ticket(ENCODER.encodeToString(bytes) + "." + ENCODER.encodeToString(hmac(key, payload)), expiraEn);
+    }
+
+    /**
+     * Principal del ticket si la firma es válida, no ha expirado y fue emitido para {@code ruta};
+     * null en otro caso. La versión de token y la revocación de la sesión las comprueba quien llama,
+     * igual que con el JWT.
+     */
+    public AuthenticatedUser verificar(String ticket, String ruta) {
+        int punto = ticket.indexOf('.');
+        if (punto <= 0) {
+            return null;
+        }
+        try {
+            String payload = new String(DECODER.decode(ticket.substring(0, punto)), StandardCharsets.UTF_8);
+            byte[] firma = DECODER.decode(ticket.substring(punto + 1));
+            if (!MessageDigest.isEqual(firma, hmac(key, payload))) {
+                return null;
+            }
+            String[] partes = payload.split(":", 7);
+            if (partes.length != 7 || Long.parseLong(partes[5]) < System.currentTimeMillis() || !partes[6].equals(ruta)) {
+                return null;
+            }
+            return new AuthenticatedUser(Long.parseLong(partes[0]), null,
+                    Usuario.RolUsuario.valueOf(partes[1]), Integer.parseInt(partes[2]),
+                    partes[3].isEmpty() ? null : partes[3], Long.parseLong(partes[4]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] hmac(SecretKeySpec clave, String datos) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(clave);
+            return mac.doFinal(datos.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 no disponible", e);
+        }
+    }
+}
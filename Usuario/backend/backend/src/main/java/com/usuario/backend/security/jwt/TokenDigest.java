@@ -0,0 +1,27 @@
+package com.usuario.backend.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Huella compacta (SHA-256, Base64 URL) de un token JWT.
+ * Se usa como clave de caches para no guardar el token completo en memoria.
+ */
+public final class TokenDigest {
+
+    private TokenDigest() {
+    }
+
+    public static String of(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 es obligatorio en toda JVM
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
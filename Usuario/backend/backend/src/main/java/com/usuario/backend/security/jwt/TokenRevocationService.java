@@ -0,0 +1,220 @@
+package com.usuario.backend.security.jwt;
+
+import com.usuario.backend.model.entity.TokenRevocado;
+import com.usuario.backend.repository.TokenRevocadoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocación de tokens compartida entre instancias.
+ *
+ * La fuente de verdad es la tabla {@code tokens_revocados}. Cada nodo mantiene un filtro de Bloom
+ * con los jti vigentes, refrescado de forma incremental: si el filtro dice que no, el token no está
+ * revocado y no se toca la base; solo un positivo se confirma contra la tabla. Los positivos
+ * confirmados quedan en el {@link TokenRevocationStore} local hasta su expiración.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final int PAGE_SIZE = 500;
+
+    // Los ids IDENTITY pueden confirmarse fuera de orden: se relee una ventana corta hacia atrás
+    private static final long ID_LOOKBACK = 200;
+
+    @Value("${app.jwt.revocation.bloom.expected-insertions:100000}")
+    private int expectedInsertions;
+
+    @Value("${app.jwt.revocation.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // Falsos positivos ya descartados contra la base (jti -> exp)
+    @Value("${app.jwt.revocation.bloom.negative-cache-max-entries:10000}")
+    private int negativeCacheMaxEntries;
+
+    @Autowired
+    private TokenRevocadoRepository tokenRevocadoRepository;
+
+    @Autowired
+    private TokenRevocationStore localStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile BloomFilter bloom;
+    private volatile long lastSeenId = 0;
+
+    private final ConcurrentHashMap<String, Long> confirmedNotRevoked = new ConcurrentHashMap<>();
+
+    private Counter dbLookups;
+    private Counter falsePositives;
+
+    @PostConstruct
+    public void init() {
+        this.bloom = new BloomFilter(expectedInsertions, falsePositiveRate);
+
+        Gauge.builder("jwt.revocations.bloom.entries", this, s -> s.bloom.insertions())
+                .description("Jti cargados en el filtro de Bloom local")
+                .register(meterRegistry);
+        this.dbLookups = Counter.builder("jwt.revocations.db.lookups")
+                .description("Consultas a tokens_revocados por positivos del filtro de Bloom")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("jwt.revocations.bloom.false.positives")
+                .description("Positivos del filtro de Bloom descartados por la base")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Revoca el token en todas las instancias: se persiste y se marca localmente de inmediato.
+     * Si el registro local está lleno, la base es el único registro: un fallo al persistir se propaga.
+     */
+    public void revoke(String tokenId, long expiresAtMillis) {
+        if (tokenId == null || expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+
+        boolean local = localStore.revoke(tokenId, expiresAtMillis);
+        bloom.put(tokenId);
+        confirmedNotRevoked.remove(tokenId);
+
+        try {
+            tokenRevocadoRepository.save(new TokenRevocado(tokenId, expiresAtMillis));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Token ya registrado como revocado: {}", tokenId);
+        } catch (Exception e) {
+            logger.error("❌ Error persistiendo revocación de token: {}", e.getMessage());
+            if (!local) {
+                throw new IllegalStateException("No se pudo registrar la revocación del token", e);
+            }
+            // La revocación sigue vigente en este nodo aunque no se haya podido propagar
+        }
+    }
+
+    /**
+     * Indica si el token fue revocado en cualquier instancia. Solo consulta la base ante un
+     * positivo del filtro de Bloom que no esté ya resuelto en memoria.
+     */
+    public boolean isRevoked(String tokenId, long expiresAtMillis) {
+        if (tokenId == null) {
+            return false;
+        }
+        if (localStore.isRevoked(tokenId, expiresAtMillis)) {
+            return true;
+        }
+        if (!bloom.mightContain(tokenId) || confirmedNotRevoked.containsKey(tokenId)) {
+            return false;
+        }
+
+        dbLookups.increment();
+        try {
+            if (tokenRevocadoRepository.existsByJti(tokenId)) {
+                localStore.revoke(tokenId, expiresAtMillis);
+                return true;
+            }
+        } catch (Exception e) {
+            // Sin base no se puede descartar el positivo: se rechaza el token
+            logger.error("❌ Error consultando revocación de token: {}", e.getMessage());
+            return true;
+        }
+
+        falsePositives.increment();
+        if (confirmedNotRevoked.size() >= negativeCacheMaxEntries) {
+            confirmedNotRevoked.clear();
+        }
+        confirmedNotRevoked.put(tokenId, expiresAtMillis);
+        return false;
+    }
+
+    public int localSize() {
+        return localStore.size();
+    }
+
+    /**
+     * Carga incremental de las revocaciones hechas en otras instancias.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.refresh-ms:5000}",
+            initialDelayString = "${app.jwt.revocation.refresh-ms:5000}")
+    public synchronized void refresh() {
+        try {
+            int loaded = loadInto(bloom, Math.max(0, lastSeenId - ID_LOOKBACK));
+            if (loaded > 0) {
+                logger.debug("Revocaciones nuevas cargadas en el filtro de Bloom: {}", loaded);
+            }
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudo refrescar revocaciones: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reconstruye el filtro desde cero (un Bloom no admite borrados) y elimina las filas vencidas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.rebuild-ms:3600000}",
+            initialDelayString = "${app.jwt.revocation.rebuild-ms:3600000}")
+    public synchronized void rebuild() {
+        try {
+            int deleted = tokenRevocadoRepository.deleteExpirados(System.currentTimeMillis());
+
+            long previousLastSeen = lastSeenId;
+            BloomFilter fresh = new BloomFilter(expectedInsertions, falsePositiveRate);
+            lastSeenId = 0;
+            int loaded = loadInto(fresh, 0);
+            if (lastSeenId < previousLastSeen) {
+                lastSeenId = previousLastSeen;
+            }
+
+            // Las revocaciones locales hechas durante la carga ya están en la tabla o en el store local
+            this.bloom = fresh;
+            confirmedNotRevoked.clear();
+
+            if (loaded > expectedInsertions) {
+                logger.warn("⚠️ Revocaciones vigentes ({}) superan el tamaño previsto del filtro ({})",
+                        loaded, expectedInsertions);
+            }
+            logger.info("Filtro de revocaciones reconstruido: {} vigentes, {} filas vencidas eliminadas, {} bytes",
+                    loaded, deleted, fresh.sizeInBytes());
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudo reconstruir el filtro de revocaciones: {}", e.getMessage());
+        }
+    }
+
+    private int loadInto(BloomFilter target, long fromId) {
+        long now = System.currentTimeMillis();
+        long cursor = fromId;
+        int loaded = 0;
+
+        while (true) {
+            List<TokenRevocado> page = tokenRevocadoRepository.findVigentesDesde(
+                    cursor, now, PageRequest.of(0, PAGE_SIZE));
+            for (TokenRevocado revocado : page) {
+                if (target.put(revocado.getJti())) {
+                    loaded++;
+                }
+                confirmedNotRevoked.remove(revocado.getJti());
+                cursor = revocado.getId();
+            }
+            if (cursor > lastSeenId) {
+                lastSeenId = cursor;
+            }
+            if (page.size() < PAGE_SIZE) {
+                return loaded;
+            }
+        }
+    }
+}
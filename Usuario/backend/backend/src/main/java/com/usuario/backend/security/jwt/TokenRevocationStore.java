@@ -0,0 +1,203 @@
+package com.usuario.backend.security.jwt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Registro de tokens revocados (logout) organizado como una rueda de tiempo.
+ *
+ * Cada token se guarda por su id compacto ({@code jti}) en el bucket que corresponde a su
+ * {@code exp}. Como el exp viene en los claims ya verificados, la consulta toca un solo bucket,
+ * y al vencer un bucket se descarta entero sin volver a verificar firmas.
+ *
+ * Es una cache acotada de la tabla {@code tokens_revocados}, que es la fuente de verdad: por encima de
+ * {@code max-entries} no se guardan más entradas y esos tokens se confirman contra la base.
+ */
+@Component
+public class TokenRevocationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationStore.class);
+
+    @Value("${app.jwt.revocation.bucket-ms:60000}")
+    private long bucketMs;
+
+    @Value("${app.jwt.expiration-ms}")
+    private long jwtExpirationMs;
+
+    // Tope de entradas en memoria; alcanzarlo indica una ola de logouts fuera de lo normal
+    @Value("${app.jwt.revocation.max-entries:200000}")
+    private int maxEntries;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private AtomicReferenceArray<Bucket> wheel;
+
+    // Tokens cuyo exp cae fuera del horizonte de la rueda (p. ej. emitidos con otra configuración)
+    private final ConcurrentHashMap<String, Long> overflow = new ConcurrentHashMap<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    // Se avisa una vez por saturación, no en cada revocación rechazada
+    private final AtomicBoolean saturated = new AtomicBoolean();
+
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        int slots = (int) (jwtExpirationMs / bucketMs) + 2;
+        this.wheel = new AtomicReferenceArray<>(slots);
+
+        Gauge.builder("jwt.revocations.active", size, AtomicInteger::get)
+                .description("Tokens revocados que aún no expiran")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocations.overflow", overflow, ConcurrentHashMap::size)
+                .description("Tokens revocados fuera del horizonte de la rueda")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocations.max", this, store -> store.maxEntries)
+                .description("Tope de tokens revocados en memoria")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("jwt.revocations.rejected")
+                .description("Revocaciones no guardadas en memoria por superar el tope; se confirman contra la base")
+                .register(meterRegistry);
+
+        logger.info("TokenRevocationStore inicializado: {} buckets de {} ms", slots, bucketMs);
+    }
+
+    /**
+     * Revoca el token hasta su expiración. Los tokens ya expirados no se guardan.
+     * Devuelve false si no se guardó por haber alcanzado {@code max-entries}.
+     */
+    public boolean revoke(String tokenId, long expiresAtMillis) {
+        long now = System.currentTimeMillis();
+        if (tokenId == null || expiresAtMillis <= now) {
+            return true;
+        }
+        if (isRevoked(tokenId, expiresAtMillis)) {
+            return true;
+        }
+        if (!reserve()) {
+            rejected.increment();
+            if (saturated.compareAndSet(false, true)) {
+                logger.warn("⚠️ Revocaciones activas alcanzaron {} entradas; las nuevas se confirman contra la base", maxEntries);
+            }
+            return false;
+        }
+
+        long epoch = expiresAtMillis / bucketMs;
+        boolean added = epoch - now / bucketMs >= wheel.length()
+                ? overflow.put(tokenId, expiresAtMillis) == null
+                : bucketFor(epoch).ids.add(tokenId);
+        if (!added) {
+            // Otro hilo lo guardó entre la comprobación y la reserva
+            size.decrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * Indica si el token fue revocado. Solo consulta el bucket de su exp: O(1).
+     */
+    public boolean isRevoked(String tokenId, long expiresAtMillis) {
+        if (tokenId == null) {
+            return false;
+        }
+        if (!overflow.isEmpty() && overflow.containsKey(tokenId)) {
+            return true;
+        }
+        long epoch = expiresAtMillis / bucketMs;
+        Bucket bucket = wheel.get(slotOf(epoch));
+        return bucket != null && bucket.epoch == epoch && bucket.ids.contains(tokenId);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Descarta los buckets vencidos completos; no hay criptografía involucrada.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.bucket-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        long currentEpoch = now / bucketMs;
+        int removed = 0;
+
+        for (int slot = 0; slot < wheel.length(); slot++) {
+            Bucket bucket = wheel.get(slot);
+            if (bucket != null && bucket.epoch < currentEpoch && wheel.compareAndSet(slot, bucket, null)) {
+                removed += bucket.ids.size();
+            }
+        }
+
+        int before = overflow.size();
+        overflow.values().removeIf(exp -> exp <= now);
+        removed += before - overflow.size();
+
+        if (removed > 0) {
+            size.addAndGet(-removed);
+            logger.debug("Revocaciones expiradas descartadas: {}. Activas: {}", removed, size.get());
+        }
+        if (size.get() < maxEntries) {
+            saturated.set(false);
+        }
+    }
+
+    private Bucket bucketFor(long epoch) {
+        int slot = slotOf(epoch);
+        while (true) {
+            Bucket current = wheel.get(slot);
+            if (current != null && current.epoch == epoch) {
+                return current;
+            }
+            // El slot está libre o guarda una vuelta anterior de la rueda que ya venció
+            Bucket fresh = new Bucket(epoch);
+            if (wheel.compareAndSet(slot, current, fresh)) {
+                if (current != null) {
+                    size.addAndGet(-current.ids.size());
+                }
+                return fresh;
+            }
+        }
+    }
+
+    private int slotOf(long epoch) {
+        return (int) (epoch % wheel.length());
+    }
+
+    // Reserva un lugar antes de insertar: el tope se respeta también con revocaciones concurrentes
+    private boolean reserve() {
+        while (true) {
+            int current = size.get();
+            if (current >= maxEntries) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final Set<String> ids = ConcurrentHashMap.newKeySet();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.usuario.backend.security.jwt;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache acotada de tokens cuya firma ya fue verificada.
+ * La clave es el digest del token y cada entrada vence en el {@code exp} del propio token,
+ * así una misma sesión del SPA no vuelve a pagar el HMAC en cada petición.
+ */
+class VerifiedTokenCache {
+
+    // Evita barrer el mapa completo en cada inserción cuando está lleno
+    private static final long PURGE_INTERVAL_MS = 1000;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurge = new AtomicLong();
+    private final int maxEntries;
+
+    VerifiedTokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    Claims get(String digest) {
+        Entry entry = entries.get(digest);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            entries.remove(digest, entry);
+            return null;
+        }
+        return entry.claims();
+    }
+
+    void put(String digest, Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null || maxEntries <= 0) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            makeRoom();
+        }
+        entries.put(digest, new Entry(claims, expiration.getTime()));
+    }
+
+    void invalidate(String digest) {
+        entries.remove(digest);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        long last = lastPurge.get();
+        if (now - last >= PURGE_INTERVAL_MS && lastPurge.compareAndSet(last, now)) {
+            entries.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+        }
+        // Si sigue lleno, se sacrifica una entrada cualquiera: solo cuesta una verificación extra
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() >= maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private record Entry(Claims claims, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,170 @@
+package com.usuario.backend.security.oauth2;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Guarda la petición de autorización OAuth2 (state, redirect_uri, nonce) en una cookie firmada
+ * y de vida corta en lugar de la sesión HTTP, para que el backend funcione sin sesiones y sin
+ * sticky sessions entre instancias.
+ *
+ * Formato: {@code base64url(expira + objeto serializado) "." base64url(HMAC-SHA256)}. La firma se
+ * verifica antes de deserializar, así nunca se deserializan bytes que no haya emitido el servidor.
+ */
+@Component
+public class HttpCookieOAuth2AuthorizationRequestRepository
+        implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpCookieOAuth2AuthorizationRequestRepository.class);
+
+    public static final String COOKIE_NAME = "oauth2_auth_request";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    @Value("${app.oauth2.cookie-secret:${app.jwt.secret}}")
+    private String cookieSecret;
+
+    // Tiempo máximo para completar el login en Google
+    @Value("${app.oauth2.cookie-max-age-seconds:180}")
+    private int cookieMaxAgeSeconds;
+
+    private SecretKeySpec signingKey;
+
+    @PostConstruct
+    public void init() {
+        this.signingKey = new SecretKeySpec(cookieSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+        String value = readCookie(request);
+        return value != null ? decode(value) : null;
+    }
+
+    @Override
+    public void saveAuthorizationRequest(OAuth2AuthorizationRequest authorizationRequest,
+                                         HttpServletRequest request, HttpServletResponse response) {
+        if (authorizationRequest == null) {
+            writeCookie(request, response, "", Duration.ZERO);
+            return;
+        }
+        writeCookie(request, response, encode(authorizationRequest), Duration.ofSeconds(cookieMaxAgeSeconds));
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request,
+                                                                 HttpServletResponse response) {
+        OAuth2AuthorizationRequest authorizationRequest = loadAuthorizationRequest(request);
+        if (authorizationRequest != null) {
+            writeCookie(request, response, "", Duration.ZERO);
+        }
+        return authorizationRequest;
+    }
+
+    private String encode(OAuth2AuthorizationRequest authorizationRequest) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream data = new DataOutputStream(bytes)) {
+                data.writeLong(System.currentTimeMillis() + cookieMaxAgeSeconds * 1000L);
+                try (ObjectOutputStream out = new ObjectOutputStream(data)) {
+                    out.writeObject(authorizationRequest);
+                }
+            }
+            byte[] payload = bytes.toByteArray();
+            Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+            return encoder.encodeToString(payload) + "." + encoder.encodeToString(sign(payload));
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo serializar la petición OAuth2", e);
+        }
+    }
+
+    private OAuth2AuthorizationRequest decode(String value) {
+        int dot = value.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payload = decoder.decode(value.substring(0, dot));
+            byte[] signature = decoder.decode(value.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                logger.warn("⚠️ Cookie OAuth2 con firma inválida");
+                return null;
+            }
+
+            try (DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload))) {
+                if (data.readLong() < System.currentTimeMillis()) {
+                    logger.debug("Cookie OAuth2 expirada");
+                    return null;
+                }
+                try (ObjectInputStream in = new ObjectInputStream(data)) {
+                    // Defensa adicional: solo tipos de Spring Security y de la JDK
+                    in.setObjectInputFilter(ObjectInputFilter.Config.createFilter(
+                            "org.springframework.security.**;java.**;!*"));
+                    return (OAuth2AuthorizationRequest) in.readObject();
+                }
+            }
+        } catch (IllegalArgumentException | IOException | ClassNotFoundException
+                 | ClassCastException | GeneralSecurityException e) {
+            logger.warn("⚠️ Cookie OAuth2 no válida: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] sign(byte[] payload) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+        mac.init(signingKey);
+        return mac.doFinal(payload);
+    }
+
+    private String readCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void writeCookie(HttpServletRequest request, HttpServletResponse response, String value, Duration maxAge) {
+        // SameSite=Lax: el navegador la envía en la redirección GET de vuelta desde Google
+        ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, value)
+                .path("/")
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .sameSite("Lax")
+                .maxAge(maxAge)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
@@ -75,7 +75,7 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
                 }
 
                 // ✅ GENERAR TOKEN Y REDIRIGIR SIEMPRE A HOME
-                String token = tokenProvider.generateToken(email);
+                String token = tokenProvider.generateToken(usuario);
                 
                 // 🔍 Verificar si necesita completar datos
                 boolean needsCompletion = usuario.requiereCompletarDatos();
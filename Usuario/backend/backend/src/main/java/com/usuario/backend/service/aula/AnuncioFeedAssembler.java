@@ -0,0 +1,114 @@
+package com.usuario.backend.service.aula;
+
+import com.usuario.backend.model.dto.AnuncioFeedItem;
+import com.usuario.backend.model.dto.AnuncioStats;
+import com.usuario.backend.model.entity.Anuncio;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Convierte una página de anuncios en tarjetas del feed con un número fijo de consultas, sin
+ * importar el tamaño de la página: una para los autores y las de {@link InteraccionService#getStats}.
+ */
+@Component
+public class AnuncioFeedAssembler {
+
+    // Largo del extracto cuando no se pide el contenido completo
+    public static final int EXTRACTO_MAX = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InteraccionService interaccionService;
+
+    private record Autor(String nombre, String imagenUrl) {
+    }
+
+    public List<AnuncioFeedItem> toItems(List<Anuncio> anuncios, Long usuarioId, boolean contenidoCompleto) {
+        if (anuncios.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = new ArrayList<>(anuncios.size());
+        Set<Integer> autorIds = new LinkedHashSet<>();
+        for (Anuncio anuncio : anuncios) {
+            ids.add(anuncio.getId());
+            if (anuncio.getAutorId() != null) {
+                autorIds.add(anuncio.getAutorId());
+            }
+        }
+
+        Map<Integer, Autor> autores = autores(autorIds);
+        Map<Long, AnuncioStats> stats = interaccionService.getStats(ids, usuarioId);
+
+        List<AnuncioFeedItem> items = new ArrayList<>(anuncios.size());
+        for (Anuncio anuncio : anuncios) {
+            Autor autor = autores.get(anuncio.getAutorId());
+            String contenido = anuncio.getContenido();
+            boolean completo = contenidoCompleto || contenido == null || contenido.length() <= EXTRACTO_MAX;
+            items.add(new AnuncioFeedItem(
+                    anuncio.getId(),
+                    anuncio.getTitulo(),
+                    completo ? contenido : extracto(contenido),
+                    completo,
+                    anuncio.getTipo(),
+                    anuncio.getCategoria(),
+                    anuncio.getEtiquetas(),
+                    anuncio.getArchivoUrl(),
+                    anuncio.getArchivoNombre(),
+                    anuncio.getArchivoTipo(),
+                    anuncio.getArchivoTamaño(),
+                    anuncio.getPreviewUrl(),
+                    anuncio.getAulaId(),
+                    Boolean.TRUE.equals(anuncio.getEsGeneral()),
+                    Boolean.TRUE.equals(anuncio.getFijado()),
+                    !Boolean.FALSE.equals(anuncio.getPermiteComentarios()),
+                    anuncio.getFechaPublicacion(),
+                    anuncio.getFechaEdicion(),
+                    anuncio.getAutorId(),
+                    autor != null ? autor.nombre() : null,
+                    autor != null ? autor.imagenUrl() : null,
+                    stats.get(anuncio.getId())));
+        }
+        return items;
+    }
+
+    private Map<Integer, Autor> autores(Set<Integer> autorIds) {
+        if (autorIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Integer, Autor> autores = new HashMap<>();
+        jdbcTemplate.query(sqlAutores(autorIds.size()),
+                rs -> {
+                    autores.put(rs.getInt("id"), new Autor(
+                            rs.getString("nombre") + " " + rs.getString("apellidos"),
+                            rs.getString("profile_image_url")));
+                },
+                autorIds.toArray());
+        return autores;
+    }
+
+    /**
+     * Nombre y foto de {@code autores} autores, por clave primaria
+     */
+    public static String sqlAutores(int autores) {
+        String placeholders = String.join(", ", Collections.nCopies(autores, "?"));
+        return "SELECT id, nombre, apellidos, profile_image_url FROM usuarios WHERE id IN (" + placeholders + ")";
+    }
+
+    // Corta en el último espacio antes del tope para no partir palabras
+    private static String extracto(String contenido) {
+        int corte = contenido.lastIndexOf(' ', EXTRACTO_MAX);
+        return contenido.substring(0, corte > EXTRACTO_MAX / 2 ? corte : EXTRACTO_MAX).stripTrailing() + "…";
+    }
+}
@@ -1,34 +1,110 @@
 package com.usuario.backend.service.aula;
 
+import com.usuario.backend.model.dto.AdjuntoAula;
+import com.usuario.backend.model.dto.AnuncioCursor;
+import com.usuario.backend.model.dto.AnuncioFeedItem;
+import com.usuario.backend.model.dto.FeedCursor;
+import com.usuario.backend.model.dto.PaginaAnuncios;
+import com.usuario.backend.model.dto.VersionRecurso;
 import com.usuario.backend.model.entity.Anuncio;
 import com.usuario.backend.repository.AnuncioRepository;
 import com.usuario.backend.service.aula.AulaVirtualService;
+import com.usuario.backend.service.realtime.EventHub;
+import com.usuario.backend.service.storage.AdjuntoService;
+import com.usuario.backend.service.storage.PreviewService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class AnuncioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnuncioService.class);
+
+    // Página del feed: por defecto y tope por petición
+    public static final int DEFAULT_FEED_PAGE = 20;
+    public static final int MAX_FEED_PAGE = 50;
+
+    // Inicio: cada fuente (generales y cada aula) aporta su página ya ordenada por el índice
+    // (…, activo, fecha_publicacion, id) y la consulta externa las mezcla
+    private static final String TIMELINE_ORDEN = " ORDER BY fecha_publicacion DESC, id DESC";
+    private static final String TIMELINE_KEYSET = " AND (fecha_publicacion < ? OR (fecha_publicacion = ? AND id < ?))";
+
+    // Tope de fijados que acompañan a la primera página del inicio
+    public static final int MAX_FIJADOS_INICIO = 50;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Autowired
     private AnuncioRepository anuncioRepository;
     @Autowired
     private AulaVirtualService aulaVirtualService;
+    @Autowired
+    private EventHub eventHub;
+    @Autowired
+    private AnuncioFeedAssembler feedAssembler;
+    @Autowired
+    private AdjuntoService adjuntoService;
+
+    @Autowired
+    private PreviewService previewService;
+
+    @Autowired
+    private InteraccionService interaccionService;
+
+    /**
+     * Versión del feed del aula para GET condicional; valida el acceso igual que la página.
+     * Incluye el estado propio del usuario: las tarjetas llevan userRead y userLiked.
+     */
+    public VersionRecurso getVersionDeAula(Long usuarioId, String rol, Integer aulaId) {
+        if (!aulaVirtualService.puedeAccederAAula(usuarioId, rol, aulaId)) {
+            throw new SecurityException("No tiene permiso para ver los anuncios de este aula");
+        }
+        return VersionRecurso.de(anuncioRepository.findUltimaActividadDeAula(aulaId))
+                .conEstadoDeUsuario(interaccionService.getVersionDeUsuario(usuarioId));
+    }
 
-    public List<Anuncio> getAnunciosDeAula(Long usuarioId, String rol, Integer aulaId) {
-        System.out.println("[AnuncioService] usuarioId=" + usuarioId + ", rol=" + rol + ", aulaId=" + aulaId);
-        boolean acceso = aulaVirtualService.puedeAccederAAula(usuarioId, rol, aulaId);
-        System.out.println("[AnuncioService] Acceso a aula: " + acceso);
-        if (!acceso) {
-            System.out.println("[AnuncioService] Acceso denegado para usuario " + usuarioId + " en aula " + aulaId);
+    public VersionRecurso getVersionGeneral(Long usuarioId) {
+        return VersionRecurso.de(anuncioRepository.findUltimaActividadGeneral())
+                .conEstadoDeUsuario(interaccionService.getVersionDeUsuario(usuarioId));
+    }
+
+    /**
+     * Página del feed del aula, fijados primero y luego del más reciente al más antiguo.
+     * {@code cursor} es el nextCursor de la página anterior (null para la primera).
+     */
+    public PaginaAnuncios getAnunciosDeAula(Long usuarioId, String rol, Integer aulaId, String cursor, Integer limit,
+                                            boolean contenidoCompleto) {
+        if (!aulaVirtualService.puedeAccederAAula(usuarioId, rol, aulaId)) {
+            logger.debug("🚫 Acceso denegado a los anuncios del aula {} para usuario {} ({})", aulaId, usuarioId, rol);
             throw new SecurityException("No tiene permiso para ver los anuncios de este aula");
         }
-        List<Anuncio> anuncios = anuncioRepository.findByAulaIdAndActivoTrueOrderByFechaPublicacionDesc(aulaId);
-        System.out.println("[AnuncioService] Anuncios retornados: " + (anuncios != null ? anuncios.size() : 0));
-        return anuncios;
+        Pageable pageable = PageRequest.of(0, pageSize(limit));
+        Slice<Anuncio> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = anuncioRepository.findPaginaDeAula(aulaId, pageable);
+        } else {
+            AnuncioCursor c = AnuncioCursor.decode(cursor);
+            slice = anuncioRepository.findPaginaDeAulaDespuesDe(aulaId, c.fijado(), c.fechaPublicacion(), c.id(), pageable);
+        }
+        logger.debug("📋 Aula {}: {} anuncios para usuario {}", aulaId, slice.getNumberOfElements(), usuarioId);
+        return page(slice, usuarioId, contenidoCompleto);
     }
 
-    public Anuncio crearAnuncio(Long usuarioId, String rol, Integer aulaId, Anuncio anuncio) {
-        // Verifica acceso antes de crear anuncio
+    public Anuncio crearAnuncio(Long usuarioId, String rol, Integer aulaId, Anuncio anuncio, MultipartFile archivo) {
+        // Verifica acceso antes de crear anuncio (y antes de escribir el adjunto)
         if (!aulaVirtualService.puedeAccederAAula(usuarioId, rol, aulaId)) {
             throw new SecurityException("No tiene permiso para crear anuncios en este aula");
         }
@@ -37,23 +113,182 @@ public class AnuncioService {
         anuncio.setFechaPublicacion(java.time.LocalDateTime.now());
         anuncio.setActivo(true);
         // tipo ya es String, no requiere conversión
-        return anuncioRepository.save(anuncio);
+        adjuntoService.adjuntar(anuncio, archivo);
+        Anuncio guardado = guardarConAdjunto(anuncio);
+        previewService.encolar(guardado);
+        eventHub.publishAnuncio(guardado);
+        return guardado;
+    }
+
+    /**
+     * Página de anuncios generales, en el mismo orden que el feed del aula
+     */
+    public PaginaAnuncios getAnunciosGenerales(Long usuarioId, String cursor, Integer limit, boolean contenidoCompleto) {
+        Pageable pageable = PageRequest.of(0, pageSize(limit));
+        Slice<Anuncio> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = anuncioRepository.findPaginaGeneral(pageable);
+        } else {
+            AnuncioCursor c = AnuncioCursor.decode(cursor);
+            slice = anuncioRepository.findPaginaGeneralDespuesDe(c.fijado(), c.fechaPublicacion(), c.id(), pageable);
+        }
+        return page(slice, usuarioId, contenidoCompleto);
+    }
+
+    /**
+     * Un anuncio con su contenido completo (p. ej. al expandir el extracto de una tarjeta)
+     */
+    public AnuncioFeedItem getAnuncio(Long usuarioId, String rol, Long anuncioId) {
+        return feedAssembler.toItems(List.of(getAnuncioAccesible(usuarioId, rol, anuncioId)), usuarioId, true).get(0);
+    }
+
+    /**
+     * Adjuntos de los anuncios activos del aula, en orden de publicación (para el ZIP del aula)
+     */
+    public List<AdjuntoAula> getAdjuntosDeAula(Long usuarioId, String rol, Integer aulaId) {
+        if (!aulaVirtualService.puedeAccederAAula(usuarioId, rol, aulaId)) {
+            throw new SecurityException("No tiene permiso para ver los archivos de este aula");
+        }
+        return anuncioRepository.findAdjuntosDeAula(aulaId);
+    }
+
+    /**
+     * Anuncio activo que el usuario puede ver: los generales todos, los de aula con acceso al aula
+     */
+    public Anuncio getAnuncioAccesible(Long usuarioId, String rol, Long anuncioId) {
+        Anuncio anuncio = anuncioRepository.findById(anuncioId)
+                .filter(a -> !Boolean.FALSE.equals(a.getActivo()))
+                .orElseThrow(() -> new IllegalArgumentException("Anuncio no encontrado"));
+        if (!Boolean.TRUE.equals(anuncio.getEsGeneral())
+                && !aulaVirtualService.puedeAccederAAula(usuarioId, rol, anuncio.getAulaId())) {
+            throw new SecurityException("No tiene permiso para ver este anuncio");
+        }
+        return anuncio;
+    }
+
+    /**
+     * 🏠 Inicio del usuario: anuncios generales y de todas sus aulas en un solo stream, del más
+     * reciente al más antiguo, en una consulta. Cada rama del UNION ALL lee como mucho una página
+     * de su fuente por índice, así el coste no crece con la antigüedad de las aulas.
+     */
+    public PaginaAnuncios getFeed(Long usuarioId, String rol, String cursor, Integer limit, boolean contenidoCompleto) {
+        int size = pageSize(limit);
+        FeedCursor after = (cursor == null || cursor.isBlank()) ? null : FeedCursor.decode(cursor);
+        List<Long> aulaIds = aulaVirtualService.getAulaIdsAccesibles(usuarioId, rol);
+
+        List<Object> params = new ArrayList<>();
+        addRama(params, null, after, size);
+        for (Long aulaId : aulaIds) {
+            addRama(params, aulaId.intValue(), after, size);
+        }
+        params.add(size + 1);
+        List<Anuncio> rows = ejecutar(sqlInicio(aulaIds.size(), after != null), params);
+
+        boolean hasMore = rows.size() > size;
+        List<Anuncio> anuncios = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasMore ? FeedCursor.of(anuncios.get(anuncios.size() - 1)).encode() : null;
+        // Los fijados van aparte y solo con la primera página: el stream ordena por fecha y un fijado
+        // antiguo no estaría en las páginas cargadas
+        List<AnuncioFeedItem> fijados = after == null
+                ? feedAssembler.toItems(ejecutar(sqlFijados(aulaIds.size()), paramsFijados(aulaIds)), usuarioId, contenidoCompleto)
+                : null;
+        return new PaginaAnuncios(feedAssembler.toItems(anuncios, usuarioId, contenidoCompleto), nextCursor, hasMore, fijados);
+    }
+
+    /**
+     * SQL de {@link #getFeed}: una rama para los generales y una por cada una de las {@code aulas} aulas;
+     * con cursor cada rama lleva el keyset. Parámetros por rama: [aula], [fecha, fecha, id], límite;
+     * al final el límite total.
+     */
+    public static String sqlInicio(int aulas, boolean conCursor) {
+        String rama = " AND activo = true" + (conCursor ? TIMELINE_KEYSET : "") + TIMELINE_ORDEN + " LIMIT ?)";
+        List<String> ramas = new ArrayList<>();
+        ramas.add("(SELECT * FROM anuncios WHERE es_general = true" + rama);
+        for (int i = 0; i < aulas; i++) {
+            ramas.add("(SELECT * FROM anuncios WHERE aula_id = ?" + rama);
+        }
+        return "SELECT * FROM (" + String.join(" UNION ALL ", ramas) + ") feed" + TIMELINE_ORDEN + " LIMIT ?";
+    }
+
+    // Parámetros de una rama de sqlInicio; aulaId es null en la de generales
+    private static void addRama(List<Object> params, Integer aulaId, FeedCursor after, int size) {
+        if (aulaId != null) {
+            params.add(aulaId);
+        }
+        if (after != null) {
+            params.add(after.fechaPublicacion());
+            params.add(after.fechaPublicacion());
+            params.add(after.id());
+        }
+        params.add(size + 1);
+    }
+
+    /**
+     * Fijados activos de los generales y de {@code aulas} aulas, del más reciente al más antiguo.
+     * Cada rama lee por el índice (…, activo, fijado, fecha_publicacion, id).
+     */
+    public static String sqlFijados(int aulas) {
+        String rama = " AND activo = true AND fijado = true" + TIMELINE_ORDEN + " LIMIT ?)";
+        List<String> ramas = new ArrayList<>();
+        ramas.add("(SELECT * FROM anuncios WHERE es_general = true" + rama);
+        for (int i = 0; i < aulas; i++) {
+            ramas.add("(SELECT * FROM anuncios WHERE aula_id = ?" + rama);
+        }
+        return "SELECT * FROM (" + String.join(" UNION ALL ", ramas) + ") fijados" + TIMELINE_ORDEN + " LIMIT ?";
     }
 
-    public List<Anuncio> getAnunciosGenerales() {
-        return anuncioRepository.findByEsGeneralTrueAndActivoTrueOrderByFechaPublicacionDesc();
+    private static List<Object> paramsFijados(List<Long> aulaIds) {
+        List<Object> params = new ArrayList<>();
+        params.add(MAX_FIJADOS_INICIO);
+        for (Long aulaId : aulaIds) {
+            params.add(aulaId.intValue());
+            params.add(MAX_FIJADOS_INICIO);
+        }
+        params.add(MAX_FIJADOS_INICIO);
+        return params;
     }
 
-    public Anuncio crearAnuncioGeneral(Long usuarioId, String rol, Anuncio anuncio) {
+    @SuppressWarnings("unchecked")
+    private List<Anuncio> ejecutar(String sql, List<Object> params) {
+        Query query = entityManager.createNativeQuery(sql, Anuncio.class);
+        for (int i = 0; i < params.size(); i++) {
+            query.setParameter(i + 1, params.get(i));
+        }
+        return query.getResultList();
+    }
+
+    public Anuncio crearAnuncioGeneral(Long usuarioId, String rol, Anuncio anuncio, MultipartFile archivo) {
         anuncio.setAulaId(null);
         anuncio.setAutorId(usuarioId.intValue());
         anuncio.setFechaPublicacion(java.time.LocalDateTime.now());
         anuncio.setActivo(true);
         anuncio.setEsGeneral(true);
-        return anuncioRepository.save(anuncio);
+        adjuntoService.adjuntar(anuncio, archivo);
+        Anuncio guardado = guardarConAdjunto(anuncio);
+        previewService.encolar(guardado);
+        eventHub.publishAnuncio(guardado);
+        return guardado;
+    }
+
+    // La URL de un adjunto servido por el backend lleva el id, que solo existe tras el INSERT
+    private Anuncio guardarConAdjunto(Anuncio anuncio) {
+        Anuncio guardado = anuncioRepository.save(anuncio);
+        return adjuntoService.completarUrl(guardado) ? anuncioRepository.save(guardado) : guardado;
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_FEED_PAGE;
+        }
+        if (limit < 1 || limit > MAX_FEED_PAGE) {
+            throw new IllegalArgumentException("limit debe estar entre 1 y " + MAX_FEED_PAGE);
+        }
+        return limit;
     }
 
-    public List<Anuncio> getTodosLosAnuncios() {
-        return anuncioRepository.findAll();
+    private PaginaAnuncios page(Slice<Anuncio> slice, Long usuarioId, boolean contenidoCompleto) {
+        List<Anuncio> anuncios = slice.getContent();
+        String nextCursor = slice.hasNext() ? AnuncioCursor.of(anuncios.get(anuncios.size() - 1)).encode() : null;
+        return new PaginaAnuncios(feedAssembler.toItems(anuncios, usuarioId, contenidoCompleto), nextCursor, slice.hasNext());
     }
 }
@@ -1,9 +1,11 @@
 package com.usuario.backend.service.aula;
 
+import com.usuario.backend.model.dto.VersionRecurso;
 import com.usuario.backend.model.entity.AulaVirtual;
 import com.usuario.backend.model.entity.AulaEstudiante;
 import com.usuario.backend.repository.AulaVirtualRepository;
 import com.usuario.backend.repository.AulaEstudianteRepository;
+import com.usuario.backend.service.realtime.EventHub;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +24,9 @@ public class AulaVirtualService {
     @Autowired
     private AulaEstudianteRepository aulaEstudianteRepository;
 
+    @Autowired
+    private EventHub eventHub;
+
     /**
      * 🔥 MÉTODO PRINCIPAL: Obtiene aulas según el rol del usuario
      */
@@ -102,6 +107,7 @@ public class AulaVirtualService {
                 aulaEstudianteRepository.save(aulaEstudiante);
                 logger.info("Estudiante {} agregado al aula {} exitosamente", estudianteId, aulaId);
             }
+            eventHub.joinAula(estudianteId, aulaId);
         } catch (Exception e) {
             logger.error("Error al agregar estudiante {} al aula {}: {}", estudianteId, aulaId, e.getMessage());
             throw e;
@@ -132,6 +138,30 @@ public class AulaVirtualService {
         }
     }
 
+    /**
+     * Ids de las aulas a las que el usuario tiene acceso, con el mismo criterio que puedeAccederAAula
+     */
+    public List<Long> getAulaIdsAccesibles(Long usuarioId, String rol) {
+        if ("PROFESOR".equalsIgnoreCase(rol)) {
+            return aulaVirtualRepository.findIdsByProfesorId(usuarioId);
+        } else if ("ESTUDIANTE".equalsIgnoreCase(rol)) {
+            return aulaEstudianteRepository.findAulaIdsByEstudianteId(usuarioId);
+        }
+        return List.of();
+    }
+
+    /**
+     * Versión de la lista de aulas del usuario (misma selección que getAulasByUsuario) para GET condicional
+     */
+    public VersionRecurso getVersionAulas(Long usuarioId, String rol) {
+        if ("PROFESOR".equalsIgnoreCase(rol)) {
+            return aulaVirtualRepository.findVersionByProfesorId(usuarioId);
+        } else if ("ESTUDIANTE".equalsIgnoreCase(rol)) {
+            return aulaEstudianteRepository.findVersionByEstudianteId(usuarioId);
+        }
+        return VersionRecurso.de(null);
+    }
+
     /**
      * 🔥 VERIFICAR SI USUARIO PUEDE ACCEDER AL AULA
      */
@@ -200,6 +230,7 @@ public class AulaVirtualService {
             participante.setFechaSalida(java.time.LocalDateTime.now());
             aulaEstudianteRepository.save(participante);
             logger.info("Participante {} desactivado en aula {}", estudianteId, aulaId);
+            eventHub.leaveAula(estudianteId, aulaId);
             return true;
         } catch (Exception e) {
             logger.error("Error al eliminar participante {} del aula {}: {}", estudianteId, aulaId, e.getMessage());
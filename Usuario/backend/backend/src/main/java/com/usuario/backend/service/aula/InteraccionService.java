@@ -0,0 +1,540 @@
+package com.usuario.backend.service.aula;
+
+import com.usuario.backend.model.dto.AnuncioStats;
+import com.usuario.backend.model.dto.ComentarioCursor;
+import com.usuario.backend.model.dto.ComentarioDto;
+import com.usuario.backend.model.dto.PaginaComentarios;
+import com.usuario.backend.model.dto.ResumenLecturas;
+import com.usuario.backend.model.entity.Anuncio;
+import com.usuario.backend.model.entity.Comentario;
+import com.usuario.backend.repository.AnuncioRepository;
+import com.usuario.backend.repository.AulaEstudianteRepository;
+import com.usuario.backend.repository.LikeRepository;
+import com.usuario.backend.service.realtime.EventHub;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Service
+public class InteraccionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InteraccionService.class);
+
+    // Tope de ids por lote: una página de feed cabe con holgura
+    public static final int MAX_BATCH_SIZE = 100;
+
+    // Página de comentarios: por defecto y tope por petición
+    public static final int DEFAULT_COMMENTS_PAGE = 20;
+    public static final int MAX_COMMENTS_PAGE = 100;
+    // Respuestas que acompañan a cada raíz en el modo hilos; el resto se pide con listarRespuestas
+    public static final int RESPUESTAS_POR_HILO = 3;
+
+    private static final String COMENTARIO_COLUMNS =
+        "c.id, c.contenido, c.fecha_creacion, c.usuario_id, u.nombre, u.apellidos, c.comentario_padre_id";
+
+    // Keyset sobre (fecha_creacion, id): la siguiente página empieza justo después del cursor
+    private static final String KEYSET =
+        " AND (c.fecha_creacion > ? OR (c.fecha_creacion = ? AND c.id > ?))";
+
+    private static final String ORDEN_PAGINA = " ORDER BY c.fecha_creacion, c.id LIMIT ?";
+
+    public static final String LIKES_DE_USUARIO =
+        "SELECT l.anuncioId FROM Like l WHERE l.usuarioId = :usuarioId";
+    public static final String LIKES_DE_USUARIO_EN =
+        "SELECT l.anuncioId FROM Like l WHERE l.usuarioId = :usuarioId AND l.anuncioId IN :ids";
+    public static final String LECTURAS_DE_USUARIO_EN =
+        "SELECT l.anuncioId FROM Lectura l WHERE l.usuarioId = :usuarioId AND l.anuncioId IN :ids";
+
+    private static final RowMapper<ComentarioDto> COMENTARIO_MAPPER = (rs, rowNum) -> new ComentarioDto(
+        rs.getLong("id"),
+        rs.getString("contenido"),
+        rs.getObject("fecha_creacion", LocalDateTime.class),
+        rs.getInt("usuario_id"),
+        rs.getString("nombre") + " " + rs.getString("apellidos"),
+        rs.getObject("comentario_padre_id", Long.class),
+        null, null, null);
+
+    // Versión del estado propio del usuario en el feed: la suben las escrituras de likes y lecturas
+    static final String SUBIR_VERSION_USUARIO =
+        "UPDATE usuarios SET version_interacciones = version_interacciones + 1 WHERE id = ?";
+
+    public static final String VERSION_USUARIO = "SELECT version_interacciones FROM usuarios WHERE id = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AnuncioRepository anuncioRepository;
+
+    @Autowired
+    private LikeAggregator likeAggregator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LikeRepository likeRepository;
+
+    @Autowired
+    private LecturaIngestor lecturaIngestor;
+
+    @Autowired
+    private LecturaIndex lecturaIndex;
+
+    @Autowired
+    private AulaEstudianteRepository aulaEstudianteRepository;
+
+    @Autowired
+    private AulaVirtualService aulaVirtualService;
+
+    @Autowired
+    private EventHub eventHub;
+
+    // ========== LIKES ==========
+
+    /**
+     * ❤️ Alterna el like del usuario. El cambio se acumula en {@link LikeAggregator} y se escribe
+     * por lotes (junto con total_likes); devuelve el estado resultante.
+     */
+    public boolean toggleLike(Long anuncioId, Long usuarioId) {
+        return likeAggregator.toggle(anuncioId, usuarioId.intValue());
+    }
+
+    /**
+     * ❤️ Fija el estado del like con una sola sentencia por clave única; repetirla no cambia nada.
+     * Devuelve las filas afectadas (0 = ya estaba en ese estado) y ajusta total_likes solo si hubo cambio.
+     */
+    public int setLike(Long anuncioId, Long usuarioId, boolean liked) {
+        // Antes de abrir la transacción: discard puede esperar al flush en curso, y esperar con una
+        // conexión del pool tomada compite con el propio flush por el pool
+        likeAggregator.discard(anuncioId, usuarioId.intValue());
+
+        return transactionTemplate.execute(status -> {
+            int affected = liked
+                ? likeRepository.insertarSiNoExiste(usuarioId.intValue(), anuncioId)
+                : likeRepository.eliminarPorClave(usuarioId.intValue(), anuncioId);
+            if (affected > 0) {
+                anuncioRepository.incrementarLikes(anuncioId, liked ? 1 : -1, LocalDateTime.now());
+                jdbcTemplate.update(SUBIR_VERSION_USUARIO, usuarioId);
+                eventHub.publishStatsDelta(anuncioId, liked ? 1 : -1, 0);
+            }
+            return affected;
+        });
+    }
+
+    /**
+     * 📋 Anuncios con like del usuario, incluyendo sus cambios aún no escritos
+     */
+    @Transactional(readOnly = true)
+    public List<Long> getAnunciosConLike(Long usuarioId) {
+        Set<Long> liked = new LinkedHashSet<>(entityManager
+            .createQuery(LIKES_DE_USUARIO, Long.class)
+            .setParameter("usuarioId", usuarioId.intValue())
+            .getResultList());
+        likeAggregator.pendingForUser(usuarioId.intValue()).forEach((anuncioId, state) -> {
+            if (state) {
+                liked.add(anuncioId);
+            } else {
+                liked.remove(anuncioId);
+            }
+        });
+        return new ArrayList<>(liked);
+    }
+
+    /**
+     * 🔢 Total de likes leído de la columna denormalizada
+     */
+    @Transactional(readOnly = true)
+    public long contarLikes(Long anuncioId) {
+        return anuncioRepository.findById(anuncioId)
+            .map(Anuncio::getTotalLikes)
+            .map(Integer::longValue)
+            .orElse(0L);
+    }
+
+    // ========== COMENTARIOS ==========
+
+    /**
+     * 💬 Agrega un comentario y ajusta total_comentarios en la misma transacción
+     */
+    @Transactional
+    public Comentario agregarComentario(Long anuncioId, Long usuarioId, String contenido) {
+        return agregarComentario(anuncioId, usuarioId, contenido, null);
+    }
+
+    /**
+     * 💬 Agrega un comentario o una respuesta. Los hilos tienen dos niveles: responder a una
+     * respuesta la cuelga del comentario raíz, así un hilo completo se carga con una sola consulta.
+     */
+    @Transactional
+    public Comentario agregarComentario(Long anuncioId, Long usuarioId, String contenido, Long comentarioPadreId) {
+        Long raizId = null;
+        if (comentarioPadreId != null) {
+            Comentario padre = entityManager.find(Comentario.class, comentarioPadreId);
+            if (padre == null || !anuncioId.equals(padre.getAnuncioId()) || !Boolean.TRUE.equals(padre.getActivo())) {
+                throw new IllegalArgumentException("Comentario padre no encontrado");
+            }
+            raizId = padre.getComentarioPadreId() != null ? padre.getComentarioPadreId() : padre.getId();
+        }
+
+        Comentario comentario = new Comentario(usuarioId.intValue(), anuncioId, contenido, raizId);
+        entityManager.persist(comentario);
+        anuncioRepository.incrementarComentarios(anuncioId, 1, LocalDateTime.now());
+        eventHub.publishStatsDelta(anuncioId, 0, 1);
+        return comentario;
+    }
+
+    /**
+     * 💬 Página de comentarios activos en orden cronológico (respuestas incluidas, planas)
+     */
+    public PaginaComentarios listarComentarios(Long anuncioId, String cursor, Integer limit) {
+        int size = pageSize(limit);
+        List<Object> params = new ArrayList<>(List.of(anuncioId));
+        boolean conCursor = addKeyset(params, cursor);
+        params.add(size + 1);
+
+        List<ComentarioDto> rows = jdbcTemplate.query(sqlComentarios(conCursor), COMENTARIO_MAPPER, params.toArray());
+        return page(rows, size);
+    }
+
+    /**
+     * SQL de {@link #listarComentarios}; con cursor lleva el keyset.
+     * Parámetros: anuncio, [fecha, fecha, id], límite.
+     */
+    public static String sqlComentarios(boolean conCursor) {
+        return "SELECT " + COMENTARIO_COLUMNS
+            + " FROM comentarios c JOIN usuarios u ON u.id = c.usuario_id"
+            + " WHERE c.anuncio_id = ? AND c.activo = true"
+            + (conCursor ? KEYSET : "") + ORDEN_PAGINA;
+    }
+
+    /**
+     * 🧵 Página de comentarios raíz con sus primeras {@link #RESPUESTAS_POR_HILO} respuestas, en una sola
+     * consulta: el CTE elige las raíces de la página, ROW_NUMBER numera las respuestas de cada raíz sobre
+     * el índice (comentario_padre_id, activo, fecha_creacion, id) y solo las primeras se unen con el autor.
+     * Cada raíz lleva el total de respuestas y el cursor para pedir el resto con {@link #listarRespuestas}.
+     * Un único JOIN con OR entre raíz y respuestas no puede usar índice y recorre toda la tabla.
+     */
+    public PaginaComentarios listarHilos(Long anuncioId, String cursor, Integer limit) {
+        int size = pageSize(limit);
+        List<Object> params = new ArrayList<>(List.of(anuncioId));
+        boolean conCursor = addKeyset(params, cursor);
+        params.add(size + 1);
+        params.add(RESPUESTAS_POR_HILO);
+
+        Map<Long, ComentarioDto> roots = new LinkedHashMap<>();
+        Map<Long, List<ComentarioDto>> replies = new HashMap<>();
+        Map<Long, Integer> totales = new HashMap<>();
+        jdbcTemplate.query(sqlHilos(conCursor), rs -> {
+            ComentarioDto row = COMENTARIO_MAPPER.mapRow(rs, 0);
+            if (row.comentarioPadreId() == null) {
+                roots.put(row.id(), row);
+            } else {
+                replies.computeIfAbsent(row.comentarioPadreId(), id -> new ArrayList<>()).add(row);
+                totales.put(row.comentarioPadreId(), rs.getInt("total_respuestas"));
+            }
+        }, params.toArray());
+
+        List<ComentarioDto> hilos = new ArrayList<>(roots.size());
+        roots.forEach((id, root) -> {
+            List<ComentarioDto> primeras = replies.getOrDefault(id, List.of());
+            int total = totales.getOrDefault(id, 0);
+            String restoCursor = null;
+            if (total > primeras.size()) {
+                ComentarioDto ultima = primeras.get(primeras.size() - 1);
+                restoCursor = new ComentarioCursor(ultima.fechaCreacion(), ultima.id()).encode();
+            }
+            hilos.add(root.withRespuestas(primeras, total, restoCursor));
+        });
+        return page(hilos, size);
+    }
+
+    /**
+     * SQL de {@link #listarHilos}; con cursor las raíces llevan el keyset.
+     * Parámetros: anuncio, [fecha, fecha, id], límite de raíces, respuestas por hilo.
+     */
+    public static String sqlHilos(boolean conCursor) {
+        String raices = "SELECT c.id FROM comentarios c"
+            + " WHERE c.anuncio_id = ? AND c.activo = true AND c.comentario_padre_id IS NULL"
+            + (conCursor ? KEYSET : "") + ORDEN_PAGINA;
+        return "WITH raiz AS (" + raices + "),"
+            + " respuesta AS (SELECT c.id,"
+            + " ROW_NUMBER() OVER (PARTITION BY c.comentario_padre_id ORDER BY c.fecha_creacion, c.id) AS n,"
+            + " COUNT(*) OVER (PARTITION BY c.comentario_padre_id) AS total"
+            + " FROM raiz JOIN comentarios c ON c.comentario_padre_id = raiz.id AND c.activo = true)"
+            + " SELECT " + COMENTARIO_COLUMNS + ", 0 AS total_respuestas"
+            + " FROM raiz JOIN comentarios c ON c.id = raiz.id"
+            + " JOIN usuarios u ON u.id = c.usuario_id"
+            + " UNION ALL"
+            + " SELECT " + COMENTARIO_COLUMNS + ", respuesta.total AS total_respuestas"
+            + " FROM respuesta JOIN comentarios c ON c.id = respuesta.id"
+            + " JOIN usuarios u ON u.id = c.usuario_id"
+            + " WHERE respuesta.n <= ?"
+            + " ORDER BY fecha_creacion, id";
+    }
+
+    /**
+     * 🧵 Página de respuestas de un comentario raíz, a partir del {@code respuestasCursor} del hilo
+     */
+    public PaginaComentarios listarRespuestas(Long comentarioId, String cursor, Integer limit) {
+        int size = pageSize(limit);
+        List<Object> params = new ArrayList<>(List.of(comentarioId));
+        boolean conCursor = addKeyset(params, cursor);
+        params.add(size + 1);
+
+        List<ComentarioDto> rows = jdbcTemplate.query(sqlRespuestas(conCursor), COMENTARIO_MAPPER, params.toArray());
+        return page(rows, size);
+    }
+
+    /**
+     * SQL de {@link #listarRespuestas}; con cursor lleva el keyset.
+     * Parámetros: comentario raíz, [fecha, fecha, id], límite.
+     */
+    public static String sqlRespuestas(boolean conCursor) {
+        return "SELECT " + COMENTARIO_COLUMNS
+            + " FROM comentarios c JOIN usuarios u ON u.id = c.usuario_id"
+            + " WHERE c.comentario_padre_id = ? AND c.activo = true"
+            + (conCursor ? KEYSET : "") + ORDEN_PAGINA;
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_COMMENTS_PAGE;
+        }
+        if (limit < 1 || limit > MAX_COMMENTS_PAGE) {
+            throw new IllegalArgumentException("limit debe estar entre 1 y " + MAX_COMMENTS_PAGE);
+        }
+        return limit;
+    }
+
+    // Añade los parámetros del keyset si hay cursor; el SQL lo incluye según lo que devuelve
+    private static boolean addKeyset(List<Object> params, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return false;
+        }
+        ComentarioCursor position = ComentarioCursor.decode(cursor);
+        params.add(position.fechaCreacion());
+        params.add(position.fechaCreacion());
+        params.add(position.id());
+        return true;
+    }
+
+    // Se pide una fila de más para saber si hay otra página sin un COUNT aparte
+    private static PaginaComentarios page(List<ComentarioDto> rows, int size) {
+        boolean hasMore = rows.size() > size;
+        List<ComentarioDto> comentarios = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            ComentarioDto last = comentarios.get(comentarios.size() - 1);
+            nextCursor = new ComentarioCursor(last.fechaCreacion(), last.id()).encode();
+        }
+        return new PaginaComentarios(new ArrayList<>(comentarios), nextCursor, hasMore);
+    }
+
+    /**
+     * 🗑️ Desactiva un comentario (autor del comentario o autor del anuncio).
+     * Solo descuenta si el comentario estaba activo, así repetir la llamada no descuadra el total.
+     */
+    @Transactional
+    public boolean desactivarComentario(Long comentarioId, Long usuarioId) {
+        Comentario comentario = entityManager.find(Comentario.class, comentarioId);
+        if (comentario == null) {
+            throw new IllegalArgumentException("Comentario no encontrado");
+        }
+
+        Anuncio anuncio = anuncioRepository.findById(comentario.getAnuncioId()).orElse(null);
+        boolean esAutorComentario = comentario.getUsuarioId() != null && comentario.getUsuarioId().longValue() == usuarioId;
+        boolean esAutorAnuncio = anuncio != null && anuncio.getAutorId() != null && anuncio.getAutorId().longValue() == usuarioId;
+        if (!esAutorComentario && !esAutorAnuncio) {
+            throw new SecurityException("No tienes permiso para eliminar este comentario");
+        }
+
+        int updated = entityManager
+            .createQuery("UPDATE Comentario c SET c.activo = false WHERE c.id = :id AND c.activo = true")
+            .setParameter("id", comentarioId)
+            .executeUpdate();
+        if (updated > 0) {
+            anuncioRepository.incrementarComentarios(comentario.getAnuncioId(), -1, LocalDateTime.now());
+            eventHub.publishStatsDelta(comentario.getAnuncioId(), 0, -1);
+        }
+        return updated > 0;
+    }
+
+    // ========== LECTURAS ==========
+
+    /**
+     * 📖 Registra la lectura de forma asíncrona en {@link LecturaIngestor}.
+     * Devuelve false si la cola está llena y el cliente debe reintentar.
+     */
+    public boolean marcarLeido(Long anuncioId, Long usuarioId) {
+        return lecturaIngestor.submit(anuncioId, usuarioId.intValue());
+    }
+
+    /**
+     * 📖 Registra las lecturas de todos los anuncios visibles; devuelve cuántas se aceptaron
+     */
+    public int marcarLeidos(Collection<Long> anuncioIds, Long usuarioId) {
+        return lecturaIngestor.submitAll(anuncioIds, usuarioId.intValue());
+    }
+
+    /**
+     * 📖 Quién leyó el anuncio y quién del aula falta, resuelto sobre {@link LecturaIndex}.
+     * Solo para el autor del anuncio o el profesor del aula.
+     */
+    public ResumenLecturas resumenLecturas(Long anuncioId, Long usuarioId, String rol) {
+        Anuncio anuncio = anuncioRepository.findById(anuncioId)
+            .orElseThrow(() -> new IllegalArgumentException("Anuncio no encontrado"));
+
+        boolean esAutor = anuncio.getAutorId() != null && anuncio.getAutorId().longValue() == usuarioId;
+        boolean esProfesorDelAula = "PROFESOR".equalsIgnoreCase(rol) && anuncio.getAulaId() != null
+            && aulaVirtualService.puedeAccederAAula(usuarioId, rol, anuncio.getAulaId());
+        if (!esAutor && !esProfesorDelAula) {
+            throw new SecurityException("No tienes permiso para ver las lecturas de este anuncio");
+        }
+
+        RoaringBitmap roster = new RoaringBitmap();
+        if (anuncio.getAulaId() != null) {
+            for (Long estudianteId : aulaEstudianteRepository.findEstudianteIdsByAulaId(anuncio.getAulaId().longValue())) {
+                roster.add(estudianteId.intValue());
+            }
+        }
+
+        RoaringBitmap lectores = lecturaIndex.readers(anuncioId);
+        RoaringBitmap pendientes = lecturaIndex.unread(anuncioId, roster);
+        int totalEstudiantes = roster.getCardinality();
+        int leidosDelAula = totalEstudiantes - pendientes.getCardinality();
+        double porcentaje = totalEstudiantes == 0 ? 0 : Math.round(leidosDelAula * 1000.0 / totalEstudiantes) / 10.0;
+
+        return new ResumenLecturas(anuncioId, lectores.getCardinality(), totalEstudiantes, porcentaje,
+            toIds(lectores), toIds(pendientes));
+    }
+
+    private static List<Long> toIds(RoaringBitmap bitmap) {
+        List<Long> ids = new ArrayList<>(bitmap.getCardinality());
+        bitmap.forEach((int id) -> ids.add((long) id));
+        return ids;
+    }
+
+    // ========== STATS ==========
+
+    /**
+     * 📊 Stats de un anuncio (contadores O(1) desde la fila del anuncio)
+     */
+    @Transactional(readOnly = true)
+    public AnuncioStats getStats(Long anuncioId, Long usuarioId) {
+        return getStats(List.of(anuncioId), usuarioId).get(anuncioId);
+    }
+
+    /**
+     * 📊 Stats de varios anuncios con un número fijo de consultas (2, o 3 sin índice de lecturas), sin importar el tamaño de la página.
+     * Los totales salen de las columnas denormalizadas del anuncio.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, AnuncioStats> getStats(Collection<Long> anuncioIds, Long usuarioId) {
+        Map<Long, AnuncioStats> result = new LinkedHashMap<>();
+        if (anuncioIds == null || anuncioIds.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, Long> likes = new HashMap<>();
+        Map<Long, Long> comentarios = new HashMap<>();
+        for (Object[] row : entityManager
+                .createQuery("SELECT a.id, a.totalLikes, a.totalComentarios FROM Anuncio a WHERE a.id IN :ids", Object[].class)
+                .setParameter("ids", anuncioIds)
+                .getResultList()) {
+            likes.put((Long) row[0], row[1] != null ? ((Integer) row[1]).longValue() : 0L);
+            comentarios.put((Long) row[0], row[2] != null ? ((Integer) row[2]).longValue() : 0L);
+        }
+
+        Set<Long> liked = new HashSet<>(entityManager
+                .createQuery(LIKES_DE_USUARIO_EN, Long.class)
+                .setParameter("usuarioId", usuarioId.intValue())
+                .setParameter("ids", anuncioIds)
+                .getResultList());
+
+        // Desde la BD (clave única usuario_id, anuncio_id) y no del índice: el de este nodo puede ir unos
+        // segundos detrás de las lecturas escritas en otro, y el ETag ya las cuenta
+        Set<Long> read = new HashSet<>(entityManager
+                .createQuery(LECTURAS_DE_USUARIO_EN, Long.class)
+                .setParameter("usuarioId", usuarioId.intValue())
+                .setParameter("ids", anuncioIds)
+                .getResultList());
+
+        for (Long anuncioId : anuncioIds) {
+            // Lectura de lo propio: los likes del usuario aún en el buffer se reflejan ya
+            boolean userLiked = liked.contains(anuncioId);
+            long likesCount = likes.getOrDefault(anuncioId, 0L);
+            Boolean pendingState = likeAggregator.pendingState(anuncioId, usuarioId.intValue());
+            if (pendingState != null && pendingState != userLiked) {
+                likesCount = Math.max(0, likesCount + (pendingState ? 1 : -1));
+                userLiked = pendingState;
+            }
+
+            result.put(anuncioId, new AnuncioStats(anuncioId, likesCount,
+                    comentarios.getOrDefault(anuncioId, 0L),
+                    userLiked,
+                    read.contains(anuncioId) || lecturaIngestor.isKnownRead(anuncioId, usuarioId.intValue())));
+        }
+        return result;
+    }
+
+    /**
+     * 🏷️ Resumen del estado propio que el feed muestra al usuario (userLiked, userRead), para el ETag:
+     * la versión persistida (una lectura por clave primaria, igual en todos los nodos) más lo que este
+     * nodo aún no escribió: sus likes en el buffer y sus lecturas en cola.
+     */
+    public long getVersionDeUsuario(Long usuarioId) {
+        int id = usuarioId.intValue();
+        List<Long> persistida = jdbcTemplate.queryForList(VERSION_USUARIO, Long.class, usuarioId);
+        long version = persistida.isEmpty() ? 0 : persistida.get(0);
+        version = 31 * version + lecturaIngestor.pendingForUser(id);
+        for (Map.Entry<Long, Boolean> pendiente : new TreeMap<>(likeAggregator.pendingForUser(id)).entrySet()) {
+            version = 31 * version + pendiente.getKey() * 2 + (pendiente.getValue() ? 1 : 0);
+        }
+        return version;
+    }
+
+    // ========== RECONCILIACIÓN ==========
+
+    /**
+     * 🔧 Recalcula los contadores que se hayan desviado del conteo real (fallos parciales, cambios
+     * manuales en la BD). Un like confirmado durante la pasada puede quedar desfasado hasta la siguiente.
+     */
+    @Scheduled(fixedDelayString = "${app.interacciones.reconciliacion-ms:3600000}",
+               initialDelayString = "${app.interacciones.reconciliacion-ms:3600000}")
+    public void reconciliarContadores() {
+        try {
+            int likes = anuncioRepository.reconciliarLikes(LocalDateTime.now());
+            int comentarios = anuncioRepository.reconciliarComentarios(LocalDateTime.now());
+            if (likes > 0 || comentarios > 0) {
+                logger.warn("🔧 Contadores corregidos: {} anuncios (likes), {} anuncios (comentarios)", likes, comentarios);
+            }
+        } catch (Exception e) {
+            logger.error("❌ Error reconciliando contadores: {}", e.getMessage());
+        }
+    }
+}
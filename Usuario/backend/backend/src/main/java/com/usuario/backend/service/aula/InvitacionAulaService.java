@@ -5,6 +5,7 @@ import com.usuario.backend.model.entity.InvitacionAula;
 import com.usuario.backend.model.entity.AulaVirtual;
 import com.usuario.backend.model.entity.Usuario;
 import com.usuario.backend.repository.InvitacionAulaRepository;
+import com.usuario.backend.service.realtime.EventHub;
 import com.usuario.backend.service.user.UsuarioService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,7 +14,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -31,6 +34,9 @@ public class InvitacionAulaService {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private EventHub eventHub;
+
     /**
      * Envía una invitación a un usuario para unirse a un aula
      */
@@ -65,6 +71,14 @@ public class InvitacionAulaService {
         InvitacionAula invitacionGuardada = invitacionRepository.save(invitacion);
         
         logger.info("✅ Invitación enviada exitosamente: ID {}", invitacionGuardada.getId());
+
+        // Aviso en vivo al invitado si tiene una sesión abierta
+        Map<String, Object> evento = new HashMap<>();
+        evento.put("id", invitacionGuardada.getId());
+        evento.put("aulaVirtualId", aulaId);
+        evento.put("aulaNombre", aula.getNombre());
+        evento.put("mensaje", mensaje);
+        eventHub.publishInvitacion(correoInvitado, evento);
         
         return invitacionGuardada;
     }
@@ -0,0 +1,200 @@
+package com.usuario.backend.service.aula;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice en memoria de lecturas: un bitmap comprimido (Roaring) con los ids de usuario que
+ * leyeron cada anuncio.
+ *
+ * Se carga desde {@code lecturas} al arrancar, recibe las escrituras de {@link LecturaIngestor}
+ * y se refresca por id incremental para incluir las lecturas registradas por otras instancias.
+ * Conteos, "¿lo leyó?" y "quién falta" (roster AND-NOT lectores) se resuelven sin tocar la BD.
+ */
+@Component
+public class LecturaIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LecturaIndex.class);
+
+    private static final int PAGE_SIZE = 10000;
+
+    // Margen al refrescar: ids IDENTITY asignados antes pueden confirmarse después
+    private static final long ID_LOOKBACK = 200;
+
+    public static final String PAGE_SQL =
+            "SELECT id, anuncio_id, usuario_id FROM lecturas WHERE id > ? ORDER BY id LIMIT ?";
+
+    public static final String LECTORES_DE_ANUNCIO = "SELECT usuario_id FROM lecturas WHERE anuncio_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // anuncioId -> lectores. RoaringBitmap no es thread-safe: cada bitmap se usa bajo su propio monitor
+    private final ConcurrentHashMap<Long, RoaringBitmap> readers = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+    private volatile long lastSeenId = 0;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("interacciones.lecturas.index.anuncios", readers, ConcurrentHashMap::size)
+                .description("Anuncios con lecturas en el índice")
+                .register(meterRegistry);
+        Gauge.builder("interacciones.lecturas.index.bytes", this, LecturaIndex::sizeInBytes)
+                .description("Tamaño serializado de los bitmaps de lecturas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Carga completa al arrancar. Hasta que termina, las consultas cargan bajo demanda el anuncio pedido.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        if (ready) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            int loaded = loadFrom(0);
+            ready = true;
+            logger.info("📖 Índice de lecturas cargado: {} lecturas en {} anuncios, {} bytes, {} ms",
+                    loaded, readers.size(), sizeInBytes(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudo cargar el índice de lecturas: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.interacciones.lecturas.index-refresh-ms:5000}",
+               initialDelayString = "${app.interacciones.lecturas.index-refresh-ms:5000}")
+    public synchronized void refresh() {
+        if (!ready) {
+            load();
+            return;
+        }
+        try {
+            loadFrom(Math.max(0, lastSeenId - ID_LOOKBACK));
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudo refrescar el índice de lecturas: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Registra una lectura ya escrita en la BD
+     */
+    public void add(Long anuncioId, int usuarioId) {
+        RoaringBitmap bitmap = readers.computeIfAbsent(anuncioId, id -> new RoaringBitmap());
+        synchronized (bitmap) {
+            bitmap.add(usuarioId);
+        }
+    }
+
+    public int count(Long anuncioId) {
+        RoaringBitmap bitmap = bitmapOf(anuncioId);
+        if (bitmap == null) {
+            return 0;
+        }
+        synchronized (bitmap) {
+            return bitmap.getCardinality();
+        }
+    }
+
+    public boolean hasRead(Long anuncioId, int usuarioId) {
+        RoaringBitmap bitmap = bitmapOf(anuncioId);
+        if (bitmap == null) {
+            return false;
+        }
+        synchronized (bitmap) {
+            return bitmap.contains(usuarioId);
+        }
+    }
+
+    /**
+     * Copia de los lectores del anuncio
+     */
+    public RoaringBitmap readers(Long anuncioId) {
+        RoaringBitmap bitmap = bitmapOf(anuncioId);
+        if (bitmap == null) {
+            return new RoaringBitmap();
+        }
+        synchronized (bitmap) {
+            return bitmap.clone();
+        }
+    }
+
+    /**
+     * Integrantes del roster que aún no leyeron el anuncio (roster AND-NOT lectores)
+     */
+    public RoaringBitmap unread(Long anuncioId, RoaringBitmap roster) {
+        RoaringBitmap bitmap = bitmapOf(anuncioId);
+        if (bitmap == null) {
+            return roster.clone();
+        }
+        synchronized (bitmap) {
+            return RoaringBitmap.andNot(roster, bitmap);
+        }
+    }
+
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (RoaringBitmap bitmap : readers.values()) {
+            synchronized (bitmap) {
+                bytes += bitmap.serializedSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private RoaringBitmap bitmapOf(Long anuncioId) {
+        if (!ready) {
+            // Carga inicial aún en curso: se completa este anuncio para no responder con datos parciales
+            List<Integer> usuarios = jdbcTemplate.queryForList(LECTORES_DE_ANUNCIO, Integer.class, anuncioId);
+            for (Integer usuarioId : usuarios) {
+                add(anuncioId, usuarioId);
+            }
+        }
+        return readers.get(anuncioId);
+    }
+
+    private int loadFrom(long fromId) {
+        long cursor = fromId;
+        int loaded = 0;
+        while (true) {
+            long[] last = {cursor};
+            int[] rows = {0};
+            jdbcTemplate.query(PAGE_SQL, rs -> {
+                add(rs.getLong("anuncio_id"), rs.getInt("usuario_id"));
+                last[0] = rs.getLong("id");
+                rows[0]++;
+            }, cursor, PAGE_SIZE);
+
+            loaded += rows[0];
+            cursor = last[0];
+            if (cursor > lastSeenId) {
+                lastSeenId = cursor;
+            }
+            if (rows[0] < PAGE_SIZE) {
+                return loaded;
+            }
+        }
+    }
+}
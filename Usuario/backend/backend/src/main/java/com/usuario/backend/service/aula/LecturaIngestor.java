@@ -0,0 +1,239 @@
+package com.usuario.backend.service.aula;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingesta asíncrona de lecturas (acuses de "visto").
+ *
+ * markAsRead se dispara cada vez que una tarjeta entra en pantalla, así que es la escritura más
+ * frecuente. Cada par usuario/anuncio pasa primero por un set de deduplicación en memoria; solo
+ * los nuevos entran a una cola acotada que un único worker vacía con INSERT IGNORE multi-fila.
+ * Si la cola está llena, {@link #submit} lo informa para que el endpoint aplique contrapresión.
+ */
+@Component
+public class LecturaIngestor {
+
+    private static final Logger logger = LoggerFactory.getLogger(LecturaIngestor.class);
+
+    @Value("${app.interacciones.lecturas.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.interacciones.lecturas.batch-size:500}")
+    private int batchSize;
+
+    // Tope del set de deduplicación; al superarlo se vacía (un duplicado solo cuesta un INSERT IGNORE)
+    @Value("${app.interacciones.lecturas.dedupe-max-entries:500000}")
+    private int dedupeMaxEntries;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LecturaIndex lecturaIndex;
+
+    private final Set<Long> seen = ConcurrentHashMap.newKeySet();
+
+    // Lecturas en cola por usuario: entran en la versión de su feed hasta que se escriben
+    private final ConcurrentHashMap<Integer, Integer> pendingByUser = new ConcurrentHashMap<>();
+
+    private BlockingQueue<Long> queue;
+    private Thread worker;
+    private volatile boolean running = true;
+
+    private Counter accepted;
+    private Counter duplicates;
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.accepted = Counter.builder("interacciones.lecturas.accepted")
+                .description("Lecturas nuevas encoladas")
+                .register(meterRegistry);
+        this.duplicates = Counter.builder("interacciones.lecturas.duplicates")
+                .description("Lecturas descartadas por ya registradas")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("interacciones.lecturas.rejected")
+                .description("Lecturas rechazadas por cola llena")
+                .register(meterRegistry);
+        Gauge.builder("interacciones.lecturas.queue", queue, BlockingQueue::size)
+                .description("Lecturas en espera de escritura")
+                .register(meterRegistry);
+
+        this.worker = new Thread(this::run, "lecturas-ingestor");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 📖 Encola la lectura. Devuelve false solo si la cola está llena (el cliente debe reintentar);
+     * las lecturas ya vistas se aceptan sin tocar la cola.
+     */
+    public boolean submit(Long anuncioId, Integer usuarioId) {
+        long key = key(anuncioId, usuarioId);
+        if (!seen.add(key)) {
+            duplicates.increment();
+            return true;
+        }
+        if (!queue.offer(key)) {
+            seen.remove(key);
+            rejected.increment();
+            return false;
+        }
+        accepted.increment();
+        pendingByUser.merge(usuarioId, 1, Integer::sum);
+        if (seen.size() > dedupeMaxEntries) {
+            seen.clear();
+        }
+        return true;
+    }
+
+    /**
+     * Encola varias lecturas del mismo usuario; devuelve cuántas se aceptaron
+     */
+    public int submitAll(Collection<Long> anuncioIds, Integer usuarioId) {
+        int count = 0;
+        for (Long anuncioId : anuncioIds) {
+            if (!submit(anuncioId, usuarioId)) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Lectura aceptada en este nodo (escrita o en cola): permite leer lo propio antes del flush
+     */
+    public boolean isKnownRead(Long anuncioId, Integer usuarioId) {
+        return seen.contains(key(anuncioId, usuarioId));
+    }
+
+    /**
+     * Lecturas del usuario aceptadas en este nodo y aún no escritas
+     */
+    public int pendingForUser(int usuarioId) {
+        return pendingByUser.getOrDefault(usuarioId, 0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Sin interrupt: el worker termina el lote en curso y sale en el siguiente poll (≤ 1 s)
+        running = false;
+        try {
+            worker.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Lo que quedó en cola se escribe antes de cerrar el DataSource
+        List<Long> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            logger.info("💾 Escribiendo {} lecturas pendientes antes de apagar", remaining.size());
+            for (int from = 0; from < remaining.size(); from += batchSize) {
+                write(remaining.subList(from, Math.min(from + batchSize, remaining.size())));
+            }
+        }
+    }
+
+    private void run() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Long first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Long> batch) {
+        StringBuilder sql = new StringBuilder("INSERT IGNORE INTO lecturas (usuario_id, anuncio_id, fecha_lectura) VALUES ");
+        Object[] params = new Object[batch.size() * 2];
+        for (int i = 0; i < batch.size(); i++) {
+            long key = batch.get(i);
+            sql.append(i == 0 ? "(?, ?, NOW())" : ", (?, ?, NOW())");
+            params[i * 2] = usuarioIdOf(key);
+            params[i * 2 + 1] = anuncioIdOf(key);
+        }
+
+        // Con las lecturas sube la versión de cada usuario del lote (en orden de id para no cruzar bloqueos)
+        TreeSet<Integer> usuarios = new TreeSet<>();
+        for (long key : batch) {
+            usuarios.add(usuarioIdOf(key));
+        }
+
+        try {
+            int inserted = transactionTemplate.execute(status -> {
+                int filas = jdbcTemplate.update(sql.toString(), params);
+                jdbcTemplate.batchUpdate(InteraccionService.SUBIR_VERSION_USUARIO,
+                        usuarios.stream().map(usuarioId -> new Object[]{usuarioId}).toList());
+                return filas;
+            });
+            logger.debug("📖 Lecturas escritas: {} de {}", inserted, batch.size());
+            for (long key : batch) {
+                lecturaIndex.add(anuncioIdOf(key), usuarioIdOf(key));
+            }
+        } catch (Exception e) {
+            // Se olvidan para que la próxima vista las vuelva a encolar
+            for (long key : batch) {
+                seen.remove(key);
+            }
+            logger.error("❌ Error escribiendo {} lecturas: {}", batch.size(), e.getMessage());
+        } finally {
+            for (long key : batch) {
+                pendingByUser.computeIfPresent(usuarioIdOf(key), (usuarioId, n) -> n > 1 ? n - 1 : null);
+            }
+        }
+    }
+
+    // anuncioId en los 32 bits altos y usuarioId en los bajos: una clave sin objetos extra
+    private static long key(Long anuncioId, Integer usuarioId) {
+        return (anuncioId << 32) | (usuarioId & 0xFFFFFFFFL);
+    }
+
+    private static long anuncioIdOf(long key) {
+        return key >>> 32;
+    }
+
+    private static int usuarioIdOf(long key) {
+        return (int) key;
+    }
+}
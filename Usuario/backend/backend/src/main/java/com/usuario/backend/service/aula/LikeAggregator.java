@@ -0,0 +1,328 @@
+package com.usuario.backend.service.aula;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import com.usuario.backend.service.realtime.EventHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffer write-behind para likes.
+ *
+ * Los likes de un anuncio muy popular (p. ej. un anuncio general) llegan en ráfaga sobre la
+ * misma fila. En lugar de una transacción por clic, cada evento deja el estado deseado
+ * (usuario → con/sin like) en un buffer por anuncio; los clics repetidos del mismo usuario se
+ * fusionan y un flush periódico escribe todo en lotes JDBC junto con un único ajuste del
+ * contador por anuncio.
+ *
+ * Lectura de lo propio: mientras un cambio no está en la BD (pendiente o en vuelo), las
+ * consultas del usuario lo ven a través de {@link #pendingState}.
+ */
+@Component
+public class LikeAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeAggregator.class);
+
+    private static final String INSERT_LIKE =
+            "INSERT IGNORE INTO likes (usuario_id, anuncio_id, fecha_creacion) VALUES (?, ?, NOW())";
+    private static final String DELETE_LIKE =
+            "DELETE FROM likes WHERE usuario_id = ? AND anuncio_id = ?";
+    private static final String UPDATE_TOTAL =
+            "UPDATE anuncios SET total_likes = GREATEST(COALESCE(total_likes, 0) + ?, 0), ultima_actividad = ? WHERE id = ?";
+    public static final String RECOUNT_TOTAL =
+            "UPDATE anuncios SET total_likes = (SELECT COUNT(*) FROM likes WHERE anuncio_id = ?), ultima_actividad = ?"
+            + " WHERE id = ?";
+    public static final String LIKE_PERSISTIDO =
+            "SELECT COUNT(*) FROM likes WHERE usuario_id = ? AND anuncio_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EventHub eventHub;
+
+    // anuncioId -> (usuarioId -> estado deseado). Cada anuncio es una franja independiente; toda
+    // escritura en una franja pasa por pending.compute, así una franja vacía se puede quitar sin
+    // dejar huérfano un toggle concurrente
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<Integer, Boolean>> pending = new ConcurrentHashMap<>();
+
+    // Flushes terminados: un toggle que consultó la BD antes de que acabara uno vuelve a consultarla
+    private final AtomicLong flushGeneration = new AtomicLong();
+
+    // Cambios tomados por el flush en curso y aún no confirmados en la BD
+    private volatile Map<Long, Map<Integer, Boolean>> inFlight = Map.of();
+
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void init() {
+        this.flushTimer = Timer.builder("interacciones.likes.flush")
+                .description("Duración del flush de likes a la BD")
+                .register(meterRegistry);
+        Gauge.builder("interacciones.likes.pending", this, LikeAggregator::pendingCount)
+                .description("Cambios de like pendientes de escribir")
+                .register(meterRegistry);
+    }
+
+    /**
+     * ❤️ Alterna el like partiendo del último estado conocido (pendiente, en vuelo o BD).
+     * Devuelve el estado resultante.
+     *
+     * La consulta a la BD se hace antes del compute: bajo el lock del bin solo se decide, así los
+     * usuarios de un anuncio caliente no esperan la latencia de la BD unos detrás de otros. Si mientras
+     * tanto terminó un flush (la BD pudo cambiar) o desapareció el estado pendiente leído, se reintenta.
+     */
+    public boolean toggle(Long anuncioId, Integer usuarioId) {
+        while (true) {
+            long generation = flushGeneration.get();
+            Boolean known = pendingState(anuncioId, usuarioId);
+            boolean persisted = known == null && persisted(anuncioId, usuarioId);
+            Boolean[] result = new Boolean[1];
+            pending.compute(anuncioId, (id, stripe) -> {
+                ConcurrentHashMap<Integer, Boolean> users = stripe != null ? stripe : new ConcurrentHashMap<>();
+                Boolean current = users.get(usuarioId);
+                if (current == null) {
+                    // inFlight antes que la generación: un flush terminado ya no está en vuelo pero sí contado
+                    Map<Integer, Boolean> flying = inFlight.get(anuncioId);
+                    current = flying != null ? flying.get(usuarioId) : null;
+                }
+                if (current == null) {
+                    if (known != null || flushGeneration.get() != generation) {
+                        return stripe;
+                    }
+                    current = persisted;
+                }
+                result[0] = !current;
+                users.put(usuarioId, result[0]);
+                return users;
+            });
+            if (result[0] != null) {
+                return result[0];
+            }
+        }
+    }
+
+    /**
+     * Estado aún no escrito en la BD para este usuario y anuncio, o null si no hay cambios pendientes
+     */
+    public Boolean pendingState(Long anuncioId, Integer usuarioId) {
+        Map<Integer, Boolean> stripe = pending.get(anuncioId);
+        Boolean state = stripe != null ? stripe.get(usuarioId) : null;
+        if (state != null) {
+            return state;
+        }
+        Map<Integer, Boolean> flying = inFlight.get(anuncioId);
+        return flying != null ? flying.get(usuarioId) : null;
+    }
+
+    /**
+     * Descarta el cambio pendiente del usuario porque lo reemplaza una escritura directa.
+     * Si el flush en curso lleva un cambio suyo, espera a que termine para que no pise la escritura.
+     */
+    public void discard(Long anuncioId, Integer usuarioId) {
+        pending.computeIfPresent(anuncioId, (id, stripe) -> {
+            stripe.remove(usuarioId);
+            return stripe.isEmpty() ? null : stripe;
+        });
+        Map<Integer, Boolean> flying = inFlight.get(anuncioId);
+        if (flying != null && flying.containsKey(usuarioId)) {
+            synchronized (this) {
+                // flush() es synchronized: al entrar aquí el lote en vuelo ya se escribió
+            }
+        }
+    }
+
+    /**
+     * Cambios sin escribir de un usuario en todos los anuncios (anuncioId → estado)
+     */
+    public Map<Long, Boolean> pendingForUser(Integer usuarioId) {
+        Map<Long, Boolean> result = new HashMap<>();
+        inFlight.forEach((anuncioId, users) -> {
+            Boolean state = users.get(usuarioId);
+            if (state != null) {
+                result.put(anuncioId, state);
+            }
+        });
+        pending.forEach((anuncioId, users) -> {
+            Boolean state = users.get(usuarioId);
+            if (state != null) {
+                result.put(anuncioId, state);
+            }
+        });
+        return result;
+    }
+
+    public int pendingCount() {
+        int count = 0;
+        for (Map<Integer, Boolean> stripe : pending.values()) {
+            count += stripe.size();
+        }
+        return count;
+    }
+
+    @Scheduled(fixedDelayString = "${app.interacciones.likes.flush-ms:1000}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("❌ Error escribiendo likes pendientes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe en la BD lo pendiente al apagar (shutdown ordenado)
+     */
+    @PreDestroy
+    public void shutdown() {
+        int remaining = pendingCount();
+        if (remaining > 0) {
+            logger.info("💾 Escribiendo {} likes pendientes antes de apagar", remaining);
+        }
+        flush();
+    }
+
+    /**
+     * 💾 Toma los cambios pendientes y los escribe en una sola transacción por lotes
+     */
+    public synchronized void flush() {
+        // Se publica como "en vuelo" antes de sacar nada de pending: un lector siempre ve el cambio
+        ConcurrentHashMap<Long, Map<Integer, Boolean>> batch = new ConcurrentHashMap<>();
+        inFlight = batch;
+        try {
+            drainInto(batch);
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> write(batch)));
+            } catch (RuntimeException e) {
+                requeue(batch);
+                throw e;
+            }
+        } finally {
+            flushGeneration.incrementAndGet();
+            inFlight = Map.of();
+        }
+    }
+
+    private void drainInto(Map<Long, Map<Integer, Boolean>> batch) {
+        for (Map.Entry<Long, ConcurrentHashMap<Integer, Boolean>> stripe : pending.entrySet()) {
+            Map<Integer, Boolean> taken = null;
+            for (Map.Entry<Integer, Boolean> entry : stripe.getValue().entrySet()) {
+                if (taken == null) {
+                    taken = batch.computeIfAbsent(stripe.getKey(), id -> new ConcurrentHashMap<>());
+                }
+                taken.put(entry.getKey(), entry.getValue());
+                // Quitar solo si no cambió mientras se leía; si cambió, queda para el siguiente flush
+                if (!stripe.getValue().remove(entry.getKey(), entry.getValue())) {
+                    taken.remove(entry.getKey());
+                }
+            }
+            if (taken != null && taken.isEmpty()) {
+                batch.remove(stripe.getKey());
+            }
+            // Sin franjas vacías: pending no crece con cada anuncio que alguna vez recibió un like
+            pending.computeIfPresent(stripe.getKey(), (id, users) -> users.isEmpty() ? null : users);
+        }
+    }
+
+    private void write(Map<Long, Map<Integer, Boolean>> batch) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<Long> insertOwners = new ArrayList<>();
+        List<Long> deleteOwners = new ArrayList<>();
+
+        batch.forEach((anuncioId, users) -> users.forEach((usuarioId, liked) -> {
+            if (liked) {
+                inserts.add(new Object[]{usuarioId, anuncioId});
+                insertOwners.add(anuncioId);
+            } else {
+                deletes.add(new Object[]{usuarioId, anuncioId});
+                deleteOwners.add(anuncioId);
+            }
+        }));
+
+        // Filas realmente afectadas: un INSERT IGNORE repetido o un DELETE sin fila no cuentan
+        Map<Long, Integer> deltas = new HashMap<>();
+        boolean exact = accumulate(jdbcTemplate.batchUpdate(INSERT_LIKE, inserts), insertOwners, 1, deltas)
+                & accumulate(jdbcTemplate.batchUpdate(DELETE_LIKE, deletes), deleteOwners, -1, deltas);
+
+        LocalDateTime ahora = LocalDateTime.now();
+        if (exact) {
+            List<Object[]> updates = new ArrayList<>();
+            deltas.forEach((anuncioId, delta) -> {
+                if (delta != 0) {
+                    updates.add(new Object[]{delta, ahora, anuncioId});
+                    eventHub.publishStatsDelta(anuncioId, delta, 0);
+                }
+            });
+            jdbcTemplate.batchUpdate(UPDATE_TOTAL, updates);
+        } else {
+            // El driver no informó filas afectadas (lotes reescritos): se recuentan los anuncios tocados
+            List<Object[]> recounts = new ArrayList<>();
+            batch.keySet().forEach(anuncioId -> {
+                recounts.add(new Object[]{anuncioId, ahora, anuncioId});
+                eventHub.publishStatsStale(anuncioId);
+            });
+            jdbcTemplate.batchUpdate(RECOUNT_TOTAL, recounts);
+        }
+
+        // Versión del estado propio de cada usuario del lote; en orden de id para no cruzar bloqueos
+        TreeSet<Integer> usuarios = new TreeSet<>();
+        batch.values().forEach(users -> usuarios.addAll(users.keySet()));
+        jdbcTemplate.batchUpdate(InteraccionService.SUBIR_VERSION_USUARIO,
+                usuarios.stream().map(usuarioId -> new Object[]{usuarioId}).toList());
+
+        logger.debug("💾 Likes escritos: {} altas, {} bajas en {} anuncios", inserts.size(), deletes.size(), batch.size());
+    }
+
+    private static boolean accumulate(int[] counts, List<Long> owners, int sign, Map<Long, Integer> deltas) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                return false;
+            }
+            if (counts[i] > 0) {
+                deltas.merge(owners.get(i), sign, Integer::sum);
+            }
+        }
+        return true;
+    }
+
+    private void requeue(Map<Long, Map<Integer, Boolean>> batch) {
+        // Un cambio más nuevo del mismo usuario tiene prioridad sobre el que falló
+        batch.forEach((anuncioId, users) -> pending.compute(anuncioId, (id, stripe) -> {
+            ConcurrentHashMap<Integer, Boolean> merged = stripe != null ? stripe : new ConcurrentHashMap<>();
+            users.forEach(merged::putIfAbsent);
+            return merged;
+        }));
+    }
+
+    private boolean persisted(Long anuncioId, Integer usuarioId) {
+        Integer exists = jdbcTemplate.queryForObject(LIKE_PERSISTIDO, Integer.class, usuarioId, anuncioId);
+        return exists != null && exists > 0;
+    }
+}
@@ -0,0 +1,532 @@
+package com.usuario.backend.service.realtime;
+
+import com.usuario.backend.model.entity.Anuncio;
+import com.usuario.backend.security.jwt.JwtTokenManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Pub/sub en proceso para el stream SSE de cada usuario.
+ *
+ * Cada conexión se suscribe a los tópicos de sus aulas (más el tópico {@link #GENERAL}) y a su
+ * correo para invitaciones. Los anuncios nuevos e invitaciones se envían al momento; los cambios
+ * de likes/comentarios se acumulan por anuncio y salen como un único evento "stats" por aula
+ * cada {@code app.realtime.coalesce-ms}, con el delta de la ventana y los totales vigentes.
+ *
+ * Las conexiones son SseEmitter sobre servlet asíncrono: una conexión inactiva no ocupa hilo.
+ * Quien publica solo encola: cada suscriptor tiene su propia cola acotada, que vacía un pool pequeño
+ * de escritores (a lo sumo una tarea por suscriptor). Un cliente que no lee llena su cola y se cierra;
+ * una escritura bloqueada más de {@code app.realtime.send-timeout-ms} también lo cierra. Así un cliente
+ * lento retiene como mucho un escritor y nunca retrasa al resto.
+ *
+ * Cada conexión recuerda la sesión (jti) y la versión de token con que se abrió: el logout la cierra al
+ * momento en este nodo, y un barrido periódico cierra las revocadas en otro nodo o con versión obsoleta.
+ */
+@Component
+public class EventHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventHub.class);
+
+    // Tópico de anuncios generales (sin aula)
+    public static final long GENERAL = 0L;
+
+    @Value("${app.realtime.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.realtime.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    // Tareas de escritura pendientes; como mucho una por suscriptor
+    @Value("${app.realtime.dispatch-queue-capacity:10000}")
+    private int dispatchQueueCapacity;
+
+    @Value("${app.realtime.writer-threads:4}")
+    private int writerThreads;
+
+    @Value("${app.realtime.subscriber-queue-capacity:64}")
+    private int subscriberQueueCapacity;
+
+    @Value("${app.realtime.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtTokenManager jwtTokenManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<Long, Set<Subscriber>> byUser = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Subscriber>> byCorreo = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<Subscriber>> byAula = new ConcurrentHashMap<>();
+
+    // anuncioId -> cambios acumulados desde el último flush
+    private final ConcurrentHashMap<Long, StatsDelta> deltas = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private ThreadPoolExecutor writers;
+    private Counter dropped;
+    private Counter slowClosed;
+    private Counter revokedClosed;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.writers = new ThreadPoolExecutor(writerThreads, writerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(dispatchQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "realtime-writer-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("realtime.connections", connections, AtomicInteger::get)
+                .description("Conexiones SSE abiertas")
+                .register(meterRegistry);
+        Gauge.builder("realtime.writers.queue", writers, executor -> executor.getQueue().size())
+                .description("Suscriptores con eventos esperando un escritor")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("realtime.events.dropped")
+                .description("Eventos descartados por cola de suscriptor o de escritores llena")
+                .register(meterRegistry);
+        this.slowClosed = Counter.builder("realtime.subscribers.slow")
+                .description("Conexiones cerradas por no leer a tiempo")
+                .register(meterRegistry);
+        this.revokedClosed = Counter.builder("realtime.subscribers.revoked")
+                .description("Conexiones cerradas por logout, revocación o cambio de versión de token")
+                .register(meterRegistry);
+    }
+
+    // ========== SUSCRIPCIONES ==========
+
+    /**
+     * Sesión con la que se abre un stream: el jti y su expiración permiten cerrarlo al revocarla
+     */
+    public record Sesion(Long usuarioId, String correo, int tokenVersion, String tokenId, long expiraEn) {
+    }
+
+    /**
+     * 📡 Abre el stream del usuario suscrito a sus aulas, a los anuncios generales y a sus invitaciones
+     */
+    public SseEmitter subscribe(Sesion sesion, Collection<Long> aulaIds) {
+        Long usuarioId = sesion.usuarioId();
+        Set<Subscriber> own = byUser.get(usuarioId);
+        if (own != null && own.size() >= maxConnectionsPerUser) {
+            // Se libera una conexión previa: suelen ser pestañas cerradas sin aviso
+            own.stream().findFirst().ifPresent(this::close);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(sesion, normalize(sesion.correo()), emitter, subscriberQueueCapacity);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+
+        addTo(byUser, usuarioId, subscriber);
+        if (subscriber.correo != null) {
+            addTo(byCorreo, subscriber.correo, subscriber);
+        }
+        join(subscriber, GENERAL);
+        aulaIds.forEach(aulaId -> join(subscriber, aulaId));
+        connections.incrementAndGet();
+
+        enqueue(subscriber, SseEmitter.event().name("ready").data(Map.of("aulas", aulaIds)));
+        return emitter;
+    }
+
+    /**
+     * 🚪 Cierra los streams abiertos con una sesión (logout en este nodo)
+     */
+    public void closeSession(String tokenId) {
+        if (tokenId == null) {
+            return;
+        }
+        for (Subscriber subscriber : allSubscribers()) {
+            if (tokenId.equals(subscriber.sesion.tokenId())) {
+                revokedClosed.increment();
+                close(subscriber);
+            }
+        }
+    }
+
+    /**
+     * 🔑 Cierra todos los streams del usuario (cambio de rol o correo: su versión de token ya no vale)
+     */
+    public void closeUser(Long usuarioId) {
+        afterCommit(() -> forUser(usuarioId, subscriber -> {
+            revokedClosed.increment();
+            close(subscriber);
+        }));
+    }
+
+    /**
+     * El usuario entró a un aula (invitación aceptada o agregado por el profesor)
+     */
+    public void joinAula(Long usuarioId, Long aulaId) {
+        afterCommit(() -> forUser(usuarioId, subscriber -> join(subscriber, aulaId)));
+    }
+
+    public void leaveAula(Long usuarioId, Long aulaId) {
+        afterCommit(() -> forUser(usuarioId, subscriber -> {
+            subscriber.aulas.remove(aulaId);
+            removeFrom(byAula, aulaId, subscriber);
+        }));
+    }
+
+    // ========== PUBLICACIÓN ==========
+
+    /**
+     * 📢 Anuncio nuevo para los suscriptores de su aula (o de todos si es general)
+     */
+    public void publishAnuncio(Anuncio anuncio) {
+        long topic = anuncio.getAulaId() != null ? anuncio.getAulaId().longValue() : GENERAL;
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("id", anuncio.getId());
+        payload.put("aulaId", anuncio.getAulaId());
+        payload.put("titulo", anuncio.getTitulo());
+        payload.put("tipo", anuncio.getTipo());
+        payload.put("autorId", anuncio.getAutorId());
+        payload.put("esGeneral", anuncio.getEsGeneral());
+        payload.put("fechaPublicacion", anuncio.getFechaPublicacion());
+        afterCommit(() -> broadcast(topic, "anuncio", payload));
+    }
+
+    /**
+     * 📊 Cambio en los contadores de un anuncio; se agrupa con los demás cambios de la ventana
+     */
+    public void publishStatsDelta(Long anuncioId, int likesDelta, int commentsDelta) {
+        afterCommit(() -> deltas.merge(anuncioId, new StatsDelta(likesDelta, commentsDelta, false), StatsDelta::plus));
+    }
+
+    /**
+     * Contadores cambiados sin un delta exacto (recuento): el evento lleva solo los totales
+     */
+    public void publishStatsStale(Long anuncioId) {
+        afterCommit(() -> deltas.merge(anuncioId, new StatsDelta(0, 0, true), StatsDelta::plus));
+    }
+
+    /**
+     * ✉️ Invitación nueva para quien tenga abierta una sesión con ese correo
+     */
+    public void publishInvitacion(String correo, Map<String, Object> payload) {
+        String key = normalize(correo);
+        afterCommit(() -> {
+            Set<Subscriber> targets = key != null ? byCorreo.get(key) : null;
+            if (targets != null && !targets.isEmpty()) {
+                new ArrayList<>(targets).forEach(s -> enqueue(s, SseEmitter.event().name("invitacion").data(payload)));
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.realtime.coalesce-ms:250}")
+    public void flushDeltas() {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Map<Long, StatsDelta> drained = new HashMap<>();
+        for (Long anuncioId : new ArrayList<>(deltas.keySet())) {
+            // remove es atómico frente a merge: un cambio concurrente queda para la siguiente ventana
+            StatsDelta delta = deltas.remove(anuncioId);
+            if (delta != null && (delta.likes() != 0 || delta.comments() != 0 || delta.stale())) {
+                drained.put(anuncioId, delta);
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        try {
+            // Una consulta por ventana: aula de cada anuncio y totales vigentes. Con el total el cliente
+            // no suma dos veces su propio cambio optimista
+            Map<Long, List<Map<String, Object>>> porAula = new HashMap<>();
+            String placeholders = String.join(",", Collections.nCopies(drained.size(), "?"));
+            jdbcTemplate.query("SELECT id, aula_id, total_likes, total_comentarios FROM anuncios WHERE id IN ("
+                    + placeholders + ")", rs -> {
+                long anuncioId = rs.getLong("id");
+                long aulaId = rs.getLong("aula_id");
+                if (rs.wasNull()) {
+                    aulaId = GENERAL;
+                }
+                StatsDelta delta = drained.get(anuncioId);
+                Map<String, Object> change = new HashMap<>();
+                change.put("anuncioId", anuncioId);
+                change.put("likesDelta", delta.likes());
+                change.put("commentsDelta", delta.comments());
+                change.put("likesCount", rs.getLong("total_likes"));
+                change.put("commentsCount", rs.getLong("total_comentarios"));
+                porAula.computeIfAbsent(aulaId, id -> new ArrayList<>()).add(change);
+            }, drained.keySet().toArray());
+            porAula.forEach((aulaId, changes) -> broadcast(aulaId, "stats", Map.of("deltas", changes)));
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudieron publicar cambios de stats: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Comentario SSE periódico: mantiene vivas las conexiones tras proxies y detecta las cerradas.
+     * Cierra también las que llevan más de {@code send-timeout-ms} bloqueadas en una escritura.
+     */
+    @Scheduled(fixedDelayString = "${app.realtime.heartbeat-ms:25000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : allSubscribers()) {
+            long since = subscriber.sendingSince.get();
+            if (since != 0 && now - since > sendTimeoutMs) {
+                logger.debug("Stream SSE del usuario {} bloqueado en escritura; se cierra", subscriber.sesion.usuarioId());
+                slowClosed.increment();
+                close(subscriber);
+            } else {
+                enqueue(subscriber, SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    /**
+     * Cierra los streams cuya sesión se revocó en otro nodo o cuya versión de token ya no es la vigente.
+     * Una consulta por barrido para todas las versiones; la revocación pasa por el filtro de Bloom.
+     */
+    @Scheduled(fixedDelayString = "${app.realtime.session-check-ms:30000}")
+    public void checkSessions() {
+        List<Subscriber> all = allSubscribers();
+        if (all.isEmpty()) {
+            return;
+        }
+        try {
+            Set<Long> usuarioIds = new HashSet<>();
+            all.forEach(s -> usuarioIds.add(s.sesion.usuarioId()));
+            Map<Long, Integer> versions = new HashMap<>();
+            String placeholders = String.join(",", Collections.nCopies(usuarioIds.size(), "?"));
+            jdbcTemplate.query("SELECT id, COALESCE(token_version, 0) AS token_version FROM usuarios WHERE id IN ("
+                    + placeholders + ")", rs -> {
+                versions.put(rs.getLong("id"), rs.getInt("token_version"));
+            }, usuarioIds.toArray());
+
+            for (Subscriber subscriber : all) {
+                Sesion sesion = subscriber.sesion;
+                Integer version = versions.get(sesion.usuarioId());
+                if (version == null || version != sesion.tokenVersion()
+                        || jwtTokenManager.isSessionRevoked(sesion.tokenId(), sesion.expiraEn())) {
+                    revokedClosed.increment();
+                    close(subscriber);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudieron comprobar las sesiones de los streams: {}", e.getMessage());
+        }
+    }
+
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdownNow();
+        byUser.values().forEach(subscribers -> subscribers.forEach(s -> s.emitter.complete()));
+    }
+
+    // ========== INTERNOS ==========
+
+    private void broadcast(long aulaId, String name, Object data) {
+        Set<Subscriber> topic = byAula.get(aulaId);
+        if (topic == null || topic.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : new ArrayList<>(topic)) {
+            enqueue(subscriber, SseEmitter.event().name(name).data(data));
+        }
+    }
+
+    /**
+     * Encola sin bloquear. Cola llena = el cliente no lee: se cierra, y al reconectar se resincroniza
+     */
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (!subscriber.outbox.offer(event)) {
+            dropped.increment();
+            slowClosed.increment();
+            logger.debug("Cola SSE llena para el usuario {}; se cierra la conexión", subscriber.sesion.usuarioId());
+            close(subscriber);
+            return;
+        }
+        schedule(subscriber);
+    }
+
+    // Una sola tarea de escritura por suscriptor: sus eventos salen en orden y no acapara escritores
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            writers.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false);
+            dropped.increment();
+            close(subscriber);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!subscriber.closed.get() && (event = subscriber.outbox.poll()) != null) {
+                subscriber.sendingSince.set(System.currentTimeMillis());
+                subscriber.emitter.send(event);
+                subscriber.sendingSince.set(0);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado: se cierra y se quita de los tópicos sin esperar al contenedor
+            unsubscribe(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.sendingSince.set(0);
+            subscriber.draining.set(false);
+        }
+        // Un evento encolado mientras se soltaba la marca no debe quedar esperando al siguiente
+        if (!subscriber.closed.get() && !subscriber.outbox.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        unsubscribe(subscriber);
+        subscriber.outbox.clear();
+        try {
+            subscriber.emitter.complete();
+        } catch (IllegalStateException e) {
+            logger.debug("Stream SSE ya cerrado: {}", e.getMessage());
+        }
+    }
+
+    private List<Subscriber> allSubscribers() {
+        List<Subscriber> all = new ArrayList<>();
+        byUser.values().forEach(all::addAll);
+        return all;
+    }
+
+    private void join(Subscriber subscriber, Long aulaId) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        subscriber.aulas.add(aulaId);
+        addTo(byAula, aulaId, subscriber);
+    }
+
+    private void forUser(Long usuarioId, Consumer<Subscriber> action) {
+        Set<Subscriber> subscribers = byUser.get(usuarioId);
+        if (subscribers != null) {
+            subscribers.forEach(action);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connections.decrementAndGet();
+        removeFrom(byUser, subscriber.sesion.usuarioId(), subscriber);
+        if (subscriber.correo != null) {
+            removeFrom(byCorreo, subscriber.correo, subscriber);
+        }
+        subscriber.aulas.forEach(aulaId -> removeFrom(byAula, aulaId, subscriber));
+    }
+
+    // compute/computeIfPresent son atómicos por clave: un alta nunca cae en un set que se está retirando
+    private static <K> void addTo(ConcurrentHashMap<K, Set<Subscriber>> index, K key, Subscriber subscriber) {
+        index.compute(key, (k, set) -> {
+            Set<Subscriber> target = set != null ? set : ConcurrentHashMap.newKeySet();
+            target.add(subscriber);
+            return target;
+        });
+    }
+
+    private static <K> void removeFrom(ConcurrentHashMap<K, Set<Subscriber>> index, K key, Subscriber subscriber) {
+        index.computeIfPresent(key, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    // Publica al confirmar la transacción en curso; sin transacción, de inmediato
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static String normalize(String correo) {
+        return correo == null ? null : correo.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record StatsDelta(long likes, long comments, boolean stale) {
+        private StatsDelta plus(StatsDelta other) {
+            return new StatsDelta(likes + other.likes, comments + other.comments, stale || other.stale);
+        }
+    }
+
+    private static final class Subscriber {
+        private final Sesion sesion;
+        private final String correo;
+        private final SseEmitter emitter;
+        private final Set<Long> aulas = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> outbox;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Inicio de la escritura en curso; 0 si no hay ninguna
+        private final AtomicLong sendingSince = new AtomicLong();
+
+        private Subscriber(Sesion sesion, String correo, SseEmitter emitter, int queueCapacity) {
+            this.sesion = sesion;
+            this.correo = correo;
+            this.emitter = emitter;
+            this.outbox = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+}
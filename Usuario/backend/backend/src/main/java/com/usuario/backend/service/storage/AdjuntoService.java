@@ -0,0 +1,356 @@
+package com.usuario.backend.service.storage;
+
+import com.usuario.backend.config.UrlConfig;
+import com.usuario.backend.model.dto.AdjuntoAula;
+import com.usuario.backend.model.entity.Anuncio;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Adjuntos de anuncios: subida en streaming al {@link BlobStore} activo y descarga con ETag y Range.
+ */
+@Service
+public class AdjuntoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdjuntoService.class);
+
+    // Atributos de sendfile de Tomcat: el conector envía el archivo con transferTo desde el poller
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Por debajo de este tamaño sendfile no compensa frente a una copia directa
+    private static final long SENDFILE_MIN = 48 * 1024;
+
+    // Tipos que se sirven inline; cualquier otro va como attachment + application/octet-stream
+    private static final Set<String> INLINE = Set.of("image/png", "image/jpeg", "image/gif", "image/webp", "application/pdf");
+
+    // Primera entrada del ZIP: "<etag>\t<nombre>" por archivo
+    private static final String INDICE = "INDICE.txt";
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private UrlConfig urlConfig;
+
+    // Un blob remoto que no responde no debe retener el hilo de un ZIP o de una miniatura
+    @Value("${app.storage.remoto.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${app.storage.remoto.read-timeout-ms:30000}")
+    private int readTimeoutMs;
+
+    /**
+     * Guarda el archivo (si viene) y completa los campos de adjunto del anuncio. Para el almacén local
+     * la URL se asigna después de persistir, con {@link #completarUrl(Anuncio)}.
+     */
+    public void adjuntar(Anuncio anuncio, MultipartFile archivo) {
+        if (archivo == null || archivo.isEmpty()) {
+            return;
+        }
+        try (InputStream contenido = archivo.getInputStream()) {
+            BlobStore.BlobGuardado blob = blobStore.guardar(contenido, archivo.getOriginalFilename(), archivo.getContentType());
+            anuncio.setArchivoNombre(archivo.getOriginalFilename());
+            anuncio.setArchivoTipo(archivo.getContentType());
+            anuncio.setArchivoTamaño(blob.tamaño());
+            anuncio.setArchivoClave(blob.clave());
+            anuncio.setArchivoHash(blob.sha256());
+            anuncio.setArchivoUrl(blob.url());
+            logger.info("📎 Adjunto guardado: {} ({} bytes)", archivo.getOriginalFilename(), blob.tamaño());
+        } catch (IOException e) {
+            logger.error("Error al guardar adjunto {}: {}", archivo.getOriginalFilename(), e.getMessage(), e);
+            throw new RuntimeException("Error al guardar el archivo adjunto", e);
+        }
+    }
+
+    /**
+     * Adjuntos que entran en el ZIP de un aula: uno por contenido (el mismo archivo en dos anuncios va
+     * una vez), sin los que el cliente ya tiene ({@code excluir}, ETags con o sin comillas) y solo los
+     * que el almacén puede leer, para que el índice no prometa archivos que luego faltan.
+     */
+    public List<AdjuntoAula> prepararZip(List<AdjuntoAula> adjuntos, Collection<String> excluir) {
+        Set<String> yaDescargados = new HashSet<>();
+        if (excluir != null) {
+            excluir.forEach(etag -> yaDescargados.add(etag.replace("W/", "").replace("\"", "").trim()));
+        }
+        Map<String, AdjuntoAula> porHash = new LinkedHashMap<>();
+        for (AdjuntoAula adjunto : adjuntos) {
+            if (adjunto.hash() == null || yaDescargados.contains(adjunto.hash()) || porHash.containsKey(adjunto.hash())) {
+                continue;
+            }
+            if (blobStore.archivoLocal(adjunto.clave()).isPresent() || esRemoto(adjunto.url())) {
+                porHash.put(adjunto.hash(), adjunto);
+            } else {
+                logger.warn("⚠️ Adjunto del anuncio {} no disponible en el almacén: {}", adjunto.anuncioId(), adjunto.clave());
+            }
+        }
+        return new ArrayList<>(porHash.values());
+    }
+
+    /**
+     * ETag débil del ZIP: depende de qué archivos entran, no de los bytes del ZIP (la fecha de cada
+     * entrada cambia en cada generación).
+     */
+    public String etagZip(List<AdjuntoAula> adjuntos) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        adjuntos.forEach(adjunto -> digest.update((adjunto.hash() + "\n").getBytes(StandardCharsets.UTF_8)));
+        return "W/\"zip-" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    /**
+     * ZIP escrito directo en la respuesta: cada archivo se copia del almacén con un buffer fijo, sin
+     * temporales ni el archivo completo en memoria. La primera entrada ({@value #INDICE}) lista el ETag
+     * de cada archivo (también va como comentario de su entrada); si la descarga se corta, el cliente
+     * vuelve a pedir el ZIP con {@code ?excluir=<etag>,...} y recibe solo los que le faltan.
+     */
+    public StreamingResponseBody zip(List<AdjuntoAula> adjuntos) {
+        return salida -> {
+            ZipOutputStream zip = new ZipOutputStream(salida, StandardCharsets.UTF_8);
+            // La mayoría son PDF e imágenes ya comprimidos: compresión mínima, poca CPU
+            zip.setLevel(Deflater.BEST_SPEED);
+
+            List<String> nombres = nombresUnicos(adjuntos);
+            zip.putNextEntry(new ZipEntry(INDICE));
+            for (int i = 0; i < adjuntos.size(); i++) {
+                zip.write((adjuntos.get(i).etag() + "\t" + nombres.get(i) + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            zip.closeEntry();
+
+            for (int i = 0; i < adjuntos.size(); i++) {
+                AdjuntoAula adjunto = adjuntos.get(i);
+                try (InputStream contenido = abrir(adjunto)) {
+                    ZipEntry entrada = new ZipEntry(nombres.get(i));
+                    entrada.setComment(adjunto.etag());
+                    zip.putNextEntry(entrada);
+                    contenido.transferTo(zip);
+                    zip.closeEntry();
+                }
+            }
+            // finish y no close: el contenedor cierra la respuesta
+            zip.finish();
+            logger.info("🗜️ ZIP enviado con {} adjuntos", adjuntos.size());
+        };
+    }
+
+    private InputStream abrir(AdjuntoAula adjunto) throws IOException {
+        return abrir(adjunto.clave(), adjunto.url());
+    }
+
+    /**
+     * Contenido de un blob: del disco si el almacén es local, si no desde su URL pública.
+     */
+    InputStream abrir(String clave, String url) throws IOException {
+        Optional<Path> local = blobStore.archivoLocal(clave);
+        if (local.isPresent()) {
+            return Files.newInputStream(local.get());
+        }
+        if (!esRemoto(url)) {
+            throw new FileNotFoundException("Blob no disponible en el almacén: " + clave);
+        }
+        if (!(URI.create(url).toURL().openConnection() instanceof HttpURLConnection conexion)) {
+            throw new FileNotFoundException("URL de blob no HTTP: " + clave);
+        }
+        conexion.setConnectTimeout(connectTimeoutMs);
+        // Por lectura: una transferencia larga pero que avanza no se corta
+        conexion.setReadTimeout(readTimeoutMs);
+        int status = conexion.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            conexion.disconnect();
+            throw new FileNotFoundException("Blob remoto respondió " + status + ": " + clave);
+        }
+        return conexion.getInputStream();
+    }
+
+    /**
+     * Un adjunto nunca se ejecuta en el origen de la API: CSP sandbox (origen opaco, sin scripts) y sin
+     * sniffing del tipo.
+     */
+    public static void cabecerasSeguras(HttpServletResponse response) {
+        response.setHeader("Content-Security-Policy", "sandbox");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+    }
+
+    boolean esRemoto(String url) {
+        return url != null && !url.startsWith(urlConfig.getBackendBaseUrl());
+    }
+
+    // Nombres de entrada válidos y sin repetir: "informe.pdf", "informe (2).pdf", ...
+    private static List<String> nombresUnicos(List<AdjuntoAula> adjuntos) {
+        Set<String> usados = new HashSet<>(Set.of(INDICE));
+        List<String> nombres = new ArrayList<>(adjuntos.size());
+        for (AdjuntoAula adjunto : adjuntos) {
+            String base = adjunto.nombre() == null || adjunto.nombre().isBlank()
+                    ? "archivo-" + adjunto.anuncioId()
+                    : adjunto.nombre().replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_");
+            String nombre = base;
+            int punto = base.lastIndexOf('.');
+            for (int n = 2; !usados.add(nombre); n++) {
+                nombre = punto > 0
+                        ? base.substring(0, punto) + " (" + n + ")" + base.substring(punto)
+                        : base + " (" + n + ")";
+            }
+            nombres.add(nombre);
+        }
+        return nombres;
+    }
+
+    /**
+     * URL de descarga para adjuntos que sirve este backend; devuelve true si el anuncio cambió.
+     */
+    public boolean completarUrl(Anuncio anuncio) {
+        if (anuncio.getArchivoClave() == null || anuncio.getArchivoUrl() != null) {
+            return false;
+        }
+        anuncio.setArchivoUrl(urlConfig.buildBackendUrl("/api/anuncios/" + anuncio.getId() + "/archivo"));
+        return true;
+    }
+
+    /**
+     * Escribe el adjunto en la respuesta. Responde 304 si el ETag (hash del contenido) coincide, 206 con
+     * Content-Range para una petición Range de una sola región y el archivo completo en otro caso.
+     * Los adjuntos remotos se redirigen a su URL.
+     */
+    public void descargar(Anuncio anuncio, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> local = blobStore.archivoLocal(anuncio.getArchivoClave());
+        if (local.isEmpty()) {
+            if (anuncio.getArchivoClave() != null && esRemoto(anuncio.getArchivoUrl())) {
+                response.sendRedirect(anuncio.getArchivoUrl());
+                return;
+            }
+            throw new IllegalArgumentException("El anuncio no tiene archivo adjunto");
+        }
+        servir(local.get(), "\"" + anuncio.getArchivoHash() + "\"", anuncio.getArchivoTipo(), anuncio.getArchivoNombre(),
+                request, response);
+    }
+
+    /**
+     * Escribe la miniatura del adjunto, con las mismas reglas que {@link #descargar}. La clave local es
+     * el SHA-256 de la miniatura y sirve de ETag.
+     */
+    public void descargarPreview(Anuncio anuncio, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> local = blobStore.archivoLocal(anuncio.getPreviewClave());
+        if (local.isEmpty()) {
+            if (anuncio.getPreviewClave() != null && esRemoto(anuncio.getPreviewUrl())) {
+                response.sendRedirect(anuncio.getPreviewUrl());
+                return;
+            }
+            throw new IllegalArgumentException("El anuncio no tiene vista previa");
+        }
+        servir(local.get(), "\"" + anuncio.getPreviewClave() + "\"", PreviewService.CONTENT_TYPE, "preview-" + anuncio.getId() + ".jpg",
+                request, response);
+    }
+
+    private void servir(Path archivo, String etag, String contentType, String nombre,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        cabecerasSeguras(response);
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+
+        long tamaño = Files.size(archivo);
+        long inicio = 0;
+        long fin = tamaño - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && tamaño > 0 && (ifRange == null || ifRange.equals(etag))) {
+            List<HttpRange> rangos;
+            try {
+                rangos = HttpRange.parseRanges(range);
+                if (rangos.size() == 1) {
+                    inicio = rangos.get(0).getRangeStart(tamaño);
+                    fin = rangos.get(0).getRangeEnd(tamaño);
+                    if (inicio >= tamaño || inicio > fin) {
+                        throw new IllegalArgumentException("Rango fuera del archivo");
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamaño);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            // Varias regiones (multipart/byteranges): se ignora el Range y va el archivo completo
+            if (rangos.size() == 1) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + tamaño);
+            }
+        }
+
+        long largo = tamaño == 0 ? 0 : fin - inicio + 1;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // El tipo lo declara quien sube el archivo: solo se muestran en el navegador los formatos que no
+        // ejecutan código; HTML, SVG y el resto se descargan como binario opaco
+        boolean inline = contentType != null && INLINE.contains(contentType.toLowerCase(Locale.ROOT));
+        response.setContentType(inline ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, (inline ? ContentDisposition.inline() : ContentDisposition.attachment())
+                .filename(nombre != null ? nombre : "archivo", StandardCharsets.UTF_8)
+                .build().toString());
+        response.setContentLengthLong(largo);
+        if ("HEAD".equals(request.getMethod()) || largo == 0) {
+            return;
+        }
+
+        if (largo >= SENDFILE_MIN && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat envía el archivo tras volver del controlador, sin ocupar el hilo de la petición
+            request.setAttribute(SENDFILE_FILENAME, archivo.toString());
+            request.setAttribute(SENDFILE_START, inicio);
+            request.setAttribute(SENDFILE_END, fin + 1);
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            long posicion = inicio;
+            while (posicion <= fin) {
+                posicion += canal.transferTo(posicion, fin + 1 - posicion, salida);
+            }
+        }
+    }
+}
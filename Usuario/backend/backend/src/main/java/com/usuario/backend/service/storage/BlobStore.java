@@ -0,0 +1,55 @@
+package com.usuario.backend.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Almacén de adjuntos. La implementación activa se elige con {@code app.storage.tipo}
+ * ({@code local} por defecto, o {@code cloudinary}).
+ */
+public interface BlobStore {
+
+    /**
+     * Copia el contenido al almacén en streaming, sin cargarlo en memoria; el SHA-256 y el tamaño
+     * se calculan por el camino.
+     */
+    BlobGuardado guardar(InputStream contenido, String nombre, String contentType) throws IOException;
+
+    /**
+     * Archivo en disco del blob, para servirlo sin copias (sendfile / transferTo). Vacío si el
+     * almacén es remoto y la descarga va directo a {@link BlobGuardado#url()}.
+     */
+    Optional<Path> archivoLocal(String clave);
+
+    /**
+     * Resultado de guardar: clave en el almacén, hash del contenido, tamaño y URL pública
+     * (null si el archivo lo sirve este backend).
+     */
+    record BlobGuardado(String clave, String sha256, long tamaño, String url) {
+    }
+
+    /**
+     * Vuelca el stream a {@code destino} con un buffer fijo y devuelve el SHA-256 en hexadecimal.
+     */
+    static String copiarConHash(InputStream contenido, Path destino) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(contenido, digest);
+             OutputStream out = Files.newOutputStream(destino)) {
+            in.transferTo(out);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,56 @@
+package com.usuario.backend.service.storage;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Adjuntos en Cloudinary. El SDK sube desde un {@code File} en streaming, así que el contenido pasa
+ * por un temporal en disco (nunca por el heap); la descarga va directo a la URL del CDN.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.tipo", havingValue = "cloudinary")
+public class CloudinaryBlobStore implements BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CloudinaryBlobStore.class);
+
+    private static final String CARPETA = "tecbook_adjuntos/";
+
+    @Autowired
+    private Cloudinary cloudinary;
+
+    @Override
+    public BlobGuardado guardar(InputStream contenido, String nombre, String contentType) throws IOException {
+        Path temporal = Files.createTempFile("adjunto-", ".part");
+        try {
+            String sha256 = BlobStore.copiarConHash(contenido, temporal);
+            long tamaño = Files.size(temporal);
+            // public_id por contenido: el mismo archivo no se sube dos veces
+            Map<?, ?> resultado = cloudinary.uploader().upload(temporal.toFile(), ObjectUtils.asMap(
+                    "public_id", CARPETA + sha256,
+                    "resource_type", "auto",
+                    "overwrite", false));
+            String url = (String) resultado.get("secure_url");
+            logger.info("☁️ Adjunto subido a Cloudinary: {} ({} bytes)", url, tamaño);
+            return new BlobGuardado((String) resultado.get("public_id"), sha256, tamaño, url);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    @Override
+    public Optional<Path> archivoLocal(String clave) {
+        return Optional.empty();
+    }
+}
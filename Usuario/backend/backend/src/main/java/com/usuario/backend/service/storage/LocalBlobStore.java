@@ -0,0 +1,76 @@
+package com.usuario.backend.service.storage;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Adjuntos en el disco del servidor, direccionados por contenido: {@code <dir>/<ab>/<sha256>}.
+ * Subir dos veces el mismo archivo deja una sola copia.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.tipo", havingValue = "local", matchIfMissing = true)
+public class LocalBlobStore implements BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalBlobStore.class);
+
+    private static final Pattern CLAVE = Pattern.compile("[0-9a-f]{64}");
+
+    @Value("${app.storage.local.dir:./data/adjuntos}")
+    private String dir;
+
+    private Path raiz;
+    private Path temporales;
+
+    @PostConstruct
+    void init() throws IOException {
+        raiz = Paths.get(dir).toAbsolutePath().normalize();
+        temporales = Files.createDirectories(raiz.resolve("tmp"));
+        logger.info("📁 Adjuntos en disco: {}", raiz);
+    }
+
+    @Override
+    public BlobGuardado guardar(InputStream contenido, String nombre, String contentType) throws IOException {
+        Path temporal = Files.createTempFile(temporales, "subida-", ".part");
+        try {
+            String sha256 = BlobStore.copiarConHash(contenido, temporal);
+            long tamaño = Files.size(temporal);
+            Path destino = ruta(sha256);
+            Files.createDirectories(destino.getParent());
+            try {
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Mismo contenido ya guardado: se reutiliza
+            }
+            return new BlobGuardado(sha256, sha256, tamaño, null);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    @Override
+    public Optional<Path> archivoLocal(String clave) {
+        if (clave == null || !CLAVE.matcher(clave).matches()) {
+            return Optional.empty();
+        }
+        Path archivo = ruta(clave);
+        return Files.isRegularFile(archivo) ? Optional.of(archivo) : Optional.empty();
+    }
+
+    private Path ruta(String sha256) {
+        return raiz.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+}
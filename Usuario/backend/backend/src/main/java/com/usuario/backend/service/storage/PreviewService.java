@@ -0,0 +1,303 @@
+package com.usuario.backend.service.storage;
+
+import com.usuario.backend.config.UrlConfig;
+import com.usuario.backend.model.entity.Anuncio;
+import com.usuario.backend.repository.AnuncioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Miniaturas de los adjuntos, generadas en segundo plano y dentro del proceso: las imágenes se reducen
+ * y de los PDF se rasteriza la primera página (PDFBox). La miniatura se guarda en el mismo
+ * {@link BlobStore} que el original y el anuncio la referencia en {@code previewUrl}.
+ *
+ * Decodificar y rasterizar cuesta CPU y memoria, así que nunca corre en el hilo de la petición y la
+ * concurrencia la limita un pool acotado. Si la cola está llena o la generación falla por E/S se
+ * reintenta con espera creciente hasta {@code max-intentos}; un formato que no se puede leer no se
+ * reintenta.
+ */
+@Service
+public class PreviewService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PreviewService.class);
+
+    static final String CONTENT_TYPE = "image/jpeg";
+
+    private static final String PDF = "application/pdf";
+
+    @Value("${app.storage.previews.threads:2}")
+    private int threads;
+
+    @Value("${app.storage.previews.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.storage.previews.max-intentos:3}")
+    private int maxIntentos;
+
+    @Value("${app.storage.previews.reintento-ms:5000}")
+    private long reintentoMs;
+
+    // Lado mayor de la miniatura, en píxeles
+    @Value("${app.storage.previews.lado-max:480}")
+    private int ladoMax;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private AdjuntoService adjuntoService;
+
+    @Autowired
+    private AnuncioRepository anuncioRepository;
+
+    @Autowired
+    private UrlConfig urlConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+    private ScheduledThreadPoolExecutor reintentos;
+    private Timer generacionTimer;
+    private Counter generadas;
+    private Counter fallidas;
+    private Counter rechazadas;
+    private Counter reintentadas;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "preview-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        // Solo espera y reencola; el trabajo pesado siempre va al pool
+        this.reintentos = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "preview-reintentos");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.generacionTimer = Timer.builder("anuncios.preview")
+                .description("Tiempo de generación de una miniatura (sin contar la espera en cola)")
+                .register(meterRegistry);
+        this.generadas = Counter.builder("anuncios.preview.generated")
+                .description("Miniaturas generadas")
+                .register(meterRegistry);
+        this.fallidas = Counter.builder("anuncios.preview.failed")
+                .description("Miniaturas descartadas (formato ilegible o intentos agotados)")
+                .register(meterRegistry);
+        this.rechazadas = Counter.builder("anuncios.preview.rejected")
+                .description("Miniaturas rechazadas por cola llena")
+                .register(meterRegistry);
+        this.reintentadas = Counter.builder("anuncios.preview.retries")
+                .description("Reintentos programados")
+                .register(meterRegistry);
+        Gauge.builder("anuncios.preview.queue", executor, e -> e.getQueue().size())
+                .description("Miniaturas en espera")
+                .register(meterRegistry);
+        Gauge.builder("anuncios.preview.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Miniaturas en generación")
+                .register(meterRegistry);
+        Gauge.builder("anuncios.preview.retry.pending", reintentos, e -> e.getQueue().size())
+                .description("Reintentos esperando su turno")
+                .register(meterRegistry);
+
+        logger.info("PreviewService inicializado: {} hilos, cola de {}, {} intentos", threads, queueCapacity, maxIntentos);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reintentos.shutdownNow();
+        executor.shutdown();
+    }
+
+    /**
+     * Encola la miniatura del adjunto del anuncio recién guardado, si es una imagen o un PDF.
+     * No bloquea: la petición que crea el anuncio responde sin esperar.
+     */
+    public void encolar(Anuncio anuncio) {
+        if (anuncio.getArchivoClave() == null || !soportado(anuncio.getArchivoTipo())) {
+            return;
+        }
+        enviar(anuncio.getId(), 1);
+    }
+
+    public static boolean soportado(String contentType) {
+        return contentType != null && (contentType.startsWith("image/") || contentType.equals(PDF));
+    }
+
+    private void enviar(Long anuncioId, int intento) {
+        try {
+            executor.execute(() -> generar(anuncioId, intento));
+        } catch (RejectedExecutionException e) {
+            rechazadas.increment();
+            logger.warn("⚠️ Cola de miniaturas llena ({} en cola), anuncio {}", executor.getQueue().size(), anuncioId);
+            reintentar(anuncioId, intento, e);
+        }
+    }
+
+    private void generar(Long anuncioId, int intento) {
+        // Se relee: el anuncio pudo borrarse o ya tener miniatura (reintento tras un fallo tardío)
+        Optional<Anuncio> actual = anuncioRepository.findById(anuncioId);
+        if (actual.isEmpty() || actual.get().getArchivoClave() == null || actual.get().getPreviewClave() != null) {
+            return;
+        }
+        Anuncio anuncio = actual.get();
+        try {
+            BlobStore.BlobGuardado blob = generacionTimer.recordCallable(() -> guardarMiniatura(anuncio));
+            String url = blob.url() != null
+                    ? blob.url()
+                    : urlConfig.buildBackendUrl("/api/anuncios/" + anuncioId + "/archivo/preview");
+            anuncioRepository.actualizarPreview(anuncioId, blob.clave(), url, LocalDateTime.now());
+            generadas.increment();
+            logger.info("🖼️ Miniatura generada para el anuncio {} ({} bytes)", anuncioId, blob.tamaño());
+        } catch (IllegalArgumentException e) {
+            fallidas.increment();
+            logger.warn("⚠️ Sin miniatura para el anuncio {}: {}", anuncioId, e.getMessage());
+        } catch (Exception e) {
+            reintentar(anuncioId, intento, e);
+        }
+    }
+
+    private void reintentar(Long anuncioId, int intento, Exception causa) {
+        if (intento >= maxIntentos || reintentos.isShutdown()) {
+            fallidas.increment();
+            logger.error("❌ Miniatura del anuncio {} descartada tras {} intentos: {}", anuncioId, intento, causa.getMessage());
+            return;
+        }
+        reintentadas.increment();
+        // Espera exponencial: reintento-ms, 2x, 4x...
+        long espera = reintentoMs << (intento - 1);
+        reintentos.schedule(() -> enviar(anuncioId, intento + 1), espera, TimeUnit.MILLISECONDS);
+    }
+
+    private BlobStore.BlobGuardado guardarMiniatura(Anuncio anuncio) throws IOException {
+        Optional<Path> local = blobStore.archivoLocal(anuncio.getArchivoClave());
+        Path temporal = null;
+        try {
+            Path original;
+            if (local.isPresent()) {
+                original = local.get();
+            } else {
+                // Almacén remoto: PDFBox e ImageIO necesitan acceso aleatorio, se baja a un temporal
+                temporal = Files.createTempFile("preview-", ".part");
+                try (InputStream contenido = adjuntoService.abrir(anuncio.getArchivoClave(), anuncio.getArchivoUrl())) {
+                    Files.copy(contenido, temporal, StandardCopyOption.REPLACE_EXISTING);
+                }
+                original = temporal;
+            }
+
+            BufferedImage miniatura = PDF.equals(anuncio.getArchivoTipo()) ? primeraPagina(original) : reducir(original);
+            ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+            ImageIO.write(miniatura, "jpg", jpeg);
+            return blobStore.guardar(new ByteArrayInputStream(jpeg.toByteArray()), "preview.jpg", CONTENT_TYPE);
+        } finally {
+            if (temporal != null) {
+                Files.deleteIfExists(temporal);
+            }
+        }
+    }
+
+    /**
+     * Primera página rasterizada directamente al tamaño de la miniatura. El documento se carga con
+     * caché en archivos temporales: un PDF grande no pasa por el heap.
+     */
+    private BufferedImage primeraPagina(Path pdf) throws IOException {
+        try (PDDocument documento = Loader.loadPDF(pdf.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+            if (documento.getNumberOfPages() == 0) {
+                throw new IllegalArgumentException("PDF sin páginas");
+            }
+            PDRectangle pagina = documento.getPage(0).getCropBox();
+            float escala = ladoMax / Math.max(pagina.getWidth(), pagina.getHeight());
+            return new PDFRenderer(documento).renderImage(0, escala, ImageType.RGB);
+        }
+    }
+
+    /**
+     * Imagen reducida. Se decodifica con submuestreo (1 de cada N píxeles) hasta el doble del tamaño
+     * final, así una foto de 12 MP no se descomprime entera en memoria; el último paso es bilineal.
+     */
+    private BufferedImage reducir(Path imagen) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(imagen.toFile())) {
+            Iterator<ImageReader> lectores = entrada != null ? ImageIO.getImageReaders(entrada) : null;
+            if (lectores == null || !lectores.hasNext()) {
+                throw new IllegalArgumentException("Formato de imagen no soportado");
+            }
+            ImageReader lector = lectores.next();
+            try {
+                lector.setInput(entrada, true, true);
+                int lado = Math.max(lector.getWidth(0), lector.getHeight(0));
+                ImageReadParam parametros = lector.getDefaultReadParam();
+                int paso = Math.max(1, lado / (ladoMax * 2));
+                parametros.setSourceSubsampling(paso, paso, 0, 0);
+                return escalar(lector.read(0, parametros));
+            } finally {
+                lector.dispose();
+            }
+        }
+    }
+
+    // Ajusta al lado máximo conservando la proporción; fondo blanco para las transparencias (JPEG no tiene alfa)
+    private BufferedImage escalar(BufferedImage origen) {
+        double factor = Math.min(1.0, (double) ladoMax / Math.max(origen.getWidth(), origen.getHeight()));
+        int ancho = Math.max(1, (int) Math.round(origen.getWidth() * factor));
+        int alto = Math.max(1, (int) Math.round(origen.getHeight() * factor));
+        BufferedImage destino = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, ancho, alto);
+            g.drawImage(origen, 0, 0, ancho, alto, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+}
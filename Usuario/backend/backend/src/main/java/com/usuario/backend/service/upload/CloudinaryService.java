@@ -2,16 +2,24 @@ package com.usuario.backend.service.upload;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class CloudinaryService {
@@ -20,40 +28,98 @@ public class CloudinaryService {
     
     @Autowired
     private Cloudinary cloudinary;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Subidas simultáneas a Cloudinary; el resto espera hasta espera-ms y luego se rechaza con 503
+    @Value("${app.upload.max-concurrentes:4}")
+    private int maxConcurrentes;
+
+    @Value("${app.upload.espera-ms:2000}")
+    private long esperaMs;
+
+    private Semaphore permisos;
+    private Counter rejections;
+
+    @PostConstruct
+    public void init() {
+        this.permisos = new Semaphore(maxConcurrentes, true);
+        this.rejections = Counter.builder("upload.image.rejected")
+                .description("Subidas de imágenes rechazadas por límite de concurrencia")
+                .register(meterRegistry);
+        Gauge.builder("upload.image.active", permisos, p -> maxConcurrentes - p.availablePermits())
+                .description("Subidas de imágenes en curso")
+                .register(meterRegistry);
+    }
     
     public String uploadImage(MultipartFile file, String userId) {
-    try {
-        // Generar un ID único para la imagen
-        String publicId = "tecbook_profiles/" + userId + "_" + UUID.randomUUID().toString().substring(0, 8);
-        
-        logger.info("Subiendo imagen para el usuario: {}", userId);
-        
-        // Definir transformación como string
-        String transformation = "c_fill,w_300,h_300,g_face";
-        
-        // Configurar opciones básicas con transformación como string
-        Map<String, Object> options = ObjectUtils.asMap(
-            "public_id", publicId,
-            "overwrite", true,
-            "transformation", transformation
-        );
-        
-        // Subir imagen a Cloudinary
-        Map uploadResult = cloudinary.uploader().upload(file.getBytes(), options);
-        
-        // Obtener la URL segura de la imagen
-        String secureUrl = (String) uploadResult.get("secure_url");
-        
-        logger.info("Imagen subida exitosamente: {}", secureUrl);
-        
-        return secureUrl;
-        
-    } catch (IOException e) {
-        logger.error("Error al subir imagen: {}", e.getMessage(), e);
-        throw new RuntimeException("Error al subir imagen a Cloudinary", e);
+        if (!acquire()) {
+            rejections.increment();
+            logger.warn("⚠️ Subidas de imágenes saturadas ({} en curso)", maxConcurrentes - permisos.availablePermits());
+            throw new UploadCapacityException("Demasiadas subidas de imágenes en curso, intenta nuevamente");
+        }
+        Path temporal = null;
+        try {
+            // Generar un ID único para la imagen
+            String publicId = "tecbook_profiles/" + userId + "_" + UUID.randomUUID().toString().substring(0, 8);
+
+            logger.info("Subiendo imagen para el usuario: {}", userId);
+
+            // Definir transformación como string
+            String transformation = "c_fill,w_300,h_300,g_face";
+
+            // Configurar opciones básicas con transformación como string
+            Map<String, Object> options = ObjectUtils.asMap(
+                "public_id", publicId,
+                "overwrite", true,
+                "transformation", transformation
+            );
+
+            // Sin getBytes(): el multipart ya está en un temporal de Tomcat y transferTo(File) lo mueve
+            // (rename) en lugar de copiarlo; el SDK lo envía desde el archivo en streaming
+            temporal = Files.createTempFile("perfil-", ".upload");
+            file.transferTo(temporal.toFile());
+
+            // Subir imagen a Cloudinary
+            Map uploadResult = cloudinary.uploader().upload(temporal.toFile(), options);
+
+            // Obtener la URL segura de la imagen
+            String secureUrl = (String) uploadResult.get("secure_url");
+
+            logger.info("Imagen subida exitosamente: {}", secureUrl);
+
+            return secureUrl;
+
+        } catch (IOException e) {
+            logger.error("Error al subir imagen: {}", e.getMessage(), e);
+            throw new RuntimeException("Error al subir imagen a Cloudinary", e);
+        } finally {
+            permisos.release();
+            borrar(temporal);
+        }
     }
-}
-    
+
+    private boolean acquire() {
+        try {
+            return permisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void borrar(Path temporal) {
+        if (temporal == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temporal);
+        } catch (IOException e) {
+            logger.warn("No se pudo borrar el temporal {}: {}", temporal, e.getMessage());
+        }
+    }
+
     public void deleteImage(String publicId) {
         try {
             // Eliminar imagen de Cloudinary
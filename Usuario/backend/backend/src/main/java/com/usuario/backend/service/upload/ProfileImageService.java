@@ -57,6 +57,8 @@ public class ProfileImageService {
             response.put("previousImageUrl", previousImageUrl); // Para posible rollback
             
             return response;
+        } catch (UploadCapacityException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error al procesar imagen de perfil para {}: {}", userEmail, e.getMessage(), e);
             throw new RuntimeException("Error al procesar la imagen: " + e.getMessage());
@@ -0,0 +1,15 @@
+package com.usuario.backend.service.upload;
+
+/**
+ * Hay demasiadas subidas de imágenes en curso: la petición debe reintentarse más tarde.
+ */
+public class UploadCapacityException extends RuntimeException {
+
+    public UploadCapacityException(String message) {
+        super(message);
+    }
+
+    public UploadCapacityException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,15 @@
+package com.usuario.backend.service.user;
+
+/**
+ * El pool de hashing de contraseñas está saturado: la petición debe reintentarse más tarde.
+ */
+public class HashingCapacityException extends RuntimeException {
+
+    public HashingCapacityException(String message) {
+        super(message);
+    }
+
+    public HashingCapacityException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,134 @@
+package com.usuario.backend.service.user;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Control de admisión para el login: limita intentos por IP y fallos por cuenta e IP en ventanas fijas.
+ * Se consulta antes de tocar BCrypt, así un cliente insistente no consume el pool de hashing.
+ *
+ * Los fallos cuentan por (cuenta, IP): quien conoce el correo de un estudiante solo se bloquea a sí
+ * mismo, no al estudiante que entra desde otra red.
+ */
+@Service
+public class LoginThrottleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginThrottleService.class);
+
+    @Value("${app.auth.login.max-failures-per-account:5}")
+    private int maxFailuresPerAccount;
+
+    @Value("${app.auth.login.account-window-ms:300000}")
+    private long accountWindowMs;
+
+    @Value("${app.auth.login.max-attempts-per-ip:30}")
+    private int maxAttemptsPerIp;
+
+    @Value("${app.auth.login.ip-window-ms:60000}")
+    private long ipWindowMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, Window> failuresByAccountAndIp = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Window> attemptsByIp = new ConcurrentHashMap<>();
+
+    private Counter throttled;
+
+    @PostConstruct
+    public void init() {
+        this.throttled = Counter.builder("auth.login.throttled")
+                .description("Intentos de login rechazados por exceso de intentos")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra el intento y devuelve los segundos que el cliente debe esperar, o 0 si puede continuar.
+     */
+    public long acquire(String correoInstitucional, String ip) {
+        long now = System.currentTimeMillis();
+
+        Window account = failuresByAccountAndIp.get(accountKey(correoInstitucional, ip));
+        if (account != null && account.isActive(now, accountWindowMs) && account.count.get() >= maxFailuresPerAccount) {
+            throttled.increment();
+            logger.warn("⚠️ Login bloqueado temporalmente para cuenta {} desde IP {}", correoInstitucional, ip);
+            return account.secondsLeft(now, accountWindowMs);
+        }
+
+        Window byIp = current(attemptsByIp, ip, now, ipWindowMs);
+        if (byIp.count.incrementAndGet() > maxAttemptsPerIp) {
+            throttled.increment();
+            logger.warn("⚠️ Demasiados intentos de login desde IP: {}", ip);
+            return byIp.secondsLeft(now, ipWindowMs);
+        }
+        return 0;
+    }
+
+    public void recordFailure(String correoInstitucional, String ip) {
+        current(failuresByAccountAndIp, accountKey(correoInstitucional, ip), System.currentTimeMillis(), accountWindowMs)
+                .count.incrementAndGet();
+    }
+
+    public void recordSuccess(String correoInstitucional, String ip) {
+        failuresByAccountAndIp.remove(accountKey(correoInstitucional, ip));
+    }
+
+    /**
+     * IP del cliente. X-Forwarded-For no se lee aquí: cualquiera puede enviarlo. Con
+     * {@code server.forward-headers-strategy=native} Tomcat (RemoteIpValve) sustituye la dirección
+     * remota solo cuando la petición llega desde un proxy de confianza
+     * ({@code server.tomcat.remoteip.internal-proxies}).
+     */
+    public static String clientIp(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * Descarta ventanas vencidas para que los mapas no crezcan sin límite
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        failuresByAccountAndIp.values().removeIf(window -> !window.isActive(now, accountWindowMs));
+        attemptsByIp.values().removeIf(window -> !window.isActive(now, ipWindowMs));
+    }
+
+    private static Window current(ConcurrentHashMap<String, Window> windows, String key, long now, long windowMs) {
+        return windows.compute(key == null ? "" : key,
+                (k, window) -> window != null && window.isActive(now, windowMs) ? window : new Window(now));
+    }
+
+    private static String accountKey(String correoInstitucional, String ip) {
+        String correo = correoInstitucional == null ? "" : correoInstitucional.trim().toLowerCase(Locale.ROOT);
+        return correo + "|" + ip;
+    }
+
+    private static final class Window {
+        private final long start;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private Window(long start) {
+            this.start = start;
+        }
+
+        private boolean isActive(long now, long windowMs) {
+            return now - start < windowMs;
+        }
+
+        private long secondsLeft(long now, long windowMs) {
+            return Math.max(1, (start + windowMs - now + 999) / 1000);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.usuario.backend.service.user;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt en un pool dedicado y acotado.
+ *
+ * Cada hash cuesta ~100 ms de CPU; ejecutarlos en los hilos de Tomcat deja sin hilos al resto
+ * de peticiones cuando entra una cohorte completa a la vez. Aquí el trabajo concurrente está
+ * limitado por el tamaño del pool y la cola; si la cola está llena se rechaza de inmediato
+ * con {@link HashingCapacityException} (503) en lugar de encolar sin límite.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    // 0 = un hilo por núcleo disponible
+    @Value("${app.auth.hashing.threads:0}")
+    private int threads;
+
+    @Value("${app.auth.hashing.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${app.auth.hashing.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+
+    private ThreadPoolExecutor executor;
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Counter rejections;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("auth.password.hash")
+                .tag("operation", "encode")
+                .description("Latencia de BCrypt (sin contar la espera en cola)")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.password.hash")
+                .tag("operation", "matches")
+                .description("Latencia de BCrypt (sin contar la espera en cola)")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("auth.password.hash.rejected")
+                .description("Operaciones rechazadas por pool de hashing saturado")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.queue", executor, e -> e.getQueue().size())
+                .description("Operaciones de hashing en espera")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Operaciones de hashing en ejecución")
+                .register(meterRegistry);
+
+        logger.info("PasswordHashingService inicializado: {} hilos, cola de {}", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public String encode(String rawPassword) {
+        return submit(() -> encodeTimer.recordCallable(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.recordCallable(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            logger.warn("⚠️ Pool de hashing saturado ({} en cola)", executor.getQueue().size());
+            throw new HashingCapacityException("Servicio de autenticación saturado, intenta nuevamente", e);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejections.increment();
+            throw new HashingCapacityException("Tiempo de espera agotado en el servicio de autenticación", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new HashingCapacityException("Operación de hashing interrumpida", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Error en hashing de contraseña", cause);
+        }
+    }
+}
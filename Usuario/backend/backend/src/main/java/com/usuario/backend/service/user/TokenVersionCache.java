@@ -0,0 +1,161 @@
+package com.usuario.backend.service.user;
+
+import com.usuario.backend.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versión de token por usuario, cacheada para no leer {@code usuarios} en cada petición.
+ *
+ * El tamaño está acotado y las entradas vencidas se barren. Un cambio de versión se apunta en
+ * {@code cambios_token_version}; cada nodo lee esa tabla de forma incremental (como las
+ * revocaciones) y descarta las entradas afectadas, así que un rol degradado deja de valer en
+ * todas las instancias en unos segundos y no al vencer el TTL.
+ */
+@Component
+public class TokenVersionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenVersionCache.class);
+
+    public static final String SQL_REGISTRAR = "INSERT INTO cambios_token_version (usuario_id, creado_en) VALUES (?, ?)";
+
+    public static final String SQL_CAMBIOS = "SELECT id, usuario_id FROM cambios_token_version WHERE id > ? ORDER BY id LIMIT ?";
+
+    public static final String SQL_PURGAR = "DELETE FROM cambios_token_version WHERE creado_en < ?";
+
+    private static final int PAGE_SIZE = 500;
+
+    // Los ids IDENTITY pueden confirmarse fuera de orden: se relee una ventana corta hacia atrás
+    private static final long ID_LOOKBACK = 200;
+
+    @Value("${app.jwt.token-version-cache-ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.jwt.token-version-cache.max-entries:50000}")
+    private int maxEntries;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<Long, Cached> versions = new ConcurrentHashMap<>();
+    private volatile long lastSeenId = 0;
+
+    private Counter uncached;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("jwt.token.versions.cached", versions, ConcurrentHashMap::size)
+                .description("Versiones de token cacheadas en este nodo")
+                .register(meterRegistry);
+        this.uncached = Counter.builder("jwt.token.versions.uncached")
+                .description("Lecturas no cacheadas por cache llena")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Versión vigente, o -1 si el usuario ya no existe.
+     */
+    public int get(Long usuarioId) {
+        long now = System.currentTimeMillis();
+        Cached cached = versions.get(usuarioId);
+        if (cached != null && now - cached.loadedAt() < ttlMs) {
+            return cached.version();
+        }
+        Integer version = usuarioRepository.findTokenVersionById(usuarioId);
+        int current = version != null ? version : -1;
+        if (cached == null && versions.size() >= maxEntries) {
+            purgeExpired();
+            if (versions.size() >= maxEntries) {
+                // Llena de entradas vigentes: se responde sin cachear en vez de crecer
+                uncached.increment();
+                return current;
+            }
+        }
+        versions.put(usuarioId, new Cached(current, now));
+        return current;
+    }
+
+    /**
+     * Descarta la versión en este nodo y la apunta para los demás. Si no se puede apuntar, los otros
+     * nodos la releen al vencer el TTL.
+     */
+    public void invalidate(Long usuarioId) {
+        versions.remove(usuarioId);
+        try {
+            jdbcTemplate.update(SQL_REGISTRAR, usuarioId, System.currentTimeMillis());
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudo propagar el cambio de versión del usuario {}: {}", usuarioId, e.getMessage());
+        }
+    }
+
+    public int size() {
+        return versions.size();
+    }
+
+    /**
+     * Cambios de versión hechos en otras instancias.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.token-version-cache.refresh-ms:5000}",
+            initialDelayString = "${app.jwt.token-version-cache.refresh-ms:5000}")
+    public synchronized void refresh() {
+        try {
+            long cursor = Math.max(0, lastSeenId - ID_LOOKBACK);
+            while (true) {
+                List<long[]> cambios = jdbcTemplate.query(SQL_CAMBIOS,
+                        (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2)}, cursor, PAGE_SIZE);
+                for (long[] cambio : cambios) {
+                    versions.remove(cambio[1]);
+                    cursor = cambio[0];
+                }
+                if (cursor > lastSeenId) {
+                    lastSeenId = cursor;
+                }
+                if (cambios.size() < PAGE_SIZE) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudieron leer los cambios de versión de token: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        versions.values().removeIf(cached -> now - cached.loadedAt() >= ttlMs);
+    }
+
+    /**
+     * Elimina los cambios que ya no puede tener cacheados ningún nodo.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.token-version-cache-ttl-ms:60000}")
+    public void purgeCambios() {
+        try {
+            // Pasado el TTL ningún nodo conserva la versión anterior; el resto es margen
+            jdbcTemplate.update(SQL_PURGAR, System.currentTimeMillis() - 10 * ttlMs);
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudieron purgar los cambios de versión de token: {}", e.getMessage());
+        }
+    }
+
+    private record Cached(int version, long loadedAt) {
+    }
+}
@@ -1,7 +1,9 @@
 package com.usuario.backend.service.user;
 
 import com.usuario.backend.model.entity.Usuario;
+import com.usuario.backend.repository.AnuncioRepository;
 import com.usuario.backend.repository.UsuarioRepository;
+import com.usuario.backend.service.realtime.EventHub;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,10 +12,11 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.Objects;
 import java.util.Random;
 
 @Service
@@ -24,7 +27,19 @@ public class UsuarioService implements UserDetailsService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
-    private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    // BCrypt fuera de los hilos de Tomcat, en un pool acotado
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private EventHub eventHub;
+
+    @Autowired
+    private AnuncioRepository anuncioRepository;
+
+    // Versiones de token por usuario, acotadas e invalidadas en todos los nodos
+    @Autowired
+    private TokenVersionCache tokenVersions;
 
     // ========== REGISTRO NORMAL ==========
     
@@ -45,7 +60,7 @@ public class UsuarioService implements UserDetailsService {
             
             // Encriptar contraseña
             String passwordOriginal = usuario.getPassword();
-            usuario.setPassword(passwordEncoder.encode(passwordOriginal));
+            usuario.setPassword(passwordHashingService.encode(passwordOriginal));
             
             // Guardar y verificar
             Usuario saved = usuarioRepository.save(usuario);
@@ -75,7 +90,7 @@ public class UsuarioService implements UserDetailsService {
             
             // Asegurar campos mínimos
             if (usuario.getPassword() == null) {
-                usuario.setPassword(passwordEncoder.encode(generateRandomPassword()));
+                usuario.setPassword(passwordHashingService.encode(generateRandomPassword()));
             }
             if (usuario.getRol() == null) {
                 usuario.setRol(Usuario.RolUsuario.ESTUDIANTE);
@@ -100,12 +115,20 @@ public class UsuarioService implements UserDetailsService {
             Usuario existingUser = usuarioRepository.findByCorreoInstitucional(usuario.getCorreoInstitucional());
             
             if (existingUser != null) {
+                String nombre = existingUser.getNombre();
+                String apellidos = existingUser.getApellidos();
+                String foto = existingUser.getProfileImageUrl();
+
                 // Actualizar datos existentes
                 if (usuario.getNombre() != null) existingUser.setNombre(usuario.getNombre());
                 if (usuario.getApellidos() != null) existingUser.setApellidos(usuario.getApellidos());
                 if (usuario.getProfileImageUrl() != null) existingUser.setProfileImageUrl(usuario.getProfileImageUrl());
                 
-                return usuarioRepository.save(existingUser);
+                Usuario saved = usuarioRepository.save(existingUser);
+                if (datosDeAutorCambiados(nombre, apellidos, foto, saved)) {
+                    tocarAnunciosDeAutor(saved.getId());
+                }
+                return saved;
             } else {
                 // Crear nuevo con datos mínimos
                 return guardarUsuarioOAuth2(usuario);
@@ -141,11 +164,14 @@ public class UsuarioService implements UserDetailsService {
                 return false;
             }
             
-            boolean matches = passwordEncoder.matches(password, usuario.getPassword());
+            boolean matches = passwordHashingService.matches(password, usuario.getPassword());
             logger.info("🔐 Autenticación {}: {}", matches ? "exitosa" : "fallida", correoInstitucional);
             
             return matches;
             
+        } catch (HashingCapacityException e) {
+            // Saturación: no es un fallo de credenciales, el controlador responde 503
+            throw e;
         } catch (Exception e) {
             logger.error("❌ Error autenticación: {}", e.getMessage(), e);
             return false;
@@ -180,20 +206,41 @@ public class UsuarioService implements UserDetailsService {
         try {
             logger.info("📝 Actualizando usuario: {}", usuario.getId());
             
+            Usuario existing = usuarioRepository.findById(usuario.getId()).orElse(null);
+            
             // Solo encriptar si la contraseña es nueva
             if (usuario.getPassword() != null && !usuario.getPassword().isEmpty()) {
                 if (!usuario.getPassword().startsWith("$2")) {
-                    usuario.setPassword(passwordEncoder.encode(usuario.getPassword()));
+                    usuario.setPassword(passwordHashingService.encode(usuario.getPassword()));
                 }
-            } else {
+            } else if (existing != null) {
                 // Mantener contraseña existente
-                Usuario existing = usuarioRepository.findById(usuario.getId()).orElse(null);
-                if (existing != null) {
-                    usuario.setPassword(existing.getPassword());
-                }
+                usuario.setPassword(existing.getPassword());
+            }
+            
+            // 🔑 Cambio de rol o correo: los JWT emitidos antes dejan de ser válidos. Se compara con la fila
+            // de la BD y no con findById, que devuelve la misma instancia gestionada que llega ya modificada
+            boolean identidadCambiada = false;
+            boolean autorCambiado = false;
+            UsuarioRepository.Identidad guardada = usuario.getId() != null
+                    ? usuarioRepository.findIdentidadById(usuario.getId()) : null;
+            if (guardada != null) {
+                identidadCambiada = guardada.getRol() != usuario.getRol() ||
+                        !Objects.equals(guardada.getCorreoInstitucional(), usuario.getCorreoInstitucional());
+                usuario.setTokenVersion(guardada.getTokenVersion() + (identidadCambiada ? 1 : 0));
+                autorCambiado = datosDeAutorCambiados(guardada.getNombre(), guardada.getApellidos(),
+                        guardada.getProfileImageUrl(), usuario);
             }
             
             Usuario updated = usuarioRepository.save(usuario);
+            if (autorCambiado) {
+                tocarAnunciosDeAutor(updated.getId());
+            }
+            if (identidadCambiada) {
+                tokenVersions.invalidate(updated.getId());
+                eventHub.closeUser(updated.getId());
+                logger.info("🔑 Versión de token incrementada para usuario {}: {}", updated.getId(), updated.getTokenVersion());
+            }
             logger.info("✅ Usuario actualizado: {}", updated.getId());
             
             return updated;
@@ -211,6 +258,13 @@ public class UsuarioService implements UserDetailsService {
         return usuarioRepository.findByCorreoInstitucional(correoInstitucional);
     }
 
+    /**
+     * 🔑 Versión vigente de los tokens del usuario, o -1 si el usuario ya no existe
+     */
+    public int getTokenVersion(Long usuarioId) {
+        return tokenVersions.get(usuarioId);
+    }
+
     /**
      * 🔍 Busca usuario por ID
      */
@@ -233,6 +287,26 @@ public class UsuarioService implements UserDetailsService {
     }
 
     // ========== MÉTODOS AUXILIARES ==========
+
+    // Nombre y foto van embebidos en las tarjetas del feed de sus anuncios
+    private static boolean datosDeAutorCambiados(String nombre, String apellidos, String foto, Usuario usuario) {
+        return !Objects.equals(nombre, usuario.getNombre())
+                || !Objects.equals(apellidos, usuario.getApellidos())
+                || !Objects.equals(foto, usuario.getProfileImageUrl());
+    }
+
+    /**
+     * 🏷️ Avanza la versión de los anuncios del autor para que el ETag del feed no devuelva 304 con su
+     * nombre o foto anteriores
+     */
+    private void tocarAnunciosDeAutor(Long usuarioId) {
+        try {
+            int anuncios = anuncioRepository.tocarAnunciosDeAutor(usuarioId.intValue(), LocalDateTime.now());
+            logger.debug("🏷️ Perfil de autor cambiado: {} anuncios del usuario {} con nueva versión", anuncios, usuarioId);
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudo actualizar la versión de los anuncios del usuario {}: {}", usuarioId, e.getMessage());
+        }
+    }
     
     /**
      * 🔒 Genera contraseña aleatoria para OAuth2
@@ -266,4 +340,4 @@ public class UsuarioService implements UserDetailsService {
             throw new IllegalArgumentException("Los apellidos son requeridos");
         }
     }
-}
\ No newline at end of file
+}
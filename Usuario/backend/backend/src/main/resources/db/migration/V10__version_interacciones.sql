@@ -0,0 +1,4 @@
+-- ✅ Versión del estado propio de cada usuario en el feed (userLiked, userRead). La suben en la misma
+-- transacción las escrituras de likes y lecturas; el ETag la lee por clave primaria, sin recorrer
+-- los likes ni las lecturas del usuario, y vale igual en todas las instancias
+ALTER TABLE usuarios ADD COLUMN version_interacciones BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- ✅ Las tarjetas del feed embeben nombre y foto del autor: al cambiar su perfil se avanza la
+-- ultima_actividad de sus anuncios (invalida el ETag) sin recorrer la tabla
+CREATE INDEX idx_anuncios_autor ON anuncios (autor_id);
@@ -0,0 +1,169 @@
+-- ✅ Esquema base (el que hasta ahora creaba Hibernate con ddl-auto=update).
+-- IF NOT EXISTS: en una BD existente esta migración no cambia nada; en una nueva crea las tablas
+-- antes de que V2 les añada los índices.
+
+CREATE TABLE IF NOT EXISTS departamentos (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nombre VARCHAR(255) NOT NULL,
+    codigo VARCHAR(255),
+    activo BIT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_departamentos_codigo UNIQUE (codigo)
+);
+
+CREATE TABLE IF NOT EXISTS carreras (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nombre VARCHAR(100) NOT NULL,
+    codigo VARCHAR(10) NOT NULL,
+    departamento_id BIGINT NOT NULL,
+    activo BIT NOT NULL,
+    descripcion TEXT,
+    duracion_ciclos INT,
+    modalidad VARCHAR(50),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_carreras_codigo UNIQUE (codigo)
+);
+
+CREATE TABLE IF NOT EXISTS ciclos (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    numero INT NOT NULL,
+    nombre VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS secciones (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nombre VARCHAR(255) NOT NULL,
+    codigo VARCHAR(255),
+    ciclo INT NOT NULL,
+    carrera_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_secciones_codigo UNIQUE (codigo)
+);
+
+CREATE TABLE IF NOT EXISTS usuarios (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nombre VARCHAR(255) NOT NULL,
+    apellidos VARCHAR(255) NOT NULL,
+    correo_institucional VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    rol ENUM('ESTUDIANTE', 'PROFESOR', 'ADMIN') NOT NULL,
+    ciclo_actual INT,
+    seccion_id BIGINT,
+    carrera_id BIGINT,
+    departamento_id BIGINT,
+    profile_image_url VARCHAR(255),
+    telefono VARCHAR(255),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    token_version INT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_usuarios_correo UNIQUE (correo_institucional)
+);
+
+CREATE TABLE IF NOT EXISTS aulas_virtuales (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nombre VARCHAR(255) NOT NULL,
+    titulo VARCHAR(255),
+    descripcion VARCHAR(255),
+    codigo_acceso VARCHAR(255) NOT NULL,
+    profesor_id BIGINT NOT NULL,
+    seccion_id BIGINT,
+    estado VARCHAR(255),
+    fecha_inicio DATE,
+    fecha_fin DATE,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_aulas_virtuales_codigo UNIQUE (codigo_acceso)
+);
+
+CREATE TABLE IF NOT EXISTS aula_estudiantes (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    aula_id BIGINT NOT NULL,
+    estudiante_id BIGINT NOT NULL,
+    estado ENUM('invitado', 'activo', 'inactivo'),
+    fecha_union DATETIME(6),
+    fecha_salida DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS invitaciones_aula (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    aula_virtual_id BIGINT NOT NULL,
+    invitado_por_id BIGINT NOT NULL,
+    correo_invitado VARCHAR(255) NOT NULL,
+    codigo_invitacion VARCHAR(255) NOT NULL,
+    estado VARCHAR(255),
+    mensaje VARCHAR(255),
+    fecha_invitacion DATETIME(6),
+    fecha_expiracion DATETIME(6),
+    fecha_respuesta DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_invitaciones_codigo UNIQUE (codigo_invitacion)
+);
+
+CREATE TABLE IF NOT EXISTS anuncios (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    titulo VARCHAR(255) NOT NULL,
+    contenido TEXT NOT NULL,
+    tipo VARCHAR(255) NOT NULL,
+    archivo_url VARCHAR(500),
+    archivo_nombre VARCHAR(255),
+    archivo_tipo VARCHAR(100),
+    `archivo_tamaño` BIGINT,
+    categoria VARCHAR(100),
+    etiquetas JSON,
+    permite_comentarios BIT,
+    total_likes INT,
+    total_comentarios INT,
+    aula_id INT NOT NULL,
+    autor_id INT NOT NULL,
+    fecha_publicacion DATETIME(6),
+    fecha_edicion DATETIME(6),
+    activo BIT,
+    fijado BIT,
+    es_general BIT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS comentarios (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    usuario_id INT NOT NULL,
+    anuncio_id BIGINT NOT NULL,
+    contenido TEXT NOT NULL,
+    comentario_padre_id BIGINT,
+    activo BIT,
+    fecha_creacion DATETIME(6),
+    fecha_actualizacion DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS likes (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    usuario_id INT NOT NULL,
+    anuncio_id BIGINT NOT NULL,
+    fecha_creacion DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_likes_usuario_anuncio UNIQUE (usuario_id, anuncio_id)
+);
+
+CREATE TABLE IF NOT EXISTS lecturas (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    usuario_id INT NOT NULL,
+    anuncio_id BIGINT NOT NULL,
+    fecha_lectura DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_lecturas_usuario_anuncio UNIQUE (usuario_id, anuncio_id)
+);
+
+CREATE TABLE IF NOT EXISTS tokens_revocados (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    jti VARCHAR(64) NOT NULL,
+    expira_en BIGINT NOT NULL,
+    fecha_revocacion DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_tokens_revocados_jti UNIQUE (jti)
+);
@@ -0,0 +1,36 @@
+-- ✅ Índices compuestos de las consultas calientes: columnas de igualdad primero, después las del
+-- ORDER BY o el rango, para que MySQL filtre y ordene desde el índice sin filesort ni full scan.
+-- ExplainPlanTest ejecuta EXPLAIN sobre cada consulta de los repositorios y falla si alguna recorre
+-- la tabla entera.
+
+-- Anuncios de un aula / generales, más recientes primero
+CREATE INDEX idx_anuncios_aula_activo_fecha ON anuncios (aula_id, activo, fecha_publicacion);
+CREATE INDEX idx_anuncios_general_activo_fecha ON anuncios (es_general, activo, fecha_publicacion);
+
+-- Aulas de un estudiante y roster de un aula (cubrientes: no tocan la fila)
+CREATE INDEX idx_aula_estudiantes_estudiante_estado ON aula_estudiantes (estudiante_id, estado, aula_id);
+CREATE INDEX idx_aula_estudiantes_aula_estado ON aula_estudiantes (aula_id, estado, estudiante_id);
+
+-- Invitaciones pendientes por correo (la expiración va como rango al final) y por aula
+CREATE INDEX idx_invitaciones_correo_estado_exp ON invitaciones_aula (correo_invitado, estado, fecha_expiracion);
+CREATE INDEX idx_invitaciones_aula_estado ON invitaciones_aula (aula_virtual_id, estado);
+
+-- Aulas por profesor, por estado y por sección
+CREATE INDEX idx_aulas_profesor_estado_inicio ON aulas_virtuales (profesor_id, estado, fecha_inicio);
+CREATE INDEX idx_aulas_estado_inicio ON aulas_virtuales (estado, fecha_inicio);
+CREATE INDEX idx_aulas_seccion_estado ON aulas_virtuales (seccion_id, estado);
+
+-- Comentarios de un anuncio en orden keyset (fecha_creacion, id) y respuestas de un hilo
+CREATE INDEX idx_comentarios_anuncio_activo_fecha ON comentarios (anuncio_id, activo, fecha_creacion, id);
+CREATE INDEX idx_comentarios_padre_activo ON comentarios (comentario_padre_id, activo);
+
+-- Lecturas y likes por anuncio (la clave única empieza por usuario_id y no sirve para estas)
+CREATE INDEX idx_lecturas_anuncio_usuario ON lecturas (anuncio_id, usuario_id);
+CREATE INDEX idx_likes_anuncio ON likes (anuncio_id);
+
+-- Catálogos académicos filtrados por su padre
+CREATE INDEX idx_carreras_departamento_activo ON carreras (departamento_id, activo);
+CREATE INDEX idx_secciones_carrera_ciclo ON secciones (carrera_id, ciclo);
+
+-- Purga de revocaciones vencidas
+CREATE INDEX idx_tokens_revocados_expira ON tokens_revocados (expira_en);
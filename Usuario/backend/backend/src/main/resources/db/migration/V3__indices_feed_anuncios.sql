@@ -0,0 +1,11 @@
+-- ✅ Feed de anuncios paginado por keyset sobre (fijado, fecha_publicacion, id), todo DESC.
+-- El cursor compara esas tres columnas: se normalizan los NULL para que ninguna fila quede
+-- fuera de la paginación. Sin fecha van al final, igual que ya los ordenaba MySQL en DESC.
+UPDATE anuncios SET fijado = FALSE WHERE fijado IS NULL;
+UPDATE anuncios SET fecha_publicacion = COALESCE(fecha_edicion, '1970-01-01 00:00:00') WHERE fecha_publicacion IS NULL;
+
+-- Los índices de V2 no incluyen fijado: se reemplazan por los que siguen el orden del feed
+ALTER TABLE anuncios DROP INDEX idx_anuncios_aula_activo_fecha;
+ALTER TABLE anuncios DROP INDEX idx_anuncios_general_activo_fecha;
+CREATE INDEX idx_anuncios_aula_feed ON anuncios (aula_id, activo, fijado, fecha_publicacion, id);
+CREATE INDEX idx_anuncios_general_feed ON anuncios (es_general, activo, fijado, fecha_publicacion, id);
@@ -0,0 +1,4 @@
+-- ✅ Inicio (/api/feed): cada aula y los generales se leen por fecha sin considerar fijado,
+-- orden que los índices del feed paginado (con fijado en medio) no pueden dar sin filesort
+CREATE INDEX idx_anuncios_aula_timeline ON anuncios (aula_id, activo, fecha_publicacion, id);
+CREATE INDEX idx_anuncios_general_timeline ON anuncios (es_general, activo, fecha_publicacion, id);
@@ -0,0 +1,12 @@
+-- ✅ Versión barata para GET condicional (ETag / If-None-Match).
+-- ultima_actividad avanza con cualquier cambio visible en la tarjeta: alta, edición, baja y contadores.
+-- MAX(ultima_actividad) sobre el prefijo del índice es una sola lectura, sin recorrer los anuncios.
+ALTER TABLE anuncios ADD COLUMN ultima_actividad DATETIME(6) NULL;
+
+UPDATE anuncios SET ultima_actividad = COALESCE(fecha_edicion, fecha_publicacion, '1970-01-01');
+
+CREATE INDEX idx_anuncios_aula_actividad ON anuncios (aula_id, ultima_actividad);
+CREATE INDEX idx_anuncios_general_actividad ON anuncios (es_general, ultima_actividad);
+
+-- Lista de aulas del profesor: última edición y total desde el índice
+CREATE INDEX idx_aulas_profesor_actualizacion ON aulas_virtuales (profesor_id, updated_at);
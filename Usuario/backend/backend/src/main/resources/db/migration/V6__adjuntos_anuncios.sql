@@ -0,0 +1,3 @@
+-- ✅ Adjuntos guardados en el BlobStore: clave de almacenamiento y SHA-256 del contenido (ETag)
+ALTER TABLE anuncios ADD COLUMN archivo_clave VARCHAR(255) NULL;
+ALTER TABLE anuncios ADD COLUMN archivo_hash VARCHAR(64) NULL;
@@ -0,0 +1,3 @@
+-- ✅ Miniatura del adjunto (imágenes y primera página de PDF) generada en segundo plano
+ALTER TABLE anuncios ADD COLUMN preview_clave VARCHAR(255) NULL;
+ALTER TABLE anuncios ADD COLUMN preview_url VARCHAR(500) NULL;
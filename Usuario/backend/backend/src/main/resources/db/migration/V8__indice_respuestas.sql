@@ -0,0 +1,5 @@
+-- ✅ Respuestas de un hilo en orden keyset (fecha_creacion, id): el tope de respuestas por raíz
+-- (ROW_NUMBER por comentario_padre_id) y la página de respuestas se resuelven sobre el índice.
+-- Reemplaza al índice (comentario_padre_id, activo), que es su prefijo
+CREATE INDEX idx_comentarios_padre_activo_fecha ON comentarios (comentario_padre_id, activo, fecha_creacion, id);
+DROP INDEX idx_comentarios_padre_activo ON comentarios;
@@ -0,0 +1,10 @@
+-- ✅ Cambios de versión de token (rol o correo). Cada nodo los lee por id de forma incremental para
+-- descartar su versión cacheada; las filas más antiguas que el TTL de esa cache se purgan
+CREATE TABLE IF NOT EXISTS cambios_token_version (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    usuario_id BIGINT NOT NULL,
+    creado_en BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_cambios_token_version_creado ON cambios_token_version (creado_en);
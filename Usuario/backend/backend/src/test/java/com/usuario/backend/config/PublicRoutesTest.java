@@ -0,0 +1,66 @@
+package com.usuario.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Trie de rutas públicas: literales, {@code *} de un segmento y {@code **} final.
+ */
+class PublicRoutesTest {
+
+    private final PublicRoutes routes = new PublicRoutes();
+
+    @Test
+    void rutasLiterales() {
+        assertTrue(routes.isPublic("/"));
+        assertTrue(routes.isPublic("/api/usuarios/login"));
+        assertTrue(routes.isPublic("/error"));
+
+        assertFalse(routes.isPublic("/api/usuarios"));
+        assertFalse(routes.isPublic("/api/usuarios/loginx"));
+        assertFalse(routes.isPublic("/api/usuarios/login/otra"));
+        assertFalse(routes.isPublic("/api/feed"));
+    }
+
+    @Test
+    void comodinDeUnSegmento() {
+        assertTrue(routes.isPublic("/api/ciclos/carrera/5"));
+        assertTrue(routes.isPublic("/api/carreras/departamento/3/activas"));
+        assertTrue(routes.isPublic("/api/secciones/carrera/1/ciclo/2"));
+
+        assertFalse(routes.isPublic("/api/ciclos/carrera"));
+        assertFalse(routes.isPublic("/api/ciclos/carrera/"));
+        assertFalse(routes.isPublic("/api/ciclos/carrera/5/6"));
+        assertFalse(routes.isPublic("/api/carreras/departamento//activas"));
+    }
+
+    @Test
+    void dobleComodinFinalAdmiteCeroOMasSegmentos() {
+        assertTrue(routes.isPublic("/oauth2"));
+        assertTrue(routes.isPublic("/oauth2/authorization/google"));
+        assertTrue(routes.isPublic("/api/public/a/b/c"));
+
+        assertFalse(routes.isPublic("/oauth2x"));
+    }
+
+    @Test
+    void pathsInvalidosNoSonPublicos() {
+        assertFalse(routes.isPublic(null));
+        assertFalse(routes.isPublic(""));
+        assertFalse(routes.isPublic("api/usuarios/login"));
+    }
+
+    @Test
+    void laPeticionSeEvaluaSinElContextPath() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/app/api/auth/login");
+        request.setContextPath("/app");
+        assertTrue(routes.matches(request));
+
+        MockHttpServletRequest privada = new MockHttpServletRequest("GET", "/app/api/feed");
+        privada.setContextPath("/app");
+        assertFalse(routes.matches(privada));
+    }
+}
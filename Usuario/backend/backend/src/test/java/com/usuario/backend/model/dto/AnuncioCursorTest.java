@@ -0,0 +1,53 @@
+package com.usuario.backend.model.dto;
+
+import com.usuario.backend.model.entity.Anuncio;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Cursor de los feeds de aula y generales: ida y vuelta, y texto manipulado.
+ */
+class AnuncioCursorTest {
+
+    @Test
+    void idaYVuelta() {
+        AnuncioCursor fijado = new AnuncioCursor(true, LocalDateTime.of(2025, 3, 1, 10, 15, 30, 5000), 42L);
+        AnuncioCursor normal = new AnuncioCursor(false, LocalDateTime.of(2025, 3, 1, 10, 15), 43L);
+
+        assertEquals(fijado, AnuncioCursor.decode(fijado.encode()));
+        assertEquals(normal, AnuncioCursor.decode(normal.encode()));
+    }
+
+    @Test
+    void deUnAnuncioSinFijadoCuentaComoNoFijado() {
+        Anuncio anuncio = new Anuncio();
+        anuncio.setId(7L);
+        anuncio.setFechaPublicacion(LocalDateTime.of(2025, 3, 1, 10, 0));
+
+        AnuncioCursor cursor = AnuncioCursor.of(anuncio);
+
+        assertFalse(cursor.fijado());
+        assertEquals(cursor, AnuncioCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void textoMalformado() {
+        assertThrows(IllegalArgumentException.class, () -> AnuncioCursor.decode(""));
+        assertThrows(IllegalArgumentException.class, () -> AnuncioCursor.decode("no es base64!"));
+        assertThrows(IllegalArgumentException.class, () -> AnuncioCursor.decode(base64("2025-03-01T10:15|5")));
+        assertThrows(IllegalArgumentException.class, () -> AnuncioCursor.decode(base64("1|2025-03-01T10:15|5|6")));
+        assertThrows(IllegalArgumentException.class, () -> AnuncioCursor.decode(base64("1|ayer|5")));
+        assertThrows(IllegalArgumentException.class, () -> AnuncioCursor.decode(base64("1|2025-03-01T10:15|x")));
+    }
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,42 @@
+package com.usuario.backend.model.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Cursor de comentarios: ida y vuelta, y texto manipulado.
+ */
+class ComentarioCursorTest {
+
+    @Test
+    void idaYVuelta() {
+        ComentarioCursor cursor = new ComentarioCursor(LocalDateTime.of(2025, 3, 1, 10, 15, 30, 123456000), 42L);
+        assertEquals(cursor, ComentarioCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void idaYVueltaConSegundosEnCero() {
+        // LocalDateTime.toString omite los segundos en cero
+        ComentarioCursor cursor = new ComentarioCursor(LocalDateTime.of(2025, 3, 1, 10, 15), 1L);
+        assertEquals(cursor, ComentarioCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void textoMalformado() {
+        assertThrows(IllegalArgumentException.class, () -> ComentarioCursor.decode(""));
+        assertThrows(IllegalArgumentException.class, () -> ComentarioCursor.decode("no es base64!"));
+        assertThrows(IllegalArgumentException.class, () -> ComentarioCursor.decode(base64("sin separador")));
+        assertThrows(IllegalArgumentException.class, () -> ComentarioCursor.decode(base64("2025-03-01T10:15|abc")));
+        assertThrows(IllegalArgumentException.class, () -> ComentarioCursor.decode(base64("ayer|5")));
+    }
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
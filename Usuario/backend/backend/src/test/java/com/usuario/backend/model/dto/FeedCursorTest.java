@@ -0,0 +1,38 @@
+package com.usuario.backend.model.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Cursor del inicio: ida y vuelta, y texto manipulado.
+ */
+class FeedCursorTest {
+
+    @Test
+    void idaYVuelta() {
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2025, 3, 1, 10, 15, 30, 999000000), 42L);
+        assertEquals(cursor, FeedCursor.decode(cursor.encode()));
+
+        FeedCursor enPunto = new FeedCursor(LocalDateTime.of(2025, 3, 1, 10, 0), 1L);
+        assertEquals(enPunto, FeedCursor.decode(enPunto.encode()));
+    }
+
+    @Test
+    void textoMalformado() {
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(""));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode("%%%"));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(base64("42")));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(base64("2025-03-01T10:15|")));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(base64("01/03/2025|42")));
+    }
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,274 @@
+package com.usuario.backend.repository;
+
+import com.usuario.backend.model.entity.AulaEstudiante;
+import com.usuario.backend.service.aula.AnuncioFeedAssembler;
+import com.usuario.backend.service.aula.AnuncioService;
+import com.usuario.backend.service.aula.InteraccionService;
+import com.usuario.backend.service.aula.LecturaIndex;
+import com.usuario.backend.service.aula.LikeAggregator;
+import com.usuario.backend.service.user.TokenVersionCache;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ejecuta cada consulta de los repositorios (y las SQL nativas de los caminos calientes) contra
+ * el esquema de las migraciones en H2, y falla si el plan de alguna recorre la tabla entera.
+ *
+ * Con ddl-auto=validate además comprueba que V1 coincide con las entidades.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:explain;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.usuario.backend.repository.ExplainPlanTest$SqlCapture"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ExplainPlanTest {
+
+    // Consultas que recorren la tabla a propósito: catálogos pequeños sin filtro selectivo
+    // y búsquedas por subcadena ('%texto%'), que ningún índice B-tree puede resolver
+    private static final Set<String> FULL_SCAN_PERMITIDO = Set.of(
+            "carreras.findByActivoTrue",
+            "carreras.findByNombreContainingIgnoreCaseAndActivoTrue",
+            "carreras.findAllOrderByNombre",
+            "carreras.countCarrerasActivas",
+            "ciclos.findByOrderByNumero",
+            "ciclos.findCiclosByCarrera",
+            "ciclos.findAllCiclos",
+            "departamentos.findByActivoTrue",
+            "aulas.findByNombreContainingIgnoreCaseAndEstado",
+            "aulas.findByTituloContainingIgnoreCase"
+    );
+
+    @Autowired private AnuncioRepository anuncioRepository;
+    @Autowired private AulaEstudianteRepository aulaEstudianteRepository;
+    @Autowired private AulaVirtualRepository aulaVirtualRepository;
+    @Autowired private CarreraRepository carreraRepository;
+    @Autowired private CicloRepository cicloRepository;
+    @Autowired private DepartamentoRepository departamentoRepository;
+    @Autowired private InvitacionAulaRepository invitacionAulaRepository;
+    @Autowired private LikeRepository likeRepository;
+    @Autowired private SeccionRepository seccionRepository;
+    @Autowired private TokenRevocadoRepository tokenRevocadoRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private EntityManager entityManager;
+
+    private final Map<String, List<String>> consultas = new LinkedHashMap<>();
+
+    @BeforeEach
+    void capturarConsultas() {
+        AulaEstudiante.EstadoEstudiante activo = AulaEstudiante.EstadoEstudiante.activo;
+
+        PageRequest pagina = PageRequest.of(0, 20);
+        LocalDateTime fecha = LocalDateTime.now();
+        capturar("anuncios.findPaginaDeAula", () -> anuncioRepository.findPaginaDeAula(1, pagina));
+        capturar("anuncios.findPaginaDeAulaDespuesDe",
+                () -> anuncioRepository.findPaginaDeAulaDespuesDe(1, true, fecha, 10L, pagina));
+        capturar("anuncios.findPaginaGeneral", () -> anuncioRepository.findPaginaGeneral(pagina));
+        capturar("anuncios.findPaginaGeneralDespuesDe",
+                () -> anuncioRepository.findPaginaGeneralDespuesDe(true, fecha, 10L, pagina));
+        capturar("anuncios.findAdjuntosDeAula", () -> anuncioRepository.findAdjuntosDeAula(1));
+        capturar("anuncios.findUltimaActividadDeAula", () -> anuncioRepository.findUltimaActividadDeAula(1));
+        capturar("anuncios.findUltimaActividadGeneral", () -> anuncioRepository.findUltimaActividadGeneral());
+        capturar("anuncios.incrementarLikes", () -> anuncioRepository.incrementarLikes(1L, 1, fecha));
+        capturar("anuncios.incrementarComentarios", () -> anuncioRepository.incrementarComentarios(1L, 1, fecha));
+        capturar("anuncios.findById", () -> anuncioRepository.findById(1L));
+        capturar("anuncios.tocarAnunciosDeAutor", () -> anuncioRepository.tocarAnunciosDeAutor(1, fecha));
+
+        capturar("aulaEstudiantes.findAulaIdsByEstudianteId",
+                () -> aulaEstudianteRepository.findAulaIdsByEstudianteId(1L));
+        capturar("aulaEstudiantes.findVersionByEstudianteId",
+                () -> aulaEstudianteRepository.findVersionByEstudianteId(1L));
+        capturar("aulaEstudiantes.findEstudianteIdsByAulaId",
+                () -> aulaEstudianteRepository.findEstudianteIdsByAulaId(1L));
+        capturar("aulaEstudiantes.findByAulaIdAndEstado",
+                () -> aulaEstudianteRepository.findByAulaIdAndEstado(1L, activo));
+        capturar("aulaEstudiantes.existsByAulaIdAndEstudianteIdAndEstado",
+                () -> aulaEstudianteRepository.existsByAulaIdAndEstudianteIdAndEstado(1L, 1L, activo));
+        capturar("aulaEstudiantes.countByAulaIdAndEstado",
+                () -> aulaEstudianteRepository.countByAulaIdAndEstado(1L, activo));
+
+        capturar("aulas.findByProfesorId", () -> aulaVirtualRepository.findByProfesorId(1L));
+        capturar("aulas.findIdsByProfesorId", () -> aulaVirtualRepository.findIdsByProfesorId(1L));
+        capturar("aulas.findVersionByProfesorId", () -> aulaVirtualRepository.findVersionByProfesorId(1L));
+        capturar("aulas.findByEstado", () -> aulaVirtualRepository.findByEstado("activa"));
+        capturar("aulas.findByCodigoAcceso", () -> aulaVirtualRepository.findByCodigoAcceso("ABC123"));
+        capturar("aulas.findByProfesorIdOrderByFechaInicioDesc",
+                () -> aulaVirtualRepository.findByProfesorIdOrderByFechaInicioDesc(1L));
+        capturar("aulas.findByEstadoOrderByFechaInicioDesc",
+                () -> aulaVirtualRepository.findByEstadoOrderByFechaInicioDesc("activa"));
+        capturar("aulas.findByProfesorIdAndEstadoOrderByFechaInicioDesc",
+                () -> aulaVirtualRepository.findByProfesorIdAndEstadoOrderByFechaInicioDesc(1L, "activa"));
+        capturar("aulas.findByIdInAndEstadoOrderByFechaInicioDesc",
+                () -> aulaVirtualRepository.findByIdInAndEstadoOrderByFechaInicioDesc(List.of(1L, 2L), "activa"));
+        capturar("aulas.existsByCodigoAcceso", () -> aulaVirtualRepository.existsByCodigoAcceso("ABC123"));
+        capturar("aulas.countByEstado", () -> aulaVirtualRepository.countByEstado("activa"));
+        capturar("aulas.findByNombreContainingIgnoreCaseAndProfesorId",
+                () -> aulaVirtualRepository.findByNombreContainingIgnoreCaseAndProfesorId("mat", 1L));
+        capturar("aulas.findByNombreContainingIgnoreCaseAndEstado",
+                () -> aulaVirtualRepository.findByNombreContainingIgnoreCaseAndEstado("mat", "activa"));
+        capturar("aulas.findByTituloContainingIgnoreCase",
+                () -> aulaVirtualRepository.findByTituloContainingIgnoreCase("mat"));
+        capturar("aulas.findBySeccionId", () -> aulaVirtualRepository.findBySeccionId(1L));
+        capturar("aulas.findBySeccionIdAndEstado", () -> aulaVirtualRepository.findBySeccionIdAndEstado(1L, "activa"));
+        capturar("aulas.countByProfesorIdAndEstado",
+                () -> aulaVirtualRepository.countByProfesorIdAndEstado(1L, "activa"));
+        capturar("aulas.findAulasActivas", () -> aulaVirtualRepository.findAulasActivas());
+        capturar("aulas.existsByNombreAndProfesorIdAndEstado",
+                () -> aulaVirtualRepository.existsByNombreAndProfesorIdAndEstado("Mate", 1L, "activa"));
+
+        capturar("carreras.findByActivoTrue", () -> carreraRepository.findByActivoTrue());
+        capturar("carreras.findByCodigo", () -> carreraRepository.findByCodigo("SIS"));
+        capturar("carreras.findByDepartamentoIdAndActivoTrue",
+                () -> carreraRepository.findByDepartamentoIdAndActivoTrue(1L));
+        capturar("carreras.findByNombreContainingIgnoreCaseAndActivoTrue",
+                () -> carreraRepository.findByNombreContainingIgnoreCaseAndActivoTrue("sis"));
+        capturar("carreras.findAllOrderByNombre", () -> carreraRepository.findAllOrderByNombre());
+        capturar("carreras.countCarrerasActivas", () -> carreraRepository.countCarrerasActivas());
+
+        capturar("ciclos.findByOrderByNumero", () -> cicloRepository.findByOrderByNumero());
+        capturar("ciclos.findCiclosByCarrera", () -> cicloRepository.findCiclosByCarrera(1L));
+        capturar("ciclos.findAllCiclos", () -> cicloRepository.findAllCiclos());
+
+        capturar("departamentos.findByActivoTrue", () -> departamentoRepository.findByActivoTrue());
+        capturar("departamentos.findByCodigo", () -> departamentoRepository.findByCodigo("ING"));
+
+        capturar("invitaciones.findByCorreoInvitado",
+                () -> invitacionAulaRepository.findByCorreoInvitado("a@tecsup.edu.pe"));
+        capturar("invitaciones.findByAulaVirtualId", () -> invitacionAulaRepository.findByAulaVirtualId(1L));
+        capturar("invitaciones.findByCodigoInvitacion",
+                () -> invitacionAulaRepository.findByCodigoInvitacion("INV-1"));
+        capturar("invitaciones.findByCorreoInvitadoAndEstado",
+                () -> invitacionAulaRepository.findByCorreoInvitadoAndEstado("a@tecsup.edu.pe", "pendiente"));
+        capturar("invitaciones.findInvitacionesPendientesByCorreo",
+                () -> invitacionAulaRepository.findInvitacionesPendientesByCorreo("a@tecsup.edu.pe"));
+        capturar("invitaciones.countByAulaVirtualIdAndEstado",
+                () -> invitacionAulaRepository.countByAulaVirtualIdAndEstado(1L, "pendiente"));
+
+        capturar("likes.eliminarPorClave", () -> likeRepository.eliminarPorClave(1, 1L));
+
+        capturar("secciones.findByCarreraIdAndCiclo", () -> seccionRepository.findByCarreraIdAndCiclo(1L, 1));
+        capturar("secciones.findByCarreraId", () -> seccionRepository.findByCarreraId(1L));
+        capturar("secciones.findByCarreraIdOrderByCicloAndNombre",
+                () -> seccionRepository.findByCarreraIdOrderByCicloAndNombre(1L));
+
+        capturar("tokens.existsByJti", () -> tokenRevocadoRepository.existsByJti("jti"));
+        capturar("tokens.findVigentesDesde",
+                () -> tokenRevocadoRepository.findVigentesDesde(0L, 0L, PageRequest.of(0, 100)));
+        capturar("tokens.deleteExpirados", () -> tokenRevocadoRepository.deleteExpirados(0L));
+
+        capturar("usuarios.findByCorreoInstitucional",
+                () -> usuarioRepository.findByCorreoInstitucional("a@tecsup.edu.pe"));
+        capturar("usuarios.findTokenVersionById", () -> usuarioRepository.findTokenVersionById(1L));
+        capturar("usuarios.findIdentidadById", () -> usuarioRepository.findIdentidadById(1L));
+
+        // JPQL de los servicios: se traduce con Hibernate y se captura como las de los repositorios
+        capturar("likes.deUsuario", () -> entityManager.createQuery(InteraccionService.LIKES_DE_USUARIO, Long.class)
+                .setParameter("usuarioId", 1).getResultList());
+        capturar("likes.deUsuarioEn", () -> entityManager.createQuery(InteraccionService.LIKES_DE_USUARIO_EN, Long.class)
+                .setParameter("usuarioId", 1).setParameter("ids", List.of(1L, 2L)).getResultList());
+        capturar("lecturas.deUsuarioEn", () -> entityManager.createQuery(InteraccionService.LECTURAS_DE_USUARIO_EN, Long.class)
+                .setParameter("usuarioId", 1).setParameter("ids", List.of(1L, 2L)).getResultList());
+
+        // SQL nativa de los servicios, tal como la construyen (con y sin cursor)
+        consultas.put("comentarios.pagina", List.of(
+                InteraccionService.sqlComentarios(false), InteraccionService.sqlComentarios(true)));
+        consultas.put("comentarios.hilos", List.of(
+                InteraccionService.sqlHilos(false), InteraccionService.sqlHilos(true)));
+        consultas.put("comentarios.respuestas", List.of(
+                InteraccionService.sqlRespuestas(false), InteraccionService.sqlRespuestas(true)));
+        consultas.put("anuncios.inicio", List.of(
+                AnuncioService.sqlInicio(2, false), AnuncioService.sqlInicio(2, true)));
+        consultas.put("anuncios.fijadosDelInicio", List.of(AnuncioService.sqlFijados(2)));
+        consultas.put("lecturas.porAnuncio", List.of(LecturaIndex.LECTORES_DE_ANUNCIO));
+        consultas.put("lecturas.desde", List.of(LecturaIndex.PAGE_SQL));
+        consultas.put("likes.recuento", List.of(LikeAggregator.RECOUNT_TOTAL));
+        consultas.put("likes.persistido", List.of(LikeAggregator.LIKE_PERSISTIDO));
+        consultas.put("usuarios.versionInteracciones", List.of(InteraccionService.VERSION_USUARIO));
+        consultas.put("cambiosTokenVersion.desde", List.of(TokenVersionCache.SQL_CAMBIOS));
+        consultas.put("cambiosTokenVersion.purgar", List.of(TokenVersionCache.SQL_PURGAR));
+        consultas.put("usuarios.autoresDelFeed", List.of(AnuncioFeedAssembler.sqlAutores(2)));
+    }
+
+    @Test
+    void ningunaConsultaRecorreLaTablaEntera() throws Exception {
+        List<String> fullScans = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : consultas.entrySet()) {
+            assertThat(entry.getValue()).as("SQL capturada de %s", entry.getKey()).isNotEmpty();
+            for (String sql : entry.getValue()) {
+                String plan = explain(sql);
+                if (plan.contains("tableScan") && !FULL_SCAN_PERMITIDO.contains(entry.getKey())) {
+                    fullScans.add(entry.getKey() + " -> " + plan);
+                }
+            }
+        }
+        assertThat(fullScans).as("Consultas con full scan").isEmpty();
+    }
+
+    private void capturar(String nombre, Runnable consulta) {
+        SqlCapture.SQL.clear();
+        consulta.run();
+        List<String> sqls = SqlCapture.SQL.stream()
+                .filter(sql -> !sql.regionMatches(true, 0, "insert", 0, 6))
+                .toList();
+        consultas.put(nombre, sqls);
+    }
+
+    // El plan no depende de los valores: los parámetros se enlazan a NULL
+    private String explain(String sql) throws Exception {
+        return jdbcTemplate.execute((Connection con) -> {
+            try (PreparedStatement ps = con.prepareStatement("EXPLAIN " + sql)) {
+                int params = ps.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= params; i++) {
+                    ps.setNull(i, Types.NULL);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1));
+                    }
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    /**
+     * Registra la SQL que Hibernate envía a la BD
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.usuario.backend.security.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Filtro de Bloom: sin falsos negativos y con la tasa de falsos positivos pedida.
+ */
+class BloomFilterTest {
+
+    @Test
+    void todoLoAgregadoSeEncuentra() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("jti-" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("jti-" + i));
+        }
+    }
+
+    @Test
+    void agregarDosVecesNoCambiaBits() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        assertTrue(filter.put("a"));
+        assertFalse(filter.put("a"));
+    }
+
+    @Test
+    void losFalsosPositivosRondanLaTasaPedida() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("jti-" + i);
+        }
+        int falsos = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("otro-" + i)) {
+                falsos++;
+            }
+        }
+        // Holgura amplia sobre el 1 % esperado
+        assertTrue(falsos < 300, "falsos positivos: " + falsos);
+    }
+}
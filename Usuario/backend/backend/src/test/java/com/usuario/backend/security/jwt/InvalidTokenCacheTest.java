@@ -0,0 +1,63 @@
+package com.usuario.backend.security.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cache negativa de tokens: expulsión LRU por tamaño y vencimiento por TTL.
+ */
+class InvalidTokenCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void unTokenGuardadoSeReconoce() {
+        InvalidTokenCache cache = new InvalidTokenCache(10, 60000, registry);
+        cache.put("a");
+
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertEquals(1.0, registry.counter("jwt.invalid.cache.hits").count());
+        assertEquals(1.0, registry.counter("jwt.invalid.cache.misses").count());
+    }
+
+    @Test
+    void alLlenarseSaleElMenosUsado() {
+        InvalidTokenCache cache = new InvalidTokenCache(2, 60000, registry);
+        cache.put("a");
+        cache.put("b");
+        // Un acierto sobre "a" deja a "b" como la más antigua
+        cache.contains("a");
+        cache.put("c");
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertEquals(1.0, registry.counter("jwt.invalid.cache.evictions").count());
+    }
+
+    @Test
+    void unaEntradaVencidaNoCuentaYSeQuita() throws InterruptedException {
+        InvalidTokenCache cache = new InvalidTokenCache(10, 20, registry);
+        cache.put("a");
+
+        Thread.sleep(40);
+
+        assertFalse(cache.contains("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void conTamanoCeroNoGuardaNada() {
+        InvalidTokenCache cache = new InvalidTokenCache(0, 60000, registry);
+        cache.put("a");
+
+        assertFalse(cache.contains("a"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,107 @@
+package com.usuario.backend.security.jwt;
+
+import com.usuario.backend.model.entity.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tickets de recurso: firma, expiración y ligadura a la ruta para la que se emitieron.
+ */
+class ResourceTicketServiceTest {
+
+    private static final String RUTA = "/api/anuncios/5/archivo";
+
+    private ResourceTicketService service;
+    private AuthenticatedUser usuario;
+
+    @BeforeEach
+    void setUp() {
+        service = nuevo("secreto-de-pruebas-con-longitud-suficiente");
+        usuario = new AuthenticatedUser(7L, "ana@tecsup.edu.pe", Usuario.RolUsuario.PROFESOR, 3,
+                "jti-1", 1_900_000_000_000L);
+    }
+
+    @Test
+    void idaYVuelta() {
+        ResourceTicketService.Ticket ticket = service.emitir(usuario, RUTA, 60000);
+
+        AuthenticatedUser verificado = service.verificar(ticket.valor(), RUTA);
+
+        assertNotNull(verificado);
+        assertEquals(7L, verificado.getId());
+        assertEquals(Usuario.RolUsuario.PROFESOR, verificado.getRol());
+        assertEquals(3, verificado.getTokenVersion());
+        assertEquals("jti-1", verificado.getSessionId());
+        assertEquals(1_900_000_000_000L, verificado.getSessionExpiresAt());
+        // El ticket no lleva el correo
+        assertNull(verificado.getEmail());
+    }
+
+    @Test
+    void sinSesionSeRecuperaNull() {
+        AuthenticatedUser sinJti = new AuthenticatedUser(7L, null, Usuario.RolUsuario.ESTUDIANTE, 0);
+
+        AuthenticatedUser verificado = service.verificar(service.emitir(sinJti, RUTA, 60000).valor(), RUTA);
+
+        assertNotNull(verificado);
+        assertNull(verificado.getSessionId());
+    }
+
+    @Test
+    void soloValeParaSuRuta() {
+        String ticket = service.emitir(usuario, RUTA, 60000).valor();
+
+        assertNull(service.verificar(ticket, "/api/anuncios/6/archivo"));
+        assertNull(service.verificar(ticket, RUTA + "/x"));
+    }
+
+    @Test
+    void expirado() {
+        String ticket = service.emitir(usuario, RUTA, -1000).valor();
+
+        assertNull(service.verificar(ticket, RUTA));
+    }
+
+    @Test
+    void payloadOFirmaManipulados() {
+        String ticket = service.emitir(usuario, RUTA, 60000).valor();
+        int punto = ticket.indexOf('.');
+        String payload = new String(Base64.getUrlDecoder().decode(ticket.substring(0, punto)), StandardCharsets.UTF_8);
+
+        // Mismo ticket con otro rol y la firma original
+        String otroRol = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.replace(":PROFESOR:", ":ADMIN:").getBytes(StandardCharsets.UTF_8));
+        assertNull(service.verificar(otroRol + ticket.substring(punto), RUTA));
+
+        char ultimo = ticket.charAt(ticket.length() - 2);
+        String otraFirma = ticket.substring(0, ticket.length() - 2) + (ultimo == 'A' ? 'B' : 'A') + ticket.charAt(ticket.length() - 1);
+        assertNull(service.verificar(otraFirma, RUTA));
+
+        // Firmado con otro secreto
+        assertNull(nuevo("otro-secreto-de-pruebas-con-longitud").verificar(ticket, RUTA));
+    }
+
+    @Test
+    void textoMalformado() {
+        assertNull(service.verificar("", RUTA));
+        assertNull(service.verificar("abc", RUTA));
+        assertNull(service.verificar(".abc", RUTA));
+        assertNull(service.verificar("x.y", RUTA));
+        assertNull(service.verificar("%%%.%%%", RUTA));
+    }
+
+    private static ResourceTicketService nuevo(String secreto) {
+        ResourceTicketService service = new ResourceTicketService();
+        ReflectionTestUtils.setField(service, "jwtSecret", secreto);
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,133 @@
+package com.usuario.backend.security.jwt;
+
+import com.usuario.backend.model.entity.TokenRevocado;
+import com.usuario.backend.repository.TokenRevocadoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Revocación compartida sin BD: repositorio simulado y el store local real.
+ */
+class TokenRevocationServiceTest {
+
+    private TokenRevocationService service;
+    private TokenRevocadoRepository repository;
+    private TokenRevocationStore store;
+    private long exp;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(TokenRevocadoRepository.class);
+        when(repository.findVigentesDesde(anyLong(), anyLong(), any(Pageable.class))).thenReturn(List.of());
+
+        store = new TokenRevocationStore();
+        ReflectionTestUtils.setField(store, "bucketMs", 1000L);
+        ReflectionTestUtils.setField(store, "jwtExpirationMs", 60000L);
+        ReflectionTestUtils.setField(store, "maxEntries", 100);
+        ReflectionTestUtils.setField(store, "meterRegistry", new SimpleMeterRegistry());
+        store.init();
+
+        service = new TokenRevocationService();
+        ReflectionTestUtils.setField(service, "tokenRevocadoRepository", repository);
+        ReflectionTestUtils.setField(service, "localStore", store);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "expectedInsertions", 1000);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(service, "negativeCacheMaxEntries", 10);
+        service.init();
+
+        exp = System.currentTimeMillis() + 30000;
+    }
+
+    @Test
+    void sinPositivoDelFiltroNoSeConsultaLaBd() {
+        assertFalse(service.isRevoked("desconocido", exp));
+        verify(repository, never()).existsByJti(anyString());
+    }
+
+    @Test
+    void revocarPersisteYValeAlMomentoEnEsteNodo() {
+        service.revoke("a", exp);
+
+        verify(repository).save(any(TokenRevocado.class));
+        assertTrue(service.isRevoked("a", exp));
+        verify(repository, never()).existsByJti(anyString());
+    }
+
+    @Test
+    void lasRevocacionesDeOtrosNodosSeConfirmanUnaVez() {
+        cargar(1L, "b");
+        when(repository.existsByJti("b")).thenReturn(true);
+
+        service.refresh();
+
+        assertTrue(service.isRevoked("b", exp));
+        assertTrue(service.isRevoked("b", exp));
+        verify(repository, times(1)).existsByJti("b");
+    }
+
+    @Test
+    void unFalsoPositivoSeRecuerda() {
+        // "c" está en el filtro pero no en la tabla (p. ej. ya purgado)
+        cargar(1L, "c");
+        when(repository.existsByJti("c")).thenReturn(false);
+        service.refresh();
+
+        assertFalse(service.isRevoked("c", exp));
+        assertFalse(service.isRevoked("c", exp));
+        verify(repository, times(1)).existsByJti("c");
+    }
+
+    @Test
+    void sinBdUnPositivoSeRechaza() {
+        cargar(1L, "d");
+        when(repository.existsByJti("d")).thenThrow(new DataAccessResourceFailureException("caída"));
+        service.refresh();
+
+        assertTrue(service.isRevoked("d", exp));
+    }
+
+    @Test
+    void conElStoreLlenoUnFalloAlPersistirSePropaga() {
+        ReflectionTestUtils.setField(store, "maxEntries", 0);
+        when(repository.save(any(TokenRevocado.class))).thenThrow(new DataAccessResourceFailureException("caída"));
+
+        assertThrows(IllegalStateException.class, () -> service.revoke("e", exp));
+    }
+
+    @Test
+    void conSitioEnElStoreUnFalloAlPersistirNoSePropaga() {
+        when(repository.save(any(TokenRevocado.class))).thenThrow(new DataAccessResourceFailureException("caída"));
+
+        service.revoke("f", exp);
+
+        assertTrue(service.isRevoked("f", exp));
+    }
+
+    // La siguiente lectura incremental devuelve esta revocación y luego nada
+    private void cargar(long id, String jti) {
+        TokenRevocado revocado = new TokenRevocado(jti, exp);
+        revocado.setId(id);
+        when(repository.findVigentesDesde(anyLong(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(revocado))
+                .thenReturn(List.of());
+    }
+}
@@ -0,0 +1,111 @@
+package com.usuario.backend.security.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rueda de revocaciones con buckets de 20 ms y tokens de 1 s, para que venzan dentro del test.
+ */
+class TokenRevocationStoreTest {
+
+    private static final long BUCKET_MS = 20;
+
+    private TokenRevocationStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new TokenRevocationStore();
+        ReflectionTestUtils.setField(store, "bucketMs", BUCKET_MS);
+        ReflectionTestUtils.setField(store, "jwtExpirationMs", 1000L);
+        ReflectionTestUtils.setField(store, "maxEntries", 3);
+        ReflectionTestUtils.setField(store, "meterRegistry", new SimpleMeterRegistry());
+        store.init();
+    }
+
+    @Test
+    void revocadoHastaSuExpiracion() {
+        long exp = System.currentTimeMillis() + 500;
+        assertTrue(store.revoke("a", exp));
+
+        assertTrue(store.isRevoked("a", exp));
+        assertFalse(store.isRevoked("b", exp));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void unTokenYaExpiradoNoSeGuarda() {
+        long exp = System.currentTimeMillis() - 1;
+        assertTrue(store.revoke("a", exp));
+
+        assertFalse(store.isRevoked("a", exp));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void revocarDosVecesNoDuplica() {
+        long exp = System.currentTimeMillis() + 500;
+        store.revoke("a", exp);
+        store.revoke("a", exp);
+
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void losBucketsVencidosSeDescartanEnteros() throws InterruptedException {
+        long exp = System.currentTimeMillis() + BUCKET_MS;
+        store.revoke("a", exp);
+        store.revoke("b", exp);
+
+        Thread.sleep(3 * BUCKET_MS);
+        store.purgeExpired();
+
+        assertEquals(0, store.size());
+        assertFalse(store.isRevoked("a", exp));
+    }
+
+    @Test
+    void porEncimaDelTopeNoSeGuardaYSeAvisa() {
+        long exp = System.currentTimeMillis() + 500;
+        assertTrue(store.revoke("a", exp));
+        assertTrue(store.revoke("b", exp));
+        assertTrue(store.revoke("c", exp));
+
+        assertFalse(store.revoke("d", exp));
+        assertFalse(store.isRevoked("d", exp));
+        assertEquals(3, store.size());
+        // Los ya guardados siguen respondiendo aunque la rueda esté llena
+        assertTrue(store.revoke("a", exp));
+    }
+
+    @Test
+    void alVencerEntradasVuelveAHaberSitio() throws InterruptedException {
+        long pronto = System.currentTimeMillis() + BUCKET_MS;
+        store.revoke("a", pronto);
+        store.revoke("b", pronto);
+        store.revoke("c", pronto);
+
+        Thread.sleep(3 * BUCKET_MS);
+        store.purgeExpired();
+
+        long exp = System.currentTimeMillis() + 500;
+        assertTrue(store.revoke("d", exp));
+        assertTrue(store.isRevoked("d", exp));
+    }
+
+    @Test
+    void unExpFueraDelHorizonteVaAlDesbordamiento() {
+        long exp = System.currentTimeMillis() + 60000;
+        assertTrue(store.revoke("a", exp));
+
+        assertTrue(store.isRevoked("a", exp));
+        assertEquals(1, store.size());
+        store.purgeExpired();
+        assertTrue(store.isRevoked("a", exp));
+    }
+}
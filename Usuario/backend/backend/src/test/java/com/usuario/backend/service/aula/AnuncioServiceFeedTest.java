@@ -0,0 +1,146 @@
+package com.usuario.backend.service.aula;
+
+import com.usuario.backend.model.dto.FeedCursor;
+import com.usuario.backend.model.dto.PaginaAnuncios;
+import com.usuario.backend.model.entity.Anuncio;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Inicio sin BD: se comprueba que cada SQL recibe tantos parámetros como marcadores tiene,
+ * la paginación por cursor y que los fijados solo acompañan a la primera página.
+ */
+class AnuncioServiceFeedTest {
+
+    private static final Long USUARIO = 7L;
+    private static final LocalDateTime T = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    private AnuncioService service;
+    private EntityManager entityManager;
+    private AulaVirtualService aulaVirtualService;
+
+    // SQL ejecutada -> parámetros enlazados por posición
+    private final Map<String, Map<Integer, Object>> ejecutadas = new HashMap<>();
+    private List<Anuncio> filasInicio = List.of();
+
+    @BeforeEach
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        when(entityManager.createNativeQuery(anyString(), eq(Anuncio.class))).thenAnswer(inv -> consulta(inv.getArgument(0)));
+        aulaVirtualService = mock(AulaVirtualService.class);
+        when(aulaVirtualService.getAulaIdsAccesibles(USUARIO, "ESTUDIANTE")).thenReturn(List.of(3L, 4L));
+        AnuncioFeedAssembler feedAssembler = mock(AnuncioFeedAssembler.class);
+        when(feedAssembler.toItems(any(), any(), anyBoolean())).thenReturn(List.of());
+
+        service = new AnuncioService();
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        ReflectionTestUtils.setField(service, "aulaVirtualService", aulaVirtualService);
+        ReflectionTestUtils.setField(service, "feedAssembler", feedAssembler);
+    }
+
+    @Test
+    void laPrimeraPaginaTraeLosFijados() {
+        PaginaAnuncios pagina = service.getFeed(USUARIO, "ESTUDIANTE", null, null, false);
+
+        assertNotNull(pagina.fijados());
+        assertEquals(2, ejecutadas.size());
+        assertTrue(ejecutadas.containsKey(AnuncioService.sqlInicio(2, false)));
+        assertTrue(ejecutadas.containsKey(AnuncioService.sqlFijados(2)));
+        ejecutadas.forEach(AnuncioServiceFeedTest::assertParametrosCompletos);
+    }
+
+    @Test
+    void conCursorCadaRamaLlevaElKeysetYNoHayFijados() {
+        String cursor = new FeedCursor(T, 50L).encode();
+
+        PaginaAnuncios pagina = service.getFeed(USUARIO, "ESTUDIANTE", cursor, 10, false);
+
+        assertNull(pagina.fijados());
+        String sql = AnuncioService.sqlInicio(2, true);
+        assertEquals(List.of(sql), new ArrayList<>(ejecutadas.keySet()));
+        assertParametrosCompletos(sql, ejecutadas.get(sql));
+        // Rama general: fecha, fecha, id, límite; la del aula 3 empieza por su id
+        Map<Integer, Object> params = ejecutadas.get(sql);
+        assertEquals(T, params.get(1));
+        assertEquals(50L, params.get(3));
+        assertEquals(11, params.get(4));
+        assertEquals(3, params.get(5));
+    }
+
+    @Test
+    void unaFilaDeMasDaElCursorDeLaSiguiente() {
+        filasInicio = List.of(anuncio(3L, 2), anuncio(2L, 1), anuncio(1L, 0));
+
+        PaginaAnuncios pagina = service.getFeed(USUARIO, "ESTUDIANTE", null, 2, false);
+
+        assertTrue(pagina.hasMore());
+        assertEquals(new FeedCursor(T.plusMinutes(1), 2L), FeedCursor.decode(pagina.nextCursor()));
+    }
+
+    @Test
+    void laUltimaPaginaNoTieneCursor() {
+        filasInicio = List.of(anuncio(1L, 0));
+
+        PaginaAnuncios pagina = service.getFeed(USUARIO, "ESTUDIANTE", null, 2, false);
+
+        assertFalse(pagina.hasMore());
+        assertNull(pagina.nextCursor());
+    }
+
+    @Test
+    void limiteOCursorInvalidos() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getFeed(USUARIO, "ESTUDIANTE", null, AnuncioService.MAX_FEED_PAGE + 1, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getFeed(USUARIO, "ESTUDIANTE", "no-es-un-cursor", null, false));
+    }
+
+    private Query consulta(String sql) {
+        Map<Integer, Object> params = new HashMap<>();
+        ejecutadas.put(sql, params);
+        Query query = mock(Query.class);
+        when(query.setParameter(any(Integer.class), any())).thenAnswer(inv -> {
+            params.put(inv.getArgument(0), inv.getArgument(1));
+            return query;
+        });
+        when(query.getResultList()).thenReturn(sql.contains(") feed") ? new ArrayList<>(filasInicio) : List.of());
+        return query;
+    }
+
+    private static void assertParametrosCompletos(String sql, Map<Integer, Object> params) {
+        long marcadores = sql.chars().filter(c -> c == '?').count();
+        assertEquals(marcadores, params.size(), sql);
+        for (int i = 1; i <= marcadores; i++) {
+            assertNotNull(params.get(i), "parámetro " + i + " de " + sql);
+        }
+    }
+
+    private static Anuncio anuncio(Long id, int minuto) {
+        Anuncio anuncio = new Anuncio();
+        anuncio.setId(id);
+        anuncio.setFechaPublicacion(T.plusMinutes(minuto));
+        return anuncio;
+    }
+}
@@ -0,0 +1,116 @@
+package com.usuario.backend.service.aula;
+
+import com.usuario.backend.model.dto.ComentarioCursor;
+import com.usuario.backend.model.dto.ComentarioDto;
+import com.usuario.backend.model.dto.PaginaComentarios;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Modo hilos sin BD: las filas de la consulta (raíces y primeras respuestas) se arman en hilos.
+ */
+class InteraccionServiceHilosTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    private InteraccionService service;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        service = new InteraccionService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    void cadaRaizLlevaSusPrimerasRespuestasYElCursorDelResto() throws Exception {
+        // Raíz 1 con 5 respuestas (llegan las 3 primeras), raíz 2 sin respuestas
+        filas(
+                fila(1, null, 0, 0),
+                fila(2, null, 1, 0),
+                fila(11, 1L, 2, 5),
+                fila(12, 1L, 3, 5),
+                fila(13, 1L, 4, 5));
+
+        PaginaComentarios pagina = service.listarHilos(10L, null, 20);
+
+        assertEquals(2, pagina.comentarios().size());
+        ComentarioDto primero = pagina.comentarios().get(0);
+        assertEquals(3, primero.respuestas().size());
+        assertEquals(5, primero.totalRespuestas());
+        assertEquals(new ComentarioCursor(T.plusMinutes(4), 13L), ComentarioCursor.decode(primero.respuestasCursor()));
+
+        ComentarioDto segundo = pagina.comentarios().get(1);
+        assertTrue(segundo.respuestas().isEmpty());
+        assertEquals(0, segundo.totalRespuestas());
+        assertNull(segundo.respuestasCursor());
+    }
+
+    @Test
+    void sinRespuestasPendientesNoHayCursor() throws Exception {
+        filas(fila(1, null, 0, 0), fila(11, 1L, 1, 1));
+
+        ComentarioDto raiz = service.listarHilos(10L, null, 20).comentarios().get(0);
+
+        assertEquals(1, raiz.respuestas().size());
+        assertNull(raiz.respuestasCursor());
+    }
+
+    @Test
+    void unaRaizDeMasIndicaOtraPagina() throws Exception {
+        filas(fila(1, null, 0, 0), fila(2, null, 1, 0));
+
+        PaginaComentarios pagina = service.listarHilos(10L, null, 1);
+
+        assertEquals(1, pagina.comentarios().size());
+        assertTrue(pagina.hasMore());
+        assertEquals(new ComentarioCursor(T, 1L), ComentarioCursor.decode(pagina.nextCursor()));
+    }
+
+    @Test
+    void limiteFueraDeRango() {
+        assertThrows(IllegalArgumentException.class, () -> service.listarHilos(10L, null, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.listarHilos(10L, null, InteraccionService.MAX_COMMENTS_PAGE + 1));
+    }
+
+    private void filas(ResultSet... filas) {
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (ResultSet rs : filas) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(InteraccionService.sqlHilos(false)), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    private static ResultSet fila(long id, Long padreId, int minuto, int totalRespuestas) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getString("contenido")).thenReturn("c" + id);
+        when(rs.getObject("fecha_creacion", LocalDateTime.class)).thenReturn(T.plusMinutes(minuto));
+        when(rs.getInt("usuario_id")).thenReturn(7);
+        when(rs.getString("nombre")).thenReturn("Ana");
+        when(rs.getString("apellidos")).thenReturn("Pérez");
+        when(rs.getObject("comentario_padre_id", Long.class)).thenReturn(padreId);
+        when(rs.getInt("total_respuestas")).thenReturn(totalRespuestas);
+        return rs;
+    }
+}
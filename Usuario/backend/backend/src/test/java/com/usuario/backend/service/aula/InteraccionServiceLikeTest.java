@@ -0,0 +1,100 @@
+package com.usuario.backend.service.aula;
+
+import com.usuario.backend.repository.AnuncioRepository;
+import com.usuario.backend.repository.LikeRepository;
+import com.usuario.backend.service.realtime.EventHub;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Like idempotente sobre la clave (usuario_id, anuncio_id): solo un cambio real toca el contador.
+ */
+class InteraccionServiceLikeTest {
+
+    private static final Long ANUNCIO = 10L;
+    private static final Long USUARIO = 7L;
+
+    private InteraccionService service;
+    private LikeRepository likeRepository;
+    private AnuncioRepository anuncioRepository;
+    private LikeAggregator likeAggregator;
+    private JdbcTemplate jdbcTemplate;
+    private EventHub eventHub;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        likeRepository = mock(LikeRepository.class);
+        anuncioRepository = mock(AnuncioRepository.class);
+        likeAggregator = mock(LikeAggregator.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        eventHub = mock(EventHub.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+
+        service = new InteraccionService();
+        ReflectionTestUtils.setField(service, "likeRepository", likeRepository);
+        ReflectionTestUtils.setField(service, "anuncioRepository", anuncioRepository);
+        ReflectionTestUtils.setField(service, "likeAggregator", likeAggregator);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "eventHub", eventHub);
+        ReflectionTestUtils.setField(service, "transactionTemplate", new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    void unLikeNuevoSumaUnoYSubeLaVersion() {
+        when(likeRepository.insertarSiNoExiste(7, ANUNCIO)).thenReturn(1);
+
+        assertEquals(1, service.setLike(ANUNCIO, USUARIO, true));
+
+        verify(anuncioRepository).incrementarLikes(eq(ANUNCIO), eq(1), any());
+        verify(jdbcTemplate).update(InteraccionService.SUBIR_VERSION_USUARIO, USUARIO);
+        verify(eventHub).publishStatsDelta(ANUNCIO, 1, 0);
+    }
+
+    @Test
+    void repetirElLikeNoTocaElContador() {
+        when(likeRepository.insertarSiNoExiste(7, ANUNCIO)).thenReturn(0);
+
+        assertEquals(0, service.setLike(ANUNCIO, USUARIO, true));
+
+        verify(anuncioRepository, never()).incrementarLikes(anyLong(), anyInt(), any());
+        verifyNoInteractions(jdbcTemplate);
+        verify(eventHub, never()).publishStatsDelta(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void quitarElLikeRestaUno() {
+        when(likeRepository.eliminarPorClave(7, ANUNCIO)).thenReturn(1);
+
+        assertEquals(1, service.setLike(ANUNCIO, USUARIO, false));
+
+        verify(anuncioRepository).incrementarLikes(eq(ANUNCIO), eq(-1), any());
+        verify(eventHub).publishStatsDelta(ANUNCIO, -1, 0);
+    }
+
+    @Test
+    void elCambioEnBufferSeDescartaAntesDeAbrirLaTransaccion() {
+        service.setLike(ANUNCIO, USUARIO, true);
+
+        InOrder orden = inOrder(likeAggregator, transactionManager);
+        orden.verify(likeAggregator).discard(ANUNCIO, 7);
+        orden.verify(transactionManager).getTransaction(any());
+    }
+}
@@ -0,0 +1,113 @@
+package com.usuario.backend.service.aula;
+
+import com.usuario.backend.model.dto.AnuncioStats;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Estadísticas por lote sin BD: EntityManager simulado con las tres consultas del lote.
+ */
+class InteraccionServiceStatsTest {
+
+    private static final Long USUARIO = 7L;
+
+    private InteraccionService service;
+    private EntityManager entityManager;
+    private LikeAggregator likeAggregator;
+    private LecturaIngestor lecturaIngestor;
+
+    @BeforeEach
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        likeAggregator = mock(LikeAggregator.class);
+        lecturaIngestor = mock(LecturaIngestor.class);
+        // Sin cambios en el buffer salvo que el test diga otra cosa
+        when(likeAggregator.pendingState(anyLong(), anyInt())).thenReturn(null);
+
+        service = new InteraccionService();
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        ReflectionTestUtils.setField(service, "likeAggregator", likeAggregator);
+        ReflectionTestUtils.setField(service, "lecturaIngestor", lecturaIngestor);
+    }
+
+    @Test
+    void sinIdsNoSeConsulta() {
+        assertTrue(service.getStats(List.of(), USUARIO).isEmpty());
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void unaConsultaPorDatoParaTodoElLote() {
+        totales(new Object[]{1L, 5, 2}, new Object[]{2L, null, null});
+        resultado(InteraccionService.LIKES_DE_USUARIO_EN, List.of(1L));
+        resultado(InteraccionService.LECTURAS_DE_USUARIO_EN, List.of(2L));
+
+        Map<Long, AnuncioStats> stats = service.getStats(List.of(1L, 2L, 3L), USUARIO);
+
+        assertEquals(new AnuncioStats(1L, 5, 2, true, false), stats.get(1L));
+        assertEquals(new AnuncioStats(2L, 0, 0, false, true), stats.get(2L));
+        // Un id sin fila (borrado o inexistente) sale con ceros
+        assertEquals(new AnuncioStats(3L, 0, 0, false, false), stats.get(3L));
+        verify(entityManager).createQuery(anyString(), eq(Object[].class));
+    }
+
+    @Test
+    void unLikePendienteSeVeAntesDeEscribirse() {
+        totales(new Object[]{1L, 5, 0}, new Object[]{2L, 0, 0});
+        resultado(InteraccionService.LIKES_DE_USUARIO_EN, List.of(2L));
+        resultado(InteraccionService.LECTURAS_DE_USUARIO_EN, List.of());
+        when(likeAggregator.pendingState(1L, 7)).thenReturn(true);
+        when(likeAggregator.pendingState(2L, 7)).thenReturn(false);
+
+        Map<Long, AnuncioStats> stats = service.getStats(List.of(1L, 2L), USUARIO);
+
+        assertEquals(6, stats.get(1L).likesCount());
+        assertTrue(stats.get(1L).userLiked());
+        // El total no baja de cero aunque la columna aún no cuente el like que se quita
+        assertEquals(0, stats.get(2L).likesCount());
+        assertFalse(stats.get(2L).userLiked());
+    }
+
+    @Test
+    void unaLecturaEnColaCuentaComoLeida() {
+        totales(new Object[]{1L, 0, 0});
+        resultado(InteraccionService.LIKES_DE_USUARIO_EN, List.of());
+        resultado(InteraccionService.LECTURAS_DE_USUARIO_EN, List.of());
+        when(lecturaIngestor.isKnownRead(anyLong(), anyInt())).thenReturn(true);
+
+        assertTrue(service.getStats(List.of(1L), USUARIO).get(1L).userRead());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void totales(Object[]... filas) {
+        TypedQuery<Object[]> query = mock(TypedQuery.class, RETURNS_SELF);
+        when(query.getResultList()).thenReturn(List.of(filas));
+        when(entityManager.createQuery(anyString(), eq(Object[].class))).thenReturn(query);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resultado(String jpql, List<Long> ids) {
+        TypedQuery<Long> query = mock(TypedQuery.class, RETURNS_SELF);
+        when(query.getResultList()).thenReturn(ids);
+        when(entityManager.createQuery(jpql, Long.class)).thenReturn(query);
+    }
+}
@@ -0,0 +1,115 @@
+package com.usuario.backend.service.aula;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Índice de lecturas en bitmaps sin BD: la carga por páginas se simula con filas (id, anuncio, usuario).
+ */
+class LecturaIndexTest {
+
+    private LecturaIndex index;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        index = new LecturaIndex();
+        ReflectionTestUtils.setField(index, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(index, "meterRegistry", new SimpleMeterRegistry());
+        index.init();
+    }
+
+    @Test
+    void laCargaInicialLlenaLosBitmaps() throws Exception {
+        filas(new long[]{1, 10, 7}, new long[]{2, 10, 8}, new long[]{3, 11, 7});
+
+        index.load();
+
+        assertTrue(index.isReady());
+        assertEquals(2, index.count(10L));
+        assertTrue(index.hasRead(11L, 7));
+        assertFalse(index.hasRead(11L, 8));
+        assertEquals(0, index.count(99L));
+    }
+
+    @Test
+    void elRefrescoReleeUnaVentanaHaciaAtras() throws Exception {
+        filas(new long[]{500, 10, 7});
+        index.load();
+
+        index.refresh();
+
+        verify(jdbcTemplate).query(eq(LecturaIndex.PAGE_SQL), any(RowCallbackHandler.class), eq(300L), eq(10000));
+    }
+
+    @Test
+    void antesDeCargarSeCompletaElAnuncioPedido() {
+        when(jdbcTemplate.queryForList(LecturaIndex.LECTORES_DE_ANUNCIO, Integer.class, 10L)).thenReturn(List.of(7, 8));
+
+        assertEquals(2, index.count(10L));
+        assertTrue(index.hasRead(10L, 8));
+    }
+
+    @Test
+    void pendientesEsElRosterMenosLosLectores() throws Exception {
+        filas();
+        index.load();
+        index.add(10L, 7);
+        index.add(10L, 9);
+
+        RoaringBitmap roster = RoaringBitmap.bitmapOf(7, 8, 9, 12);
+
+        assertArrayEquals(new int[]{8, 12}, index.unread(10L, roster).toArray());
+        assertArrayEquals(new int[]{7, 8, 9, 12}, index.unread(99L, roster).toArray());
+    }
+
+    @Test
+    void readersDevuelveUnaCopia() throws Exception {
+        filas();
+        index.load();
+        index.add(10L, 7);
+
+        index.readers(10L).add(8);
+
+        assertEquals(1, index.count(10L));
+    }
+
+    // Cada llamada a la página de lecturas entrega estas filas una sola vez
+    private void filas(long[]... filas) throws Exception {
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            long desde = inv.getArgument(2);
+            for (long[] fila : filas) {
+                if (fila[0] <= desde) {
+                    continue;
+                }
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong("id")).thenReturn(fila[0]);
+                when(rs.getLong("anuncio_id")).thenReturn(fila[1]);
+                when(rs.getInt("usuario_id")).thenReturn((int) fila[2]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(LecturaIndex.PAGE_SQL), any(RowCallbackHandler.class), any(), any());
+    }
+}
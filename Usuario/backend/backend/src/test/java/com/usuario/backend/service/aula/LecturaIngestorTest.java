@@ -0,0 +1,141 @@
+package com.usuario.backend.service.aula;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ingesta de lecturas con una cola de 2 y el worker detenido: el test decide cuándo se escribe.
+ */
+class LecturaIngestorTest {
+
+    private static final Integer USUARIO = 7;
+
+    private LecturaIngestor ingestor;
+    private JdbcTemplate jdbcTemplate;
+    private LecturaIndex lecturaIndex;
+    private SimpleMeterRegistry registry;
+
+    // Parámetros de cada INSERT de lecturas, en orden
+    private final List<Object[]> inserts = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.update(startsWith("INSERT IGNORE INTO lecturas"), any(Object[].class)))
+                .thenAnswer(inv -> {
+                    Object[] params = (Object[]) inv.getRawArguments()[1];
+                    inserts.add(params);
+                    return params.length / 2;
+                });
+        lecturaIndex = mock(LecturaIndex.class);
+        registry = new SimpleMeterRegistry();
+
+        ingestor = new LecturaIngestor();
+        ReflectionTestUtils.setField(ingestor, "queueCapacity", 2);
+        ReflectionTestUtils.setField(ingestor, "batchSize", 10);
+        ReflectionTestUtils.setField(ingestor, "dedupeMaxEntries", 100);
+        ReflectionTestUtils.setField(ingestor, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(ingestor, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(ingestor, "meterRegistry", registry);
+        ReflectionTestUtils.setField(ingestor, "lecturaIndex", lecturaIndex);
+        ingestor.init();
+        detenerWorker();
+    }
+
+    @Test
+    void unaLecturaRepetidaNoVuelveALaCola() {
+        assertTrue(ingestor.submit(1L, USUARIO));
+        assertTrue(ingestor.submit(1L, USUARIO));
+
+        assertEquals(1, cola());
+        assertEquals(1.0, registry.counter("interacciones.lecturas.duplicates").count());
+        assertTrue(ingestor.isKnownRead(1L, USUARIO));
+    }
+
+    @Test
+    void conLaColaLlenaSeRechazaSinMarcarlaComoVista() {
+        assertTrue(ingestor.submit(1L, USUARIO));
+        assertTrue(ingestor.submit(2L, USUARIO));
+
+        assertFalse(ingestor.submit(3L, USUARIO));
+        assertFalse(ingestor.isKnownRead(3L, USUARIO));
+        assertEquals(1.0, registry.counter("interacciones.lecturas.rejected").count());
+        // Las ya aceptadas siguen respondiendo aunque la cola esté llena
+        assertTrue(ingestor.submit(1L, USUARIO));
+
+        // Al vaciarse la cola el reintento entra como nuevo, no como duplicado
+        ingestor.shutdown();
+        assertTrue(ingestor.submit(3L, USUARIO));
+        assertEquals(1, cola());
+    }
+
+    @Test
+    void submitAllSeDetieneEnLaPrimeraRechazada() {
+        assertEquals(2, ingestor.submitAll(List.of(1L, 2L, 3L), USUARIO));
+    }
+
+    @Test
+    void escribirVaciaLaColaEnUnInsertYSubeLaVersion() {
+        ingestor.submit(1L, USUARIO);
+        ingestor.submit(2L, 8);
+        assertEquals(1, ingestor.pendingForUser(USUARIO));
+
+        ingestor.shutdown();
+
+        assertEquals(1, inserts.size());
+        assertArrayEquals(new Object[]{7, 1L, 8, 2L}, inserts.get(0));
+        verify(jdbcTemplate).batchUpdate(eq(InteraccionService.SUBIR_VERSION_USUARIO), anyList());
+        verify(lecturaIndex).add(1L, 7);
+        verify(lecturaIndex).add(2L, 8);
+        assertEquals(0, ingestor.pendingForUser(USUARIO));
+        assertTrue(ingestor.isKnownRead(1L, USUARIO));
+    }
+
+    @Test
+    void siFallaLaEscrituraSeOlvidanParaReintentar() {
+        doThrow(new DataAccessResourceFailureException("caída"))
+                .when(jdbcTemplate).update(startsWith("INSERT IGNORE INTO lecturas"), any(Object[].class));
+        ingestor.submit(1L, USUARIO);
+
+        ingestor.shutdown();
+
+        assertFalse(ingestor.isKnownRead(1L, USUARIO));
+        assertEquals(0, ingestor.pendingForUser(USUARIO));
+        assertTrue(ingestor.submit(1L, USUARIO));
+        assertEquals(1, cola());
+    }
+
+    // El worker sale al interrumpir su poll; desde aquí solo shutdown() escribe
+    private void detenerWorker() throws InterruptedException {
+        Thread worker = (Thread) ReflectionTestUtils.getField(ingestor, "worker");
+        ReflectionTestUtils.setField(ingestor, "running", false);
+        worker.interrupt();
+        worker.join();
+    }
+
+    private int cola() {
+        return (int) registry.get("interacciones.lecturas.queue").gauge().value();
+    }
+}
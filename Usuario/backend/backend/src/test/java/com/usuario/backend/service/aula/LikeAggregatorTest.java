@@ -0,0 +1,227 @@
+package com.usuario.backend.service.aula;
+
+import com.usuario.backend.service.realtime.EventHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Buffer de likes sin BD: JdbcTemplate simulado y una transacción que solo ejecuta el callback.
+ */
+class LikeAggregatorTest {
+
+    private static final Long ANUNCIO = 10L;
+    private static final Integer USUARIO = 7;
+
+    private LikeAggregator aggregator;
+    private JdbcTemplate jdbcTemplate;
+
+    // Filas escritas por cada batchUpdate de likes, en orden
+    private final List<Object[]> inserts = new ArrayList<>();
+    private final List<Object[]> deletes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM likes"), eq(Integer.class), eq(USUARIO), eq(ANUNCIO)))
+                .thenReturn(0);
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT IGNORE INTO likes"), anyList()))
+                .thenAnswer(inv -> registrar(inserts, inv.getArgument(1)));
+        when(jdbcTemplate.batchUpdate(startsWith("DELETE FROM likes"), anyList()))
+                .thenAnswer(inv -> registrar(deletes, inv.getArgument(1)));
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE anuncios"), anyList()))
+                .thenAnswer(inv -> unos(inv.getArgument(1)));
+
+        aggregator = new LikeAggregator();
+        ReflectionTestUtils.setField(aggregator, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(aggregator, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(aggregator, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(aggregator, "eventHub", mock(EventHub.class));
+        aggregator.init();
+    }
+
+    @Test
+    void clicsRepetidosSeFusionanEnUnaSolaEscritura() {
+        assertTrue(aggregator.toggle(ANUNCIO, USUARIO));
+        assertFalse(aggregator.toggle(ANUNCIO, USUARIO));
+        assertTrue(aggregator.toggle(ANUNCIO, USUARIO));
+        assertEquals(1, aggregator.pendingCount());
+
+        aggregator.flush();
+
+        assertEquals(1, inserts.size());
+        assertTrue(deletes.isEmpty());
+        // Solo el primer clic consulta la BD; los demás parten del estado pendiente
+        verify(jdbcTemplate, times(1)).queryForObject(startsWith("SELECT COUNT(*)"), eq(Integer.class), eq(USUARIO), eq(ANUNCIO));
+    }
+
+    @Test
+    void unFlushFallidoDevuelveLosCambiosAPendientes() {
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT IGNORE INTO likes"), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("BD caída"))
+                .thenAnswer(inv -> registrar(inserts, inv.getArgument(1)));
+
+        aggregator.toggle(ANUNCIO, USUARIO);
+        assertThrows(DataAccessResourceFailureException.class, aggregator::flush);
+
+        assertEquals(Boolean.TRUE, aggregator.pendingState(ANUNCIO, USUARIO));
+        assertEquals(1, aggregator.pendingCount());
+
+        aggregator.flush();
+        assertEquals(1, inserts.size());
+        assertEquals(0, aggregator.pendingCount());
+    }
+
+    @Test
+    void unClicPosteriorAlFalloTienePrioridadSobreElReencolado() {
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT IGNORE INTO likes"), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("BD caída"))
+                .thenAnswer(inv -> registrar(inserts, inv.getArgument(1)));
+
+        aggregator.toggle(ANUNCIO, USUARIO);
+        assertThrows(DataAccessResourceFailureException.class, aggregator::flush);
+
+        assertFalse(aggregator.toggle(ANUNCIO, USUARIO));
+        aggregator.flush();
+        assertEquals(1, deletes.size());
+        assertTrue(inserts.isEmpty());
+    }
+
+    @Test
+    void elUsuarioVeSuCambioPendienteYEnVuelo() {
+        AtomicBoolean vistoEnVuelo = new AtomicBoolean();
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT IGNORE INTO likes"), anyList())).thenAnswer(inv -> {
+            vistoEnVuelo.set(Boolean.TRUE.equals(aggregator.pendingState(ANUNCIO, USUARIO))
+                    && Map.of(ANUNCIO, true).equals(aggregator.pendingForUser(USUARIO)));
+            return registrar(inserts, inv.getArgument(1));
+        });
+
+        aggregator.toggle(ANUNCIO, USUARIO);
+        assertEquals(Boolean.TRUE, aggregator.pendingState(ANUNCIO, USUARIO));
+
+        aggregator.flush();
+        assertTrue(vistoEnVuelo.get());
+        assertNull(aggregator.pendingState(ANUNCIO, USUARIO));
+    }
+
+    @Test
+    void lasFranjasVaciasSeEliminanTrasElFlush() {
+        aggregator.toggle(ANUNCIO, USUARIO);
+        aggregator.toggle(11L, USUARIO);
+        aggregator.flush();
+
+        Map<?, ?> pending = (Map<?, ?>) ReflectionTestUtils.getField(aggregator, "pending");
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    void descartarQuitaLaFranjaSiQuedaVacia() {
+        aggregator.toggle(ANUNCIO, USUARIO);
+        aggregator.discard(ANUNCIO, USUARIO);
+
+        Map<?, ?> pending = (Map<?, ?>) ReflectionTestUtils.getField(aggregator, "pending");
+        assertTrue(pending.isEmpty());
+        assertNull(aggregator.pendingState(ANUNCIO, USUARIO));
+    }
+
+    @Test
+    void togglesConcurrentesConFlushesNoPierdenClics() throws Exception {
+        // BD simulada: el estado final de cada usuario debe ser la paridad de sus clics
+        Set<Integer> likes = ConcurrentHashMap.newKeySet();
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM likes"), eq(Integer.class), any(Integer.class), eq(ANUNCIO)))
+                .thenAnswer(inv -> {
+                    boolean existe = likes.contains((Integer) inv.getArgument(2));
+                    // Latencia de la consulta: abre la ventana en la que puede terminar un flush
+                    LockSupport.parkNanos(200_000);
+                    return existe ? 1 : 0;
+                });
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT IGNORE INTO likes"), anyList())).thenAnswer(inv -> {
+            List<Object[]> filas = inv.getArgument(1);
+            filas.forEach(fila -> likes.add((Integer) fila[0]));
+            return unos(filas);
+        });
+        when(jdbcTemplate.batchUpdate(startsWith("DELETE FROM likes"), anyList())).thenAnswer(inv -> {
+            List<Object[]> filas = inv.getArgument(1);
+            filas.forEach(fila -> likes.remove((Integer) fila[0]));
+            return unos(filas);
+        });
+
+        // Dos clientes por usuario (p. ej. dos pestañas): 501 + 500 clics, número impar → termina con like
+        int usuarios = 4;
+        int[] clicsPorCliente = {501, 500};
+        ExecutorService pool = Executors.newFixedThreadPool(usuarios * clicsPorCliente.length + 1);
+        AtomicBoolean terminado = new AtomicBoolean();
+        try {
+            Future<?> flusher = pool.submit(() -> {
+                while (!terminado.get()) {
+                    aggregator.flush();
+                }
+            });
+            List<Future<?>> clientes = new ArrayList<>();
+            for (int u = 0; u < usuarios; u++) {
+                int usuario = u;
+                for (int clics : clicsPorCliente) {
+                    clientes.add(pool.submit(() -> {
+                        for (int i = 0; i < clics; i++) {
+                            aggregator.toggle(ANUNCIO, usuario);
+                        }
+                    }));
+                }
+            }
+            for (Future<?> cliente : clientes) {
+                cliente.get(30, TimeUnit.SECONDS);
+            }
+            terminado.set(true);
+            flusher.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        aggregator.flush();
+
+        assertEquals(usuarios, likes.size());
+        assertEquals(0, aggregator.pendingCount());
+    }
+
+    private static int[] registrar(List<Object[]> destino, List<Object[]> filas) {
+        destino.addAll(filas);
+        return unos(filas);
+    }
+
+    private static int[] unos(List<Object[]> filas) {
+        int[] afectadas = new int[filas.size()];
+        Arrays.fill(afectadas, 1);
+        return afectadas;
+    }
+}
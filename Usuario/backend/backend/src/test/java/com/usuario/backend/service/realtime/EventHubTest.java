@@ -0,0 +1,148 @@
+package com.usuario.backend.service.realtime;
+
+import com.usuario.backend.security.jwt.JwtTokenManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Suscripciones y coalescencia del hub sin BD. Los SseEmitter no están atados a una respuesta:
+ * lo enviado queda en su buffer y basta con observar las conexiones y las consultas.
+ */
+class EventHubTest {
+
+    private EventHub hub;
+    private JdbcTemplate jdbcTemplate;
+    private JwtTokenManager jwtTokenManager;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        jwtTokenManager = mock(JwtTokenManager.class);
+
+        hub = new EventHub();
+        ReflectionTestUtils.setField(hub, "timeoutMs", 60000L);
+        ReflectionTestUtils.setField(hub, "maxConnectionsPerUser", 2);
+        ReflectionTestUtils.setField(hub, "dispatchQueueCapacity", 100);
+        ReflectionTestUtils.setField(hub, "writerThreads", 1);
+        ReflectionTestUtils.setField(hub, "subscriberQueueCapacity", 16);
+        ReflectionTestUtils.setField(hub, "sendTimeoutMs", 10000L);
+        ReflectionTestUtils.setField(hub, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(hub, "jwtTokenManager", jwtTokenManager);
+        ReflectionTestUtils.setField(hub, "meterRegistry", new SimpleMeterRegistry());
+        hub.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    void porEncimaDelTopePorUsuarioSeLiberaUnaConexion() {
+        hub.subscribe(sesion(1L, "a", 0), List.of());
+        hub.subscribe(sesion(1L, "b", 0), List.of());
+        hub.subscribe(sesion(1L, "c", 0), List.of());
+
+        assertEquals(2, hub.connectionCount());
+    }
+
+    @Test
+    void elLogoutCierraSoloLaSesionRevocada() {
+        hub.subscribe(sesion(1L, "a", 0), List.of(5L));
+        hub.subscribe(sesion(1L, "b", 0), List.of(5L));
+
+        hub.closeSession("a");
+
+        assertEquals(1, hub.connectionCount());
+    }
+
+    @Test
+    void elBarridoCierraVersionesObsoletasYSesionesRevocadas() throws Exception {
+        hub.subscribe(sesion(1L, "vigente", 3), List.of());
+        hub.subscribe(sesion(1L, "vieja", 2), List.of());
+        hub.subscribe(sesion(2L, "revocada", 0), List.of());
+        versiones(Map.of(1L, 3, 2L, 0));
+        when(jwtTokenManager.isSessionRevoked(eq("revocada"), anyLong())).thenReturn(true);
+
+        hub.checkSessions();
+
+        assertEquals(1, hub.connectionCount());
+    }
+
+    @Test
+    void unUsuarioBorradoPierdeSusStreams() throws Exception {
+        hub.subscribe(sesion(1L, "a", 0), List.of());
+        versiones(Map.of());
+
+        hub.checkSessions();
+
+        assertEquals(0, hub.connectionCount());
+    }
+
+    @Test
+    void losDeltasDeLaVentanaSalenEnUnaConsulta() {
+        Object[][] ids = new Object[1][];
+        doAnswer(inv -> {
+            ids[0] = (Object[]) inv.getRawArguments()[2];
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT id, aula_id"), any(RowCallbackHandler.class), any(Object[].class));
+
+        hub.publishStatsDelta(1L, 1, 0);
+        hub.publishStatsDelta(1L, 1, 1);
+        // Un like y su deshacer en la misma ventana no generan evento
+        hub.publishStatsDelta(2L, 1, 0);
+        hub.publishStatsDelta(2L, -1, 0);
+        hub.flushDeltas();
+
+        assertArrayEquals(new Object[]{1L}, ids[0]);
+    }
+
+    @Test
+    void sinCambiosNoSeConsulta() {
+        hub.publishStatsDelta(1L, 1, 0);
+        hub.publishStatsDelta(1L, -1, 0);
+
+        hub.flushDeltas();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static EventHub.Sesion sesion(Long usuarioId, String jti, int version) {
+        return new EventHub.Sesion(usuarioId, "u" + usuarioId + "@tecsup.edu.pe", version, jti,
+                System.currentTimeMillis() + 60000);
+    }
+
+    // La consulta de versiones devuelve estas filas (usuario -> token_version)
+    private void versiones(Map<Long, Integer> filas) throws Exception {
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (Map.Entry<Long, Integer> fila : filas.entrySet()) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong("id")).thenReturn(fila.getKey());
+                when(rs.getInt("token_version")).thenReturn(fila.getValue());
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT id, COALESCE(token_version"), any(RowCallbackHandler.class), any(Object[].class));
+    }
+}
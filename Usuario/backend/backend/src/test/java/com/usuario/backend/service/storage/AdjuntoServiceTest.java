@@ -0,0 +1,216 @@
+package com.usuario.backend.service.storage;
+
+import com.usuario.backend.config.UrlConfig;
+import com.usuario.backend.model.entity.Anuncio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Descarga de adjuntos sin contenedor: Range, If-Range, ETag, tipos inline y sendfile sobre un
+ * archivo temporal de 10 bytes ("0123456789").
+ */
+class AdjuntoServiceTest {
+
+    private static final String HASH = "abc123";
+    private static final String ETAG = "\"" + HASH + "\"";
+
+    @TempDir
+    Path dir;
+
+    private AdjuntoService service;
+    private BlobStore blobStore;
+    private Path archivo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        archivo = Files.writeString(dir.resolve(HASH), "0123456789");
+        blobStore = mock(BlobStore.class);
+        when(blobStore.archivoLocal(any())).thenReturn(Optional.empty());
+        when(blobStore.archivoLocal(HASH)).thenReturn(Optional.of(archivo));
+        UrlConfig urlConfig = mock(UrlConfig.class);
+        when(urlConfig.getBackendBaseUrl()).thenReturn("http://localhost:8080");
+
+        service = new AdjuntoService();
+        ReflectionTestUtils.setField(service, "blobStore", blobStore);
+        ReflectionTestUtils.setField(service, "urlConfig", urlConfig);
+    }
+
+    @Test
+    void sinRangeVaElArchivoCompleto() throws Exception {
+        MockHttpServletResponse response = descargar(peticion(), "application/pdf");
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).startsWith("inline"));
+    }
+
+    @Test
+    void rangoSufijo() throws Exception {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+
+        MockHttpServletResponse response = descargar(request, "application/pdf");
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("789", response.getContentAsString());
+        assertEquals(3, response.getContentLengthLong());
+    }
+
+    @Test
+    void unFinMasAllaDelArchivoSeRecorta() throws Exception {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-100");
+
+        MockHttpServletResponse response = descargar(request, "application/pdf");
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 5-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("56789", response.getContentAsString());
+    }
+
+    @Test
+    void unInicioFueraDelArchivoDa416() throws Exception {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=20-30");
+
+        MockHttpServletResponse response = descargar(request, "application/pdf");
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("", response.getContentAsString());
+    }
+
+    @Test
+    void unRangeMalformadoDa416() throws Exception {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=abc");
+
+        MockHttpServletResponse response = descargar(request, "application/pdf");
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void variasRegionesDevuelvenElArchivoCompleto() throws Exception {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,4-5");
+
+        MockHttpServletResponse response = descargar(request, "application/pdf");
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    void unIfRangeDistintoDevuelveElArchivoCompleto() throws Exception {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"otro\"");
+
+        MockHttpServletResponse response = descargar(request, "application/pdf");
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+
+        MockHttpServletRequest mismo = peticion();
+        mismo.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        mismo.addHeader(HttpHeaders.IF_RANGE, ETAG);
+
+        assertEquals("01", descargar(mismo, "application/pdf").getContentAsString());
+    }
+
+    @Test
+    void conElMismoEtagResponde304() throws Exception {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+        MockHttpServletResponse response = descargar(request, "application/pdf");
+
+        assertEquals(304, response.getStatus());
+        assertEquals("", response.getContentAsString());
+    }
+
+    @Test
+    void htmlSeDescargaComoBinarioOpaco() throws Exception {
+        MockHttpServletResponse response = descargar(peticion(), "text/html");
+
+        assertEquals("application/octet-stream", response.getContentType());
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).startsWith("attachment"));
+        assertEquals("sandbox", response.getHeader("Content-Security-Policy"));
+        assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+    }
+
+    @Test
+    void unArchivoGrandeSeDelegaASendfile() throws Exception {
+        Files.write(archivo, new byte[64 * 1024]);
+        MockHttpServletRequest request = peticion();
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=1024-");
+
+        MockHttpServletResponse response = descargar(request, "application/pdf");
+
+        assertEquals(206, response.getStatus());
+        assertEquals(archivo.toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(1024L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(64L * 1024, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void unBlobRemotoSeRedirige() throws Exception {
+        Anuncio anuncio = anuncio("otro", "application/pdf");
+        anuncio.setArchivoUrl("https://cdn.tecsup.edu.pe/blobs/otro");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        service.descargar(anuncio, peticion(), response);
+
+        assertEquals("https://cdn.tecsup.edu.pe/blobs/otro", response.getRedirectedUrl());
+
+        Anuncio sinArchivo = anuncio("perdido", "application/pdf");
+        sinArchivo.setArchivoUrl("http://localhost:8080/api/anuncios/1/archivo");
+        assertThrows(IllegalArgumentException.class,
+                () -> service.descargar(sinArchivo, peticion(), new MockHttpServletResponse()));
+    }
+
+    private MockHttpServletResponse descargar(MockHttpServletRequest request, String tipo) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.descargar(anuncio(HASH, tipo), request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest peticion() {
+        return new MockHttpServletRequest("GET", "/api/anuncios/1/archivo");
+    }
+
+    private static Anuncio anuncio(String clave, String tipo) {
+        Anuncio anuncio = new Anuncio();
+        anuncio.setId(1L);
+        anuncio.setArchivoClave(clave);
+        anuncio.setArchivoHash(clave);
+        anuncio.setArchivoTipo(tipo);
+        anuncio.setArchivoNombre("guia.pdf");
+        return anuncio;
+    }
+}
@@ -0,0 +1,130 @@
+package com.usuario.backend.service.storage;
+
+import com.usuario.backend.config.UrlConfig;
+import com.usuario.backend.model.dto.AdjuntoAula;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * ZIP de adjuntos del aula sin contenedor: selección de archivos (duplicados, excluidos, no
+ * disponibles), ETag del conjunto y contenido del ZIP leído de vuelta.
+ */
+class AdjuntoServiceZipTest {
+
+    @TempDir
+    Path dir;
+
+    private AdjuntoService service;
+    private BlobStore blobStore;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        blobStore = mock(BlobStore.class);
+        when(blobStore.archivoLocal(any())).thenReturn(Optional.empty());
+        for (String hash : List.of("h1", "h2", "h3")) {
+            Path archivo = Files.writeString(dir.resolve(hash), "contenido " + hash);
+            when(blobStore.archivoLocal(hash)).thenReturn(Optional.of(archivo));
+        }
+        UrlConfig urlConfig = mock(UrlConfig.class);
+        when(urlConfig.getBackendBaseUrl()).thenReturn("http://localhost:8080");
+
+        service = new AdjuntoService();
+        ReflectionTestUtils.setField(service, "blobStore", blobStore);
+        ReflectionTestUtils.setField(service, "urlConfig", urlConfig);
+    }
+
+    @Test
+    void elMismoContenidoEntraUnaVez() {
+        List<AdjuntoAula> elegidos = service.prepararZip(List.of(
+                adjunto(1L, "guia.pdf", "h1"),
+                adjunto(2L, "guia-copia.pdf", "h1"),
+                adjunto(3L, "notas.txt", "h2")), null);
+
+        assertEquals(List.of(1L, 3L), elegidos.stream().map(AdjuntoAula::anuncioId).toList());
+    }
+
+    @Test
+    void excluirAceptaEtagsConOSinComillasYDebiles() {
+        List<AdjuntoAula> adjuntos = List.of(adjunto(1L, "a", "h1"), adjunto(2L, "b", "h2"), adjunto(3L, "c", "h3"));
+
+        List<AdjuntoAula> elegidos = service.prepararZip(adjuntos, List.of("\"h1\"", "W/\"h2\""));
+        assertEquals(List.of(3L), elegidos.stream().map(AdjuntoAula::anuncioId).toList());
+
+        assertEquals(List.of(1L, 2L), service.prepararZip(adjuntos, List.of(" h3 ")).stream()
+                .map(AdjuntoAula::anuncioId).toList());
+    }
+
+    @Test
+    void soloEntranLosQueElAlmacenPuedeLeer() {
+        List<AdjuntoAula> elegidos = service.prepararZip(List.of(
+                adjunto(1L, "a", "h1"),
+                // Ni en disco ni remoto: el índice no debe prometerlo
+                new AdjuntoAula(2L, "b", "perdido", "perdido", "http://localhost:8080/api/anuncios/2/archivo"),
+                new AdjuntoAula(3L, "c", "remoto", "remoto", "https://cdn.tecsup.edu.pe/blobs/remoto"),
+                new AdjuntoAula(4L, "d", null, null, null)), List.of());
+
+        assertEquals(List.of(1L, 3L), elegidos.stream().map(AdjuntoAula::anuncioId).toList());
+    }
+
+    @Test
+    void elEtagDependeDelConjuntoDeArchivos() {
+        List<AdjuntoAula> dos = List.of(adjunto(1L, "a", "h1"), adjunto(2L, "b", "h2"));
+
+        assertEquals(service.etagZip(dos), service.etagZip(List.of(adjunto(5L, "otro", "h1"), adjunto(6L, "otro", "h2"))));
+        assertNotEquals(service.etagZip(dos), service.etagZip(List.of(adjunto(1L, "a", "h1"))));
+        assertTrue(service.etagZip(dos).startsWith("W/\"zip-"));
+    }
+
+    @Test
+    void elIndiceVaPrimeroYLosNombresNoSeRepiten() throws Exception {
+        List<AdjuntoAula> adjuntos = List.of(
+                adjunto(1L, "informe.pdf", "h1"),
+                adjunto(2L, "informe.pdf", "h2"),
+                adjunto(3L, "a/b:c.txt", "h3"));
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        service.zip(adjuntos).writeTo(salida);
+
+        Map<String, String> entradas = leer(salida.toByteArray());
+        List<String> nombres = new ArrayList<>(entradas.keySet());
+        assertEquals(List.of("INDICE.txt", "informe.pdf", "informe (2).pdf", "a_b_c.txt"), nombres);
+        assertEquals("\"h1\"\tinforme.pdf\n\"h2\"\tinforme (2).pdf\n\"h3\"\ta_b_c.txt\n", entradas.get("INDICE.txt"));
+        assertEquals("contenido h2", entradas.get("informe (2).pdf"));
+    }
+
+    private static Map<String, String> leer(byte[] zip) throws Exception {
+        Map<String, String> entradas = new LinkedHashMap<>();
+        try (ZipInputStream entrada = new ZipInputStream(new ByteArrayInputStream(zip), StandardCharsets.UTF_8)) {
+            for (ZipEntry e = entrada.getNextEntry(); e != null; e = entrada.getNextEntry()) {
+                entradas.put(e.getName(), new String(entrada.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entradas;
+    }
+
+    private static AdjuntoAula adjunto(Long anuncioId, String nombre, String hash) {
+        return new AdjuntoAula(anuncioId, nombre, hash, hash, "http://localhost:8080/api/anuncios/" + anuncioId + "/archivo");
+    }
+}
@@ -0,0 +1,140 @@
+package com.usuario.backend.service.user;
+
+import com.usuario.backend.repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cache de versiones de token sin BD: repositorio y JdbcTemplate simulados.
+ */
+class TokenVersionCacheTest {
+
+    private TokenVersionCache cache;
+    private UsuarioRepository usuarioRepository;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        usuarioRepository = mock(UsuarioRepository.class);
+        when(usuarioRepository.findTokenVersionById(anyLong())).thenReturn(3);
+        jdbcTemplate = mock(JdbcTemplate.class);
+
+        cache = new TokenVersionCache();
+        ReflectionTestUtils.setField(cache, "usuarioRepository", usuarioRepository);
+        ReflectionTestUtils.setField(cache, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "ttlMs", 60000L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        cache.init();
+    }
+
+    @Test
+    void dentroDelTtlNoSeReleeLaBd() {
+        assertEquals(3, cache.get(1L));
+        assertEquals(3, cache.get(1L));
+        verify(usuarioRepository, times(1)).findTokenVersionById(1L);
+    }
+
+    @Test
+    void usuarioInexistenteEsMenosUno() {
+        when(usuarioRepository.findTokenVersionById(9L)).thenReturn(null);
+        assertEquals(-1, cache.get(9L));
+    }
+
+    @Test
+    void conLaCacheLlenaNoSeAnadenEntradas() {
+        cache.get(1L);
+        cache.get(2L);
+        cache.get(3L);
+        cache.get(3L);
+
+        assertEquals(2, cache.size());
+        verify(usuarioRepository, times(2)).findTokenVersionById(3L);
+    }
+
+    @Test
+    void lasEntradasVencidasDejanSitio() {
+        cache.get(1L);
+        cache.get(2L);
+        vencer(1L);
+
+        cache.get(3L);
+        cache.get(3L);
+
+        assertEquals(2, cache.size());
+        verify(usuarioRepository, times(1)).findTokenVersionById(3L);
+    }
+
+    @Test
+    void purgeExpiredSoloQuitaLasVencidas() {
+        cache.get(1L);
+        cache.get(2L);
+        vencer(2L);
+
+        cache.purgeExpired();
+
+        assertEquals(1, cache.size());
+        cache.get(1L);
+        verify(usuarioRepository, times(1)).findTokenVersionById(1L);
+    }
+
+    @Test
+    void invalidarQuitaLaEntradaYApuntaElCambio() {
+        cache.get(1L);
+        cache.invalidate(1L);
+
+        verify(jdbcTemplate).update(eq(TokenVersionCache.SQL_REGISTRAR), eq(1L), anyLong());
+        cache.get(1L);
+        verify(usuarioRepository, times(2)).findTokenVersionById(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void losCambiosDeOtrosNodosInvalidanLaEntrada() {
+        when(jdbcTemplate.query(eq(TokenVersionCache.SQL_CAMBIOS), any(RowMapper.class), any(), any()))
+                .thenReturn(List.of(new long[]{7L, 1L}))
+                .thenReturn(List.of());
+        cache.get(1L);
+        cache.get(2L);
+
+        cache.refresh();
+
+        assertEquals(1, cache.size());
+        assertEquals(7L, ReflectionTestUtils.getField(cache, "lastSeenId"));
+        // Cada lectura parte del último id visto menos la ventana de relectura
+        cache.refresh();
+        verify(jdbcTemplate, times(2)).query(eq(TokenVersionCache.SQL_CAMBIOS), any(RowMapper.class), eq(0L), eq(500));
+    }
+
+    // Retrocede la carga de la entrada más allá del TTL
+    @SuppressWarnings("unchecked")
+    private void vencer(Long usuarioId) {
+        Map<Long, Object> versions = (Map<Long, Object>) ReflectionTestUtils.getField(cache, "versions");
+        Object cached = versions.get(usuarioId);
+        try {
+            var version = cached.getClass().getDeclaredMethod("version");
+            version.setAccessible(true);
+            var constructor = cached.getClass().getDeclaredConstructor(int.class, long.class);
+            constructor.setAccessible(true);
+            versions.put(usuarioId, constructor.newInstance(version.invoke(cached), System.currentTimeMillis() - 120000));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
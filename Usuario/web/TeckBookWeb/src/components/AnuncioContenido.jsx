@@ -0,0 +1,41 @@
+import React, { useState } from 'react';
+import aulasService from '../services/aulasService';
+
+// 📄 Contenido de un anuncio: las páginas traen un extracto de los textos largos y
+// "Ver más" pide el contenido completo solo cuando el usuario lo abre
+const AnuncioContenido = ({ anuncio }) => {
+  const [completo, setCompleto] = useState(null);
+  const [cargando, setCargando] = useState(false);
+
+  const verMas = async () => {
+    try {
+      setCargando(true);
+      const data = await aulasService.getAnuncioCompleto(anuncio.id);
+      setCompleto(data.contenido);
+    } catch (error) {
+      console.warn(`⚠️ No se pudo cargar el anuncio ${anuncio.id}:`, error.message);
+    } finally {
+      setCargando(false);
+    }
+  };
+
+  const truncado = anuncio.contenidoCompleto === false && completo === null;
+
+  return (
+    <>
+      {completo ?? anuncio.contenido}
+      {truncado && (
+        <button
+          type="button"
+          onClick={verMas}
+          disabled={cargando}
+          style={{ display: 'block', marginTop: 8, background: 'none', border: 'none', padding: 0, color: '#2563eb', cursor: 'pointer' }}
+        >
+          {cargando ? 'Cargando...' : 'Ver más'}
+        </button>
+      )}
+    </>
+  );
+};
+
+export default AnuncioContenido;
@@ -1,23 +1,26 @@
 import React, { useState, useEffect, useRef, useCallback } from 'react';
 import { Heart, MessageCircle, Eye } from 'lucide-react';
 import interactionsService from '../services/interactionsService';
+import realtimeService from '../services/realtimeService';
 
 // 🔥 Cache global para evitar peticiones duplicadas
 const statsCache = new Map();
 const pendingRequests = new Map();
 
-const AnuncioInteractions = ({ anuncioId, onStatsChange }) => {
-  const [stats, setStats] = useState({
+// initialStats: contadores que ya trae la tarjeta del feed; con ellos no se piden stats aparte
+const AnuncioInteractions = ({ anuncioId, initialStats, onStatsChange }) => {
+  const [stats, setStats] = useState(() => initialStats || {
     likesCount: 0,
     commentsCount: 0,
     userLiked: false,
     userRead: false
   });
   const [comentarios, setComentarios] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [nuevoComentario, setNuevoComentario] = useState('');
   const [showComments, setShowComments] = useState(false);
   const [loading, setLoading] = useState(false);
-  const [statsLoaded, setStatsLoaded] = useState(false);
+  const [statsLoaded, setStatsLoaded] = useState(Boolean(initialStats));
   const [error, setError] = useState(null);
   
   // 🔥 Refs para controlar lifecycle del componente
@@ -111,32 +114,19 @@ const AnuncioInteractions = ({ anuncioId, onStatsChange }) => {
     }
   }, [anuncioId, statsLoaded, onStatsChange]);
 
-  // 🔥 Función optimizada para marcar como leído (una sola vez)
-  const markAsReadOnce = useCallback(async () => {
+  // 🔥 Marcar como leído una sola vez; el servicio agrupa las tarjetas visibles en un lote
+  const markAsReadOnce = useCallback(() => {
     if (readMarkedRef.current) return;
     readMarkedRef.current = true;
-
-    try {
-      const controller = new AbortController();
-      setTimeout(() => controller.abort(), 3000);
-
-      await interactionsService.markAsRead(anuncioId, {
-        signal: controller.signal
-      });
-    } catch (error) {
-      // Silencioso, no mostrar error al usuario
-      console.debug(`📖 Read marking failed para anuncio ${anuncioId}`);
-    }
+    interactionsService.markAsRead(anuncioId);
   }, [anuncioId]);
 
-  // 🔥 Effect optimizado con delay escalonado
+  // 🔥 Effect optimizado: stats agrupadas por lote
   useEffect(() => {
     mountedRef.current = true;
     
-    // 🔥 Delay escalonado basado en el ID para evitar todos los requests al mismo tiempo
-    const baseDelay = parseInt(anuncioId) % 10; // 0-9 basado en último dígito
-    const randomDelay = Math.random() * 1000; // 0-1000ms adicional
-    const totalDelay = (baseDelay * 200) + randomDelay; // 0-2800ms + random
+    // 🔥 Delay corto: las tarjetas montadas juntas comparten un solo lote de stats
+    const totalDelay = 50;
     
     loadTimeoutRef.current = setTimeout(() => {
       if (mountedRef.current) {
@@ -159,6 +149,20 @@ const AnuncioInteractions = ({ anuncioId, onStatsChange }) => {
     };
   }, [anuncioId, loadStatsWithCache, markAsReadOnce]);
 
+  // 📡 Contadores en vivo: el stream trae los totales vigentes del anuncio
+  useEffect(() => {
+    return realtimeService.on('stats', ({ deltas = [] }) => {
+      const change = deltas.find(d => String(d.anuncioId) === String(anuncioId));
+      if (!change || !mountedRef.current) return;
+      setStats(prev => ({
+        ...prev,
+        likesCount: change.likesCount,
+        commentsCount: change.commentsCount
+      }));
+      statsCache.delete(`stats_${anuncioId}`);
+    });
+  }, [anuncioId]);
+
   // 🔥 Función para cargar comentarios con cache
   const loadComments = useCallback(async () => {
     if (!mountedRef.current) return;
@@ -170,6 +174,7 @@ const AnuncioInteractions = ({ anuncioId, onStatsChange }) => {
       const cached = statsCache.get(commentsCacheKey);
       if (Date.now() - cached.timestamp < 10000) { // 10 segundos
         setComentarios(cached.data);
+        setNextCursor(cached.nextCursor || null);
         return;
       }
     }
@@ -189,11 +194,13 @@ const AnuncioInteractions = ({ anuncioId, onStatsChange }) => {
       // Guardar en cache
       statsCache.set(commentsCacheKey, {
         data: data.comentarios || [],
+        nextCursor: data.nextCursor || null,
         timestamp: Date.now()
       });
       
       if (mountedRef.current) {
         setComentarios(data.comentarios || []);
+        setNextCursor(data.nextCursor || null);
       }
     } catch (error) {
       if (mountedRef.current && error.name !== 'AbortError') {
@@ -207,6 +214,29 @@ const AnuncioInteractions = ({ anuncioId, onStatsChange }) => {
     }
   }, [anuncioId]);
 
+  // 🔥 Página siguiente de comentarios (cursor del servidor)
+  const loadMoreComments = useCallback(async () => {
+    if (!mountedRef.current || !nextCursor || loading) return;
+
+    try {
+      setLoading(true);
+      const data = await interactionsService.getComments(anuncioId, { cursor: nextCursor });
+      if (mountedRef.current) {
+        setComentarios(prev => [...prev, ...(data.comentarios || [])]);
+        setNextCursor(data.nextCursor || null);
+      }
+      statsCache.delete(`comments_${anuncioId}`);
+    } catch (error) {
+      if (mountedRef.current && error.name !== 'AbortError') {
+        console.warn(`⚠️ Comments error para anuncio ${anuncioId}:`, error.message);
+      }
+    } finally {
+      if (mountedRef.current) {
+        setLoading(false);
+      }
+    }
+  }, [anuncioId, nextCursor, loading]);
+
   // 🔥 Handle like con optimistic updates y throttling
   const handleLike = useCallback(async () => {
     if (loading || !statsLoaded) return;
@@ -236,7 +266,7 @@ const AnuncioInteractions = ({ anuncioId, onStatsChange }) => {
       const controller = new AbortController();
       setTimeout(() => controller.abort(), 5000);
 
-      await interactionsService.toggleLike(anuncioId, {
+      await interactionsService.setLike(anuncioId, newLiked, {
         signal: controller.signal
       });
       
@@ -566,6 +596,24 @@ const AnuncioInteractions = ({ anuncioId, onStatsChange }) => {
               </div>
             ))
           )}
+          {nextCursor && (
+            <button
+              type="button"
+              onClick={loadMoreComments}
+              disabled={loading}
+              style={{
+                width: '100%',
+                padding: '10px',
+                border: 'none',
+                backgroundColor: 'transparent',
+                color: '#3b82f6',
+                fontSize: '13px',
+                cursor: 'pointer'
+              }}
+            >
+              {loading ? 'Cargando...' : 'Ver más comentarios'}
+            </button>
+          )}
         </div>
       )}
     </div>
@@ -2,6 +2,7 @@ import React, { useState, useEffect } from 'react';
 import { Mail, Clock, Check, X, User, BookOpen, AlertCircle } from 'lucide-react';
 import '../css/InvitacionesPendientes.css'; // Opcional: si prefieres mover los estilos a un archivo externo
 import { API_CONFIG } from '../config/apiConfig';
+import realtimeService from '../services/realtimeService';
 
 
 function InvitacionesPendientes({ isOpen, onClose, onAulaAceptada }) {
@@ -15,6 +16,12 @@ function InvitacionesPendientes({ isOpen, onClose, onAulaAceptada }) {
     }
   }, [isOpen]);
 
+  // 📡 Invitación nueva en vivo: se recarga la lista mientras el panel está abierto
+  useEffect(() => {
+    if (!isOpen) return undefined;
+    return realtimeService.on('invitacion', () => fetchInvitacionesPendientes());
+  }, [isOpen]);
+
   const fetchInvitacionesPendientes = async () => {
   try {
     const token = localStorage.getItem('token');
@@ -0,0 +1,33 @@
+import React, { useEffect, useState } from 'react';
+import aulasService from '../services/aulasService';
+
+// 🖼️ Miniatura del adjunto de un anuncio: la URL lleva un ticket de descarga que se pide al montar
+const PreviewAdjunto = ({ anuncio, className }) => {
+  const [src, setSrc] = useState(null);
+
+  useEffect(() => {
+    let activo = true;
+    aulasService.conTicket(anuncio.previewUrl)
+      .then((url) => { if (activo) setSrc(url); })
+      .catch((error) => console.warn(`⚠️ Sin miniatura para el anuncio ${anuncio.id}:`, error.message));
+    return () => { activo = false; };
+  }, [anuncio.id, anuncio.previewUrl]);
+
+  if (!src) return null;
+
+  return (
+    <a
+      href={anuncio.archivoUrl}
+      onClick={(e) => { e.preventDefault(); aulasService.abrirDescarga(anuncio.archivoUrl).catch(() => {}); }}
+    >
+      <img
+        src={src}
+        alt={anuncio.archivoNombre || 'Vista previa del adjunto'}
+        loading="lazy"
+        className={className}
+      />
+    </a>
+  );
+};
+
+export default PreviewAdjunto;
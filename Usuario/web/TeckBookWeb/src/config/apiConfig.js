@@ -69,7 +69,20 @@ const ENDPOINTS = {
       CREATE: (aulaId) => `/api/aulas/${aulaId}/anuncios`,
       UPDATE: (aulaId, anuncioId) => `/api/aulas/${aulaId}/anuncios/${anuncioId}`,
       DELETE: (aulaId, anuncioId) => `/api/aulas/${aulaId}/anuncios/${anuncioId}`
-    }
+    },
+    // ZIP con todos los adjuntos del aula
+    ARCHIVOS: (aulaId) => `/api/aulas/${aulaId}/archivos`
+  },
+  
+  // Inicio: anuncios generales y de todas las aulas del usuario, paginados por cursor
+  FEED: '/api/feed',
+  FEED_ANUNCIO: (id) => `/api/feed/anuncios/${id}`,
+  // Tickets de corta duración para abrir descargas sin cabecera Authorization
+  DESCARGA_TICKETS: '/api/descargas/tickets',
+  // Stream SSE: se abre con un ticket de un minuto pedido justo antes
+  EVENTS: {
+    STREAM: '/api/events/stream',
+    TICKETS: '/api/events/tickets',
   },
   
   // Departamentos
@@ -2,11 +2,16 @@ import React, { useEffect, useState } from 'react';
 import { FileText, Upload, Filter, Search, Calendar, MessageCircle, Heart, Eye, X, Plus, File, HelpCircle, User, BookOpen, ThumbsUp, Share2, MoreHorizontal, Check, Copy } from 'lucide-react';
 import Header from '../components/Header';
 import AnuncioInteractions from '../components/AnuncioInteractions';
+import AnuncioContenido from '../components/AnuncioContenido';
+import PreviewAdjunto from '../components/PreviewAdjunto';
+import aulasService from '../services/aulasService';
 import '../css/AnunciosGeneral.css';
 import { API_CONFIG, ENDPOINTS } from '../config/apiConfig';
 
 export default function AnunciosGeneral() {
   const [anuncios, setAnuncios] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [isLoading, setIsLoading] = useState(true);
   const [error, setError] = useState(null);
   const [showCreateModal, setShowCreateModal] = useState(false);
@@ -44,24 +49,47 @@ export default function AnunciosGeneral() {
     }
   };
 
+  // 🚀 El servidor pagina por cursor: { anuncios, nextCursor, hasMore }
+  const fetchAnunciosPage = async (cursor) => {
+    const token = localStorage.getItem('token');
+    const query = cursor ? `?cursor=${encodeURIComponent(cursor)}` : '';
+    const res = await fetch(`${API_CONFIG.API_BASE_URL}/api/anuncios/general${query}`, {
+      headers: { 'Authorization': `Bearer ${token}` }
+    });
+    if (!res.ok) throw new Error('No se pudieron cargar los anuncios generales');
+    return await res.json();
+  };
+
   const fetchAnuncios = async () => {
     setIsLoading(true);
     setError(null);
     try {
-      const token = localStorage.getItem('token');
-      const res = await fetch(`${API_CONFIG.API_BASE_URL}/api/anuncios/general`, {
-        headers: { 'Authorization': `Bearer ${token}` }
-      });
-      if (!res.ok) throw new Error('No se pudieron cargar los anuncios generales');
-      setAnuncios(await res.json());
+      const data = await fetchAnunciosPage();
+      setAnuncios(data.anuncios || []);
+      setNextCursor(data.nextCursor || null);
     } catch (e) {
       setError(e.message);
       setAnuncios([]);
+      setNextCursor(null);
     } finally {
       setIsLoading(false);
     }
   };
 
+  const loadMoreAnuncios = async () => {
+    if (!nextCursor || loadingMore) return;
+    try {
+      setLoadingMore(true);
+      const data = await fetchAnunciosPage(nextCursor);
+      setAnuncios(prev => [...prev, ...(data.anuncios || [])]);
+      setNextCursor(data.nextCursor || null);
+    } catch (e) {
+      console.error('❌ Error al cargar más anuncios:', e);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleCreateAnuncio = async (e) => {
     e.preventDefault();
     try {
@@ -381,7 +409,11 @@ export default function AnunciosGeneral() {
                       </button>
                     </div>
                     
-                    <div className="anuncios-generales-post-content">{anuncio.contenido}</div>
+                    <div className="anuncios-generales-post-content"><AnuncioContenido anuncio={anuncio} /></div>
+
+                    {anuncio.previewUrl && (
+                      <PreviewAdjunto anuncio={anuncio} className="anuncios-generales-archivo-preview" />
+                    )}
 
                     {anuncio.archivoNombre && (
                       <div className="anuncios-generales-post-archivo">
@@ -389,8 +421,10 @@ export default function AnunciosGeneral() {
                         <div className="anuncios-generales-archivo-info">
                           <a 
                             href={anuncio.archivoUrl} 
-                            target="_blank" 
-                            rel="noopener noreferrer"
+                            onClick={(e) => {
+                              e.preventDefault();
+                              aulasService.abrirDescarga(anuncio.archivoUrl).catch((error) => alert(error.message));
+                            }}
                             className="anuncios-generales-archivo-link"
                           >
                             {anuncio.archivoNombre}
@@ -443,6 +477,7 @@ export default function AnunciosGeneral() {
                     {/* 🔥 NUEVO: Componente de interacciones */}
                     <AnuncioInteractions 
                       anuncioId={anuncio.id}
+                      initialStats={anuncio.stats}
                       onStatsChange={(stats) => {
                         console.log(`Stats de anuncio general ${anuncio.id}:`, stats);
                       }}
@@ -450,6 +485,24 @@ export default function AnunciosGeneral() {
                   </article>
                 ))
               )}
+              {!isLoading && !error && nextCursor && (
+                <button
+                  type="button"
+                  onClick={loadMoreAnuncios}
+                  disabled={loadingMore}
+                  style={{
+                    width: '100%',
+                    padding: '12px',
+                    border: 'none',
+                    backgroundColor: 'transparent',
+                    color: '#3b82f6',
+                    fontSize: '14px',
+                    cursor: 'pointer'
+                  }}
+                >
+                  {loadingMore ? 'Cargando...' : 'Ver más anuncios'}
+                </button>
+              )}
             </div>
           </main>
 
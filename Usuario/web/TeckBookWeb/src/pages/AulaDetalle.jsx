@@ -19,17 +19,22 @@ import {
   AlertCircle,
   Calculator,
   Trash2,
+  Download,
   X
 } from 'lucide-react';
 import './AulaDetalle.css';
 import ListaIntegrantes from '../components/ListaIntegrantes';
 import AnuncioInteractions from '../components/AnuncioInteractions';
+import AnuncioContenido from '../components/AnuncioContenido';
+import aulasService from '../services/aulasService';
 import { API_CONFIG, ENDPOINTS, ROUTES } from '../config/apiConfig'
 
 function AulaDetalle() {
   const { aulaId } = useParams();
   const navigate = useNavigate();
   const [anuncios, setAnuncios] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [aula, setAula] = useState(null);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
@@ -73,23 +78,46 @@ function AulaDetalle() {
     }
   };
 
+  // 🚀 El servidor pagina por cursor: { anuncios, nextCursor, hasMore }
+  const fetchAnunciosPage = async (token, cursor) => {
+    const query = cursor ? `?cursor=${encodeURIComponent(cursor)}` : '';
+    const res = await fetch(`${API_CONFIG.API_BASE_URL}${ENDPOINTS.AULAS.ANUNCIOS.BY_AULA(aulaId)}${query}`, {
+      headers: { Authorization: `Bearer ${token}` }
+    });
+    if (!res.ok) throw new Error('No tienes acceso o no hay anuncios');
+    return await res.json();
+  };
+
   const fetchAnuncios = async (token) => {
     try {
       setLoading(true);
       setError(null);
-      const res = await fetch(`${API_CONFIG.API_BASE_URL}${ENDPOINTS.AULAS.ANUNCIOS.BY_AULA(aulaId)}`, {
-        headers: { Authorization: `Bearer ${token}` }
-      });
-      if (!res.ok) throw new Error('No tienes acceso o no hay anuncios');
-      setAnuncios(await res.json());
+      const data = await fetchAnunciosPage(token);
+      setAnuncios(data.anuncios || []);
+      setNextCursor(data.nextCursor || null);
     } catch (e) {
       setAnuncios([]);
+      setNextCursor(null);
       setError(e.message);
     } finally {
       setLoading(false);
     }
   };
 
+  const loadMoreAnuncios = async () => {
+    if (!nextCursor || loadingMore) return;
+    try {
+      setLoadingMore(true);
+      const data = await fetchAnunciosPage(localStorage.getItem('token'), nextCursor);
+      setAnuncios(prev => [...prev, ...(data.anuncios || [])]);
+      setNextCursor(data.nextCursor || null);
+    } catch (e) {
+      console.error('❌ Error al cargar más anuncios:', e);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleCreateAnuncio = async (e) => {
     e.preventDefault();
 
@@ -271,6 +299,20 @@ function AulaDetalle() {
               <Plus size={16} />
               <span>Nuevo Anuncio</span>
             </button>
+            {/* El ZIP se genera en streaming; se abre con un ticket de descarga porque la navegación no envía cabeceras */}
+            <button
+              className="aula-header-btn"
+              onClick={async () => {
+                try {
+                  window.location.href = await aulasService.conTicket(ENDPOINTS.AULAS.ARCHIVOS(aulaId));
+                } catch (error) {
+                  alert(error.message);
+                }
+              }}
+            >
+              <Download size={16} />
+              <span>Descargar archivos</span>
+            </button>
             <button className="aula-header-btn">
               <Settings size={16} />
               <span>Configuración</span>
@@ -358,7 +400,7 @@ function AulaDetalle() {
                   </div>
 
                   <div className="aula-anuncio-content">
-                    <p>{anuncio.contenido}</p>
+                    <p><AnuncioContenido anuncio={anuncio} /></p>
                   </div>
 
                   <div className="aula-anuncio-footer">
@@ -374,6 +416,7 @@ function AulaDetalle() {
                   {/* 🔥 NUEVO: Componente de interacciones */}
                   <AnuncioInteractions 
                     anuncioId={anuncio.id}
+                    initialStats={anuncio.stats}
                     onStatsChange={(stats) => {
                       console.log(`Stats de anuncio aula ${anuncio.id}:`, stats);
                     }}
@@ -381,6 +424,24 @@ function AulaDetalle() {
                 </div>
               ))
             )}
+            {nextCursor && (
+              <button
+                type="button"
+                onClick={loadMoreAnuncios}
+                disabled={loadingMore}
+                style={{
+                  width: '100%',
+                  padding: '12px',
+                  border: 'none',
+                  backgroundColor: 'transparent',
+                  color: '#3b82f6',
+                  fontSize: '14px',
+                  cursor: 'pointer'
+                }}
+              >
+                {loadingMore ? 'Cargando...' : 'Ver más anuncios'}
+              </button>
+            )}
           </div>
         </div>
 
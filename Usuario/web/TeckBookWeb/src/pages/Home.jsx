@@ -5,6 +5,7 @@ import CompletarPerfil from '../components/CompletarPerfil';
 import Header from '../components/Header';
 import Modal from '../components/Modal';
 import AnuncioInteractions from '../components/AnuncioInteractions';
+import AnuncioContenido from '../components/AnuncioContenido';
 import { 
   FileText,
   Upload,
@@ -23,6 +24,15 @@ import { ENDPOINTS, ROUTES } from '../config/apiConfig';
 import apiService from '../services/apiService';
 import aulasService from '../services/aulasService';
 
+// Etiqueta cada anuncio con el nombre de su aula (los generales como "General")
+const withAulaNombre = (anunciosPagina, aulasPorId) => anunciosPagina.map(anuncio => {
+  const aula = aulasPorId.get(anuncio.aulaId);
+  return {
+    ...anuncio,
+    aulaNombre: anuncio.esGeneral ? 'General' : (aula?.nombre || aula?.titulo || '')
+  };
+});
+
 function Home() {
   const [userData, setUserData] = useState(null);
   const [isLoading, setIsLoading] = useState(true);
@@ -30,6 +40,8 @@ function Home() {
   const [showCompletarPerfil, setShowCompletarPerfil] = useState(false);
   const [anuncios, setAnuncios] = useState([]);
   const [anunciosFijados, setAnunciosFijados] = useState([]);
+  const [feedCursor, setFeedCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [shareStatus, setShareStatus] = useState({});
   const [sortOrder, setSortOrder] = useState('recientes');
   const [showCreateModal, setShowCreateModal] = useState(false);
@@ -42,6 +54,7 @@ function Home() {
   // 🔥 Referencias para evitar peticiones duplicadas
   const fetchingUserData = useRef(false);
   const fetchingAnuncios = useRef(false);
+  const aulasPorIdRef = useRef(new Map());
   const isMounted = useRef(true);
 
   const navigate = useNavigate();
@@ -93,65 +106,31 @@ function Home() {
     }
   }, []);
 
-  // 🔥 Función memoizada para cargar anuncios
+  // 🏠 Inicio en una sola petición: GET /api/feed mezcla en el servidor los anuncios generales
+  // y los de todas las aulas del usuario, ya ordenados por fecha y paginados por cursor
   const fetchAnuncios = useCallback(async () => {
     if (fetchingAnuncios.current) return;
     fetchingAnuncios.current = true;
 
     try {
-      console.log('🔍 Cargando anuncios de las aulas...');
-      
-      const aulas = await aulasService.getAll();
-      console.log('📚 Aulas obtenidas:', aulas.length);
-      
-      if (aulas.length === 0) {
-        console.log('ℹ️ El usuario no pertenece a ninguna aula');
-        return;
-      }
+      console.log('🔍 Cargando inicio...');
 
-      // 🔥 Procesar anuncios por lotes para evitar sobrecarga
-      const todosLosAnuncios = [];
-      const anunciosFijadosTemp = [];
-      const batchSize = 3; // Procesar 3 aulas a la vez
-
-      for (let i = 0; i < aulas.length; i += batchSize) {
-        const batch = aulas.slice(i, i + batchSize);
-        
-        const batchPromises = batch.map(async (aula) => {
-          try {
-            const anunciosAula = await aulasService.getAnuncios(aula.id);
-            console.log(`📋 Anuncios del aula ${aula.nombre}:`, anunciosAula.length);
-            
-            return anunciosAula.map(anuncio => ({
-              ...anuncio,
-              aulaNombre: aula.nombre || aula.titulo,
-              aulaId: aula.id
-            }));
-          } catch (error) {
-            console.error(`❌ Error al cargar anuncios del aula ${aula.id}:`, error);
-            return [];
-          }
-        });
-
-        const batchResults = await Promise.all(batchPromises);
-        batchResults.forEach(anunciosConAula => {
-          todosLosAnuncios.push(...anunciosConAula);
-          const fijados = anunciosConAula.filter(a => a.fijado);
-          anunciosFijadosTemp.push(...fijados);
-        });
-
-        // Pequeña pausa entre lotes para no saturar
-        if (i + batchSize < aulas.length) {
-          await new Promise(resolve => setTimeout(resolve, 200));
-        }
-      }
+      // Los nombres de las aulas solo sirven para etiquetar: se piden en paralelo con el feed
+      const [aulas, pagina] = await Promise.all([
+        aulasService.getAll().catch(() => []),
+        aulasService.getFeed()
+      ]);
+      const aulasPorId = new Map(aulas.map(aula => [aula.id, aula]));
+      aulasPorIdRef.current = aulasPorId;
 
-      console.log('📊 Total anuncios cargados:', todosLosAnuncios.length);
-      console.log('📌 Anuncios fijados:', anunciosFijadosTemp.length);
+      const anunciosPagina = withAulaNombre(pagina.anuncios || [], aulasPorId);
+      console.log('📊 Anuncios del inicio:', anunciosPagina.length);
 
       if (isMounted.current) {
-        setAnuncios(todosLosAnuncios);
-        setAnunciosFijados(anunciosFijadosTemp);
+        setAnuncios(anunciosPagina);
+        // Los fijados llegan aparte con la primera página, sin depender de lo paginado
+        setAnunciosFijados(withAulaNombre(pagina.fijados || [], aulasPorId));
+        setFeedCursor(pagina.nextCursor || null);
       }
 
     } catch (error) {
@@ -164,6 +143,26 @@ function Home() {
     }
   }, []);
 
+  const loadMoreAnuncios = useCallback(async () => {
+    if (!feedCursor || fetchingAnuncios.current) return;
+    fetchingAnuncios.current = true;
+    setLoadingMore(true);
+
+    try {
+      const pagina = await aulasService.getFeed({ cursor: feedCursor });
+      const anunciosPagina = withAulaNombre(pagina.anuncios || [], aulasPorIdRef.current);
+      if (isMounted.current) {
+        setAnuncios(prev => [...prev, ...anunciosPagina]);
+        setFeedCursor(pagina.nextCursor || null);
+      }
+    } catch (error) {
+      console.error('❌ Error al cargar más anuncios:', error);
+    } finally {
+      fetchingAnuncios.current = false;
+      if (isMounted.current) setLoadingMore(false);
+    }
+  }, [feedCursor]);
+
   // 🔥 Effect optimizado - solo se ejecuta una vez
   useEffect(() => {
     isMounted.current = true;
@@ -453,8 +452,8 @@ function Home() {
               sortedAnuncios.map(post => (
                 <article key={post.id} className="home-post">
                   <div className="home-post-header">
-                    {post.profesorImagenUrl && post.profesorImagenUrl.trim() ? (
-                      <img src={post.profesorImagenUrl} alt="avatar" className="home-post-avatar" />
+                    {post.autorImagenUrl && post.autorImagenUrl.trim() ? (
+                      <img src={post.autorImagenUrl} alt="avatar" className="home-post-avatar" />
                     ) : (
                       <div className="home-post-avatar">
                         {post.autorNombre
@@ -488,7 +487,7 @@ function Home() {
                     </button>
                   </div>
                   
-                  <div className="home-post-content">{post.contenido}</div>
+                  <div className="home-post-content"><AnuncioContenido anuncio={post} /></div>
                   
                   <div className="home-post-actions">
                     <button 
@@ -523,6 +522,7 @@ function Home() {
 
                   <AnuncioInteractions 
                     anuncioId={post.id}
+                    initialStats={post.stats}
                     onStatsChange={(stats) => {
                       console.log(`Stats de anuncio ${post.id}:`, stats);
                     }}
@@ -530,6 +530,24 @@ function Home() {
                 </article>
               ))
             )}
+            {feedCursor && (
+              <button
+                type="button"
+                onClick={loadMoreAnuncios}
+                disabled={loadingMore}
+                style={{
+                  width: '100%',
+                  padding: '12px',
+                  border: 'none',
+                  backgroundColor: 'transparent',
+                  color: '#3b82f6',
+                  fontSize: '14px',
+                  cursor: 'pointer'
+                }}
+              >
+                {loadingMore ? 'Cargando...' : 'Ver más anuncios'}
+              </button>
+            )}
           </div>
         </main>
 
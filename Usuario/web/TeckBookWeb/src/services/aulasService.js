@@ -1,6 +1,11 @@
 
 import apiService from './apiService';
-import { ENDPOINTS } from '../config/apiConfig';
+import { API_CONFIG, ENDPOINTS } from '../config/apiConfig';
+
+// Rutas que sirve el backend sin cabeceras (enlaces, <img>, visores de PDF): se abren con ?ticket=
+const RUTA_DESCARGA = /^\/api\/(anuncios\/\d+\/archivo(\/preview)?|aulas\/\d+\/archivos)$/;
+// Ticket vigente por ruta; reutilizarlo mantiene estable la URL y el navegador puede cachear la miniatura
+const tickets = new Map();
 
 class AulasService {
   // Obtener todas las aulas del usuario
@@ -51,10 +56,69 @@ class AulasService {
 
   // === ANUNCIOS ===
   
-  // Obtener anuncios de un aula
-  async getAnuncios(aulaId) {
+  // Página del inicio (generales + aulas del usuario, por fecha): { anuncios, nextCursor, hasMore }
+  async getFeed({ cursor, limit } = {}) {
+    try {
+      const params = new URLSearchParams();
+      if (cursor) params.set('cursor', cursor);
+      if (limit) params.set('limit', limit);
+      const query = params.toString();
+      return await apiService.get(`${ENDPOINTS.FEED}${query ? `?${query}` : ''}`);
+    } catch (error) {
+      throw new Error('Error al obtener el inicio');
+    }
+  }
+
+  // URL con ticket de descarga: un <a>, un <img> o un visor de PDF no envían la cabecera Authorization,
+  // y el token de sesión no debe ir en la URL. Las URLs remotas (Cloudinary) se devuelven tal cual
+  async conTicket(url) {
+    if (!url) return url;
+    const { pathname } = new URL(url, API_CONFIG.API_BASE_URL);
+    if (!RUTA_DESCARGA.test(pathname)) return url;
+    let vigente = tickets.get(pathname);
+    if (!vigente || vigente.expiraEn - Date.now() < 60000) {
+      vigente = await apiService.post(ENDPOINTS.DESCARGA_TICKETS, { ruta: pathname });
+      tickets.set(pathname, vigente);
+    }
+    const absoluta = url.startsWith('/') ? `${API_CONFIG.API_BASE_URL}${url}` : url;
+    return `${absoluta}${absoluta.includes('?') ? '&' : '?'}ticket=${encodeURIComponent(vigente.ticket)}`;
+  }
+
+  // Abre una descarga en otra pestaña. La pestaña se abre antes de pedir el ticket para que el
+  // navegador no la bloquee como popup
+  async abrirDescarga(url) {
+    const ventana = window.open('', '_blank');
+    try {
+      const conTicket = await this.conTicket(url);
+      if (ventana) {
+        ventana.opener = null;
+        ventana.location.href = conTicket;
+      } else {
+        window.location.href = conTicket;
+      }
+    } catch (error) {
+      ventana?.close();
+      throw new Error('Error al abrir el archivo');
+    }
+  }
+
+  // Un anuncio con el contenido completo (las páginas solo traen un extracto de los largos)
+  async getAnuncioCompleto(anuncioId) {
+    try {
+      return await apiService.get(ENDPOINTS.FEED_ANUNCIO(anuncioId));
+    } catch (error) {
+      throw new Error('Error al obtener el anuncio');
+    }
+  }
+
+  // Obtener una página de anuncios de un aula: { anuncios, nextCursor, hasMore }
+  async getAnuncios(aulaId, { cursor, limit } = {}) {
     try {
-      return await apiService.get(ENDPOINTS.AULAS.ANUNCIOS.BY_AULA(aulaId));
+      const params = new URLSearchParams();
+      if (cursor) params.set('cursor', cursor);
+      if (limit) params.set('limit', limit);
+      const query = params.toString();
+      return await apiService.get(`${ENDPOINTS.AULAS.ANUNCIOS.BY_AULA(aulaId)}${query ? `?${query}` : ''}`);
     } catch (error) {
       throw new Error(`Error al obtener anuncios del aula ${aulaId}`);
     }
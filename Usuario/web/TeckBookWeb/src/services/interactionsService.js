@@ -1,6 +1,21 @@
 import apiService from './apiService';
 
+// 🚀 Ventana para agrupar peticiones de stats de las tarjetas visibles en un solo lote
+const STATS_BATCH_WINDOW_MS = 25;
+const STATS_BATCH_MAX = 100;
+
+// 📖 Las lecturas de las tarjetas que entran en pantalla se envían juntas en un POST /read/bulk
+const READ_BATCH_WINDOW_MS = 250;
+const READ_BATCH_MAX = 100;
+const READ_RETRY_MS = 2000;
+
 class InteractionsService {
+  constructor() {
+    this._statsQueue = new Map(); // anuncioId -> [{ resolve, reject }]
+    this._statsTimer = null;
+    this._readQueue = new Set(); // anuncioIds pendientes de enviar
+    this._readTimer = null;
+  }
   
   // ========== LIKES ==========
   
@@ -12,6 +27,18 @@ class InteractionsService {
     });
   }
   
+  // 🚀 Idempotente: PUT fija el like y DELETE lo quita; repetir la llamada no cambia el estado
+  async setLike(anuncioId, liked, options = {}) {
+    const endpoint = `/api/interactions/like/${anuncioId}`;
+    const requestOptions = {
+      ...options,
+      signal: options.signal || AbortSignal.timeout(5000)
+    };
+    return liked
+      ? await apiService.put(endpoint, null, requestOptions)
+      : await apiService.delete(endpoint, requestOptions);
+  }
+  
   async getLikesCount(anuncioId, options = {}) {
     return await apiService.get(`/api/interactions/likes/${anuncioId}`, {
       ...options,
@@ -38,8 +65,26 @@ class InteractionsService {
     );
   }
   
+  // 🚀 Paginado por cursor: la respuesta trae nextCursor para pedir la página siguiente
   async getComments(anuncioId, options = {}) {
-    return await apiService.get(`/api/interactions/comments/${anuncioId}`, {
+    const params = new URLSearchParams();
+    if (options.cursor) params.set('cursor', options.cursor);
+    if (options.limit) params.set('limit', options.limit);
+    if (options.threaded) params.set('threaded', 'true');
+    const query = params.toString();
+    return await apiService.get(`/api/interactions/comments/${anuncioId}${query ? `?${query}` : ''}`, {
+      ...options,
+      signal: options.signal || AbortSignal.timeout(5000)
+    });
+  }
+  
+  // 🧵 Resto de las respuestas de un hilo: el primer cursor es el respuestasCursor de la raíz
+  async getReplies(comentarioId, options = {}) {
+    const params = new URLSearchParams();
+    if (options.cursor) params.set('cursor', options.cursor);
+    if (options.limit) params.set('limit', options.limit);
+    const query = params.toString();
+    return await apiService.get(`/api/interactions/comments/${comentarioId}/replies${query ? `?${query}` : ''}`, {
       ...options,
       signal: options.signal || AbortSignal.timeout(5000)
     });
@@ -47,23 +92,125 @@ class InteractionsService {
   
   // ========== LECTURAS ==========
   
-  async markAsRead(anuncioId, options = {}) {
-    return await apiService.post(`/api/interactions/read/${anuncioId}`, null, {
+  // 🚀 Encola la lectura; el servidor la registra de forma asíncrona (202), no hay nada que esperar
+  markAsRead(anuncioId) {
+    this._readQueue.add(Number(anuncioId));
+    if (this._readQueue.size >= READ_BATCH_MAX) {
+      this._flushReads();
+    } else if (!this._readTimer) {
+      this._readTimer = setTimeout(() => this._flushReads(), READ_BATCH_WINDOW_MS);
+    }
+  }
+
+  async markAllAsRead(anuncioIds, options = {}) {
+    return await apiService.post('/api/interactions/read/bulk', { anuncioIds }, {
       ...options,
-      signal: options.signal || AbortSignal.timeout(3000)
+      signal: options.signal || AbortSignal.timeout(5000)
+    });
+  }
+
+  // 📊 Lectores, porcentaje de lectura y pendientes del aula (autor o profesor)
+  async getReadSummary(anuncioId, options = {}) {
+    return await apiService.get(`/api/interactions/read/${anuncioId}/summary`, {
+      ...options,
+      signal: options.signal || AbortSignal.timeout(5000)
     });
   }
+
+  async _flushReads() {
+    clearTimeout(this._readTimer);
+    this._readTimer = null;
+
+    const ids = [...this._readQueue].slice(0, READ_BATCH_MAX);
+    ids.forEach(id => this._readQueue.delete(id));
+    if (ids.length === 0) return;
+
+    try {
+      await this.markAllAsRead(ids);
+    } catch (error) {
+      // Un 4xx no mejora reintentando (p. ej. sesión expirada): el lote se descarta
+      if (/^HTTP 4/.test(error.message) || error.message === 'Sesión expirada') {
+        console.debug(`📖 Lecturas descartadas (${ids.length}):`, error.message);
+        return;
+      }
+      // Servidor saturado (503) o red caída: se reintenta el lote más tarde; repetirlo es idempotente
+      console.debug(`📖 Lecturas no enviadas (${ids.length}), reintentando`, error.message);
+      ids.forEach(id => this._readQueue.add(id));
+      if (!this._readTimer) {
+        this._readTimer = setTimeout(() => this._flushReads(), READ_RETRY_MS);
+      }
+      return;
+    }
+
+    if (this._readQueue.size > 0 && !this._readTimer) {
+      this._readTimer = setTimeout(() => this._flushReads(), READ_BATCH_WINDOW_MS);
+    }
+  }
   
   // ========== STATS COMBINADAS ==========
   
-  async getAnuncioStats(anuncioId, options = {}) {
-    return await apiService.get(`/api/interactions/stats/${anuncioId}`, {
+  // 🚀 Las llamadas por tarjeta se agrupan y se resuelven con un único POST /stats/batch
+  getAnuncioStats(anuncioId, options = {}) {
+    return new Promise((resolve, reject) => {
+      const { signal } = options;
+      if (signal?.aborted) {
+        reject(new DOMException('Aborted', 'AbortError'));
+        return;
+      }
+
+      const waiter = { resolve, reject };
+      const key = String(anuncioId);
+      if (!this._statsQueue.has(key)) {
+        this._statsQueue.set(key, []);
+      }
+      this._statsQueue.get(key).push(waiter);
+
+      signal?.addEventListener('abort', () => {
+        const waiters = this._statsQueue.get(key);
+        if (waiters) {
+          const remaining = waiters.filter(w => w !== waiter);
+          if (remaining.length) this._statsQueue.set(key, remaining);
+          else this._statsQueue.delete(key);
+        }
+        reject(new DOMException('Aborted', 'AbortError'));
+      }, { once: true });
+
+      if (this._statsQueue.size >= STATS_BATCH_MAX) {
+        this._flushStats();
+      } else if (!this._statsTimer) {
+        this._statsTimer = setTimeout(() => this._flushStats(), STATS_BATCH_WINDOW_MS);
+      }
+    });
+  }
+
+  async getAnunciosStats(anuncioIds, options = {}) {
+    return await apiService.post('/api/interactions/stats/batch', { anuncioIds }, {
       ...options,
-      // 🚀 Timeout más largo para stats porque incluye varias queries
       signal: options.signal || AbortSignal.timeout(8000)
     });
   }
 
+  async _flushStats() {
+    clearTimeout(this._statsTimer);
+    this._statsTimer = null;
+
+    const batch = new Map(this._statsQueue);
+    this._statsQueue.clear();
+    if (batch.size === 0) return;
+
+    const ids = [...batch.keys()].map(Number);
+    try {
+      const data = await this.getAnunciosStats(ids);
+      const stats = data?.stats || {};
+      batch.forEach((waiters, key) => {
+        const value = stats[key] || { likesCount: 0, commentsCount: 0, userLiked: false, userRead: false };
+        waiters.forEach(w => w.resolve(value));
+      });
+    } catch (error) {
+      batch.forEach(waiters => waiters.forEach(w => w.reject(error)));
+    }
+  }
+
   // 🚀 MÉTODO OPTIMIZADO: Obtener stats básicas sin queries complejas
   async getBasicStats(anuncioId, options = {}) {
     try {
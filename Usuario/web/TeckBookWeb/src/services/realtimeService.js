@@ -0,0 +1,114 @@
+import { API_CONFIG, ENDPOINTS } from '../config/apiConfig';
+import apiService from './apiService';
+
+// 📡 Reintento tras un cierre definitivo (token vencido, servidor reiniciado)
+const RECONNECT_MIN_MS = 2000;
+const RECONNECT_MAX_MS = 60000;
+
+/**
+ * Stream SSE único por pestaña con la actividad en vivo de las aulas del usuario.
+ * Eventos: "anuncio", "stats" ({ deltas: [...] }) e "invitacion".
+ * Se conecta con el primer listener y se cierra cuando ya no queda ninguno.
+ */
+class RealtimeService {
+  constructor() {
+    this._source = null;
+    this._listeners = new Map(); // evento -> Set<handler>
+    this._reconnectTimer = null;
+    this._reconnectDelay = RECONNECT_MIN_MS;
+    this._connecting = false;
+  }
+
+  on(eventName, handler) {
+    if (!this._listeners.has(eventName)) {
+      this._listeners.set(eventName, new Set());
+      this._source?.addEventListener(eventName, this._dispatch);
+    }
+    this._listeners.get(eventName).add(handler);
+    this._connect();
+
+    return () => {
+      const handlers = this._listeners.get(eventName);
+      handlers?.delete(handler);
+      if (this._totalListeners() === 0) {
+        this.disconnect();
+      }
+    };
+  }
+
+  disconnect() {
+    clearTimeout(this._reconnectTimer);
+    this._reconnectTimer = null;
+    this._source?.close();
+    this._source = null;
+  }
+
+  _dispatch = (event) => {
+    let data = null;
+    try {
+      data = JSON.parse(event.data);
+    } catch {
+      return;
+    }
+    this._listeners.get(event.type)?.forEach(handler => {
+      try {
+        handler(data);
+      } catch (error) {
+        console.warn(`⚠️ Listener de ${event.type} falló:`, error);
+      }
+    });
+  };
+
+  async _connect() {
+    if (this._source || this._reconnectTimer || this._connecting) return;
+    if (!localStorage.getItem('token')) return;
+
+    // EventSource no admite cabeceras y el token de sesión no va en la URL: se pide un ticket corto
+    this._connecting = true;
+    let ticket;
+    try {
+      ({ ticket } = await apiService.post(ENDPOINTS.EVENTS.TICKETS));
+    } catch (error) {
+      this._connecting = false;
+      this._scheduleReconnect();
+      return;
+    }
+    this._connecting = false;
+    if (this._source || this._totalListeners() === 0) return;
+
+    const url = `${API_CONFIG.API_BASE_URL}${ENDPOINTS.EVENTS.STREAM}?ticket=${encodeURIComponent(ticket)}`;
+    const source = new EventSource(url);
+    this._listeners.forEach((handlers, eventName) => source.addEventListener(eventName, this._dispatch));
+
+    source.onopen = () => {
+      this._reconnectDelay = RECONNECT_MIN_MS;
+    };
+    source.onerror = () => {
+      // Cortes de red: EventSource reconecta solo. CLOSED (p. ej. 401 por ticket vencido) requiere
+      // reabrir con un ticket nuevo
+      if (source.readyState !== EventSource.CLOSED) return;
+      this._source = null;
+      this._scheduleReconnect();
+    };
+
+    this._source = source;
+  }
+
+  _scheduleReconnect() {
+    if (this._totalListeners() === 0 || this._reconnectTimer) return;
+    this._reconnectTimer = setTimeout(() => {
+      this._reconnectTimer = null;
+      this._connect();
+    }, this._reconnectDelay);
+    this._reconnectDelay = Math.min(this._reconnectDelay * 2, RECONNECT_MAX_MS);
+  }
+
+  _totalListeners() {
+    let total = 0;
+    this._listeners.forEach(handlers => { total += handlers.size; });
+    return total;
+  }
+}
+
+const realtimeService = new RealtimeService();
+export default realtimeService;